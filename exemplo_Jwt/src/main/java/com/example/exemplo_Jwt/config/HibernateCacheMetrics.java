@@ -0,0 +1,57 @@
+package com.example.exemplo_Jwt.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * ========================================================================
+ * MÉTRICAS DO CACHE DE SEGUNDO NÍVEL DO HIBERNATE
+ * ========================================================================
+ *
+ * Publica no Micrometer (/actuator/metrics) as estatísticas do Hibernate
+ * sobre o cache de segundo nível, no mesmo formato dos outros caches:
+ *
+ * - cache.gets{cache=hibernate.entidades, result=hit|miss}
+ * - cache.puts{cache=hibernate.entidades}
+ * - cache.gets{cache=hibernate.natural-id, result=hit|miss}
+ * - cache.puts{cache=hibernate.natural-id}
+ *
+ * Exige hibernate.generate_statistics=true (application.properties).
+ */
+@Component
+public class HibernateCacheMetrics {
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry registry) {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        registrar(registry, "cache.gets", "hibernate.entidades", "hit",
+                estatisticas, Statistics::getSecondLevelCacheHitCount);
+        registrar(registry, "cache.gets", "hibernate.entidades", "miss",
+                estatisticas, Statistics::getSecondLevelCacheMissCount);
+        registrar(registry, "cache.puts", "hibernate.entidades", null,
+                estatisticas, Statistics::getSecondLevelCachePutCount);
+
+        registrar(registry, "cache.gets", "hibernate.natural-id", "hit",
+                estatisticas, Statistics::getNaturalIdCacheHitCount);
+        registrar(registry, "cache.gets", "hibernate.natural-id", "miss",
+                estatisticas, Statistics::getNaturalIdCacheMissCount);
+        registrar(registry, "cache.puts", "hibernate.natural-id", null,
+                estatisticas, Statistics::getNaturalIdCachePutCount);
+    }
+
+    private static void registrar(MeterRegistry registry, String nome, String cache, String resultado,
+                                  Statistics estatisticas, ToDoubleFunction<Statistics> valor) {
+        FunctionCounter.Builder<Statistics> contador = FunctionCounter.builder(nome, estatisticas, valor)
+                .tag("cache", cache);
+        if (resultado != null) {
+            contador.tag("result", resultado);
+        }
+        contador.register(registry);
+    }
+}
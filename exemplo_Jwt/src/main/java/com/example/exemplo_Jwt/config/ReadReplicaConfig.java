@@ -0,0 +1,131 @@
+package com.example.exemplo_Jwt.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * ========================================================================
+ * ROTEAMENTO DE LEITURAS PARA UMA RÉPLICA
+ * ========================================================================
+ *
+ * Separa o banco em DOIS pools de conexões:
+ * - primário: recebe as escritas (cadastrar, atualizar, deletar)
+ * - réplica: recebe as transações somente leitura
+ *   (@Transactional(readOnly = true): buscarPorId, listarTodos, exportar,
+ *   carregamento das credenciais no login)
+ *
+ * COMO A ESCOLHA É FEITA?
+ * Numa transação readOnly o Spring marca a conexão JDBC como somente
+ * leitura (Connection.setReadOnly(true)) e o Hibernate usa flush MANUAL.
+ *
+ * LazyConnectionDataSourceProxy entrega uma conexão "preguiçosa": a
+ * conexão real só é pega no pool quando o primeiro SQL é executado.
+ * Nesse momento o proxy já sabe se a transação é readOnly e escolhe:
+ * - readOnly = true  -> pool da réplica
+ * - readOnly = false -> pool primário
+ *
+ * Assim, para escalar leituras basta apontar a réplica para outro banco,
+ * sem mexer no caminho de escrita.
+ *
+ * OS DOIS POOLS SÃO BEANS:
+ * - dataSourcePrimario: configurado por spring.datasource.hikari.*
+ * - dataSourceReplica: configurado por app.datasource.replica.hikari.*
+ * Cada um aparece nas métricas do Actuator (hikaricp.*{pool=primario|replica})
+ * e no health check. O roteador (@Primary) é montado em cima deles.
+ *
+ * DESLIGADO POR PADRÃO. Exemplo no application.properties:
+ * app.datasource.replica.habilitada=true
+ * app.datasource.replica.url=jdbc:h2:mem:testdb   (padrão: mesma URL do primário)
+ * spring.datasource.hikari.maximum-pool-size=10
+ * app.datasource.replica.hikari.maximum-pool-size=20
+ *
+ * Localmente a "réplica" é um segundo pool no mesmo H2 em memória:
+ * um H2 separado não teria as tabelas nem os dados do primário.
+ *
+ * @ConditionalOnProperty - Só cria os beans se a propriedade for true
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.habilitada", havingValue = "true")
+public class ReadReplicaConfig {
+
+    /**
+     * ====================================================================
+     * POOL PRIMÁRIO (escritas)
+     * ====================================================================
+     *
+     * DataSourceProperties - As mesmas propriedades spring.datasource.*
+     * usadas pelo Spring Boot (url, username, password...)
+     *
+     * @ConfigurationProperties - Aplica spring.datasource.hikari.* no pool
+     * (maximum-pool-size, connection-timeout...), como o Spring Boot faria
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        HikariDataSource primario = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primario.setPoolName("primario");
+        return primario;
+    }
+
+    /**
+     * ====================================================================
+     * POOL DA RÉPLICA (transações readOnly)
+     * ====================================================================
+     *
+     * URL e credenciais em app.datasource.replica.* (padrão: as do
+     * primário) e o pool em app.datasource.replica.hikari.*
+     */
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource dataSourceReplica(
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.url:${spring.datasource.url}}") String urlReplica,
+            @Value("${app.datasource.replica.username:${spring.datasource.username}}") String usuarioReplica,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String senhaReplica
+    ) {
+        HikariDataSource replica = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(urlReplica)
+                .username(usuarioReplica)
+                .password(senhaReplica)
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+
+        log.info("Leituras roteadas para a réplica: {}", urlReplica);
+        return replica;
+    }
+
+    /**
+     * ====================================================================
+     * DATASOURCE PRINCIPAL (usado pelo JPA)
+     * ====================================================================
+     *
+     * @Primary - Quem pede "um DataSource" (JPA, JdbcTemplate) recebe o
+     * roteador, e não um dos pools
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("dataSourcePrimario") DataSource primario,
+            @Qualifier("dataSourceReplica") DataSource replica
+    ) {
+        LazyConnectionDataSourceProxy roteador = new LazyConnectionDataSourceProxy(primario);
+        roteador.setReadOnlyDataSource(replica);
+        return roteador;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.exemplo_Jwt.controller;
+
+import com.example.exemplo_Jwt.service.JwtKeyRing;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * ========================================================================
+ * ENDPOINT DE ROTAÇÃO DE CHAVES JWT (Actuator)
+ * ========================================================================
+ *
+ * Gira e remove as chaves do JwtKeyRing SEM reiniciar a aplicação.
+ *
+ * OPERAÇÕES (via HTTP em /actuator/chavesjwt, ou via JMX):
+ * - GET - kid ativo, algoritmo e todos os kids aceitos
+ * - POST - nova chave de assinatura:
+ *   HS256: { "kid": "2025-06", "chave": "SEGREDO_BASE64" }
+ *   ES256: { "chavePrivada": "PKCS8_BASE64", "chavePublica": "X509_BASE64" }
+ * - DELETE /actuator/chavesjwt/{kid} - para de aceitar os tokens da chave
+ *
+ * COMO ROTACIONAR:
+ * 1. POST com a chave nova: os próximos tokens saem com o kid novo, e os
+ *    já emitidos (kid antigo) continuam válidos
+ * 2. Depois de jwt.expiration, DELETE da chave antiga
+ *
+ * SEGURANÇA:
+ * Fora da lista padrão do Actuator (management.endpoints.web.exposure.include)
+ * e, se exposto por HTTP, só para ROLE_ADMIN (veja SecurityConfig).
+ * A rotação vale para esta instância: com várias instâncias, repita em
+ * cada uma (ou atualize a configuração e reinicie).
+ */
+@Slf4j
+@Component
+@Endpoint(id = "chavesjwt")
+@RequiredArgsConstructor
+public class ChavesJwtEndpoint {
+
+    private final JwtKeyRing keyRing;
+
+    @ReadOperation
+    public Map<String, Object> chaves() {
+        JwtKeyRing.ChaveAtiva ativa = keyRing.getChaveAtiva();
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("ativa", ativa.kid());
+        resposta.put("algoritmo", ativa.algoritmo().getValue());
+        resposta.put("kids", new TreeSet<>(keyRing.kids()));
+        return resposta;
+    }
+
+    /**
+     * Nova chave de assinatura, no mesmo algoritmo da chave ativa
+     *
+     * @throws InvalidEndpointRequestException 400 - Campos faltando, chave inválida ou kid já usado
+     */
+    @WriteOperation
+    public Map<String, Object> rotacionar(
+            @Nullable String kid,
+            @Nullable String chave,
+            @Nullable String chavePrivada,
+            @Nullable String chavePublica
+    ) {
+        try {
+            if (keyRing.getChaveAtiva().algoritmo() == SignatureAlgorithm.ES256) {
+                if (chavePrivada == null || chavePublica == null) {
+                    throw invalido("Com ES256, informe chavePrivada e chavePublica");
+                }
+                keyRing.rotacionar(JwtKeyRing.decodificarPar(chavePrivada, chavePublica));
+            } else {
+                if (kid == null || kid.isBlank() || chave == null) {
+                    throw invalido("Com HS256, informe kid e chave");
+                }
+                // Reusar um kid trocaria a chave de tokens ainda em circulação
+                if (keyRing.kids().contains(kid)) {
+                    throw invalido("kid já existe no chaveiro: " + kid);
+                }
+                keyRing.rotacionar(kid, chave);
+            }
+        } catch (JwtException | IllegalStateException e) {
+            throw invalido(e.getMessage());
+        }
+        log.info("Chave JWT rotacionada pelo Actuator: kid={}", keyRing.getChaveAtiva().kid());
+        return chaves();
+    }
+
+    /**
+     * Remove uma chave: os tokens dela deixam de ser aceitos na hora
+     *
+     * @throws InvalidEndpointRequestException 400 - Se for a chave ativa
+     */
+    @DeleteOperation
+    public Map<String, Object> remover(@Selector String kid) {
+        try {
+            keyRing.remover(kid);
+        } catch (IllegalStateException e) {
+            throw invalido(e.getMessage());
+        }
+        log.info("Chave JWT removida pelo Actuator: kid={}", kid);
+        return chaves();
+    }
+
+    private static InvalidEndpointRequestException invalido(String motivo) {
+        return new InvalidEndpointRequestException(motivo, motivo);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.exemplo_Jwt.controller;
+
+import com.example.exemplo_Jwt.service.JwtKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ========================================================================
+ * JWKS CONTROLLER - CHAVES PÚBLICAS PARA VALIDAR TOKENS
+ * ========================================================================
+ *
+ * Publica as chaves públicas (ES256) que assinam os tokens, no formato
+ * JWK Set (RFC 7517). Outros serviços baixam este documento e validam
+ * os tokens SOZINHOS, sem compartilhar jwt.secret e sem chamar esta API.
+ *
+ * ROTA PÚBLICA (não precisa token)
+ *
+ * Endpoint: GET /.well-known/jwks.json
+ *
+ * EXEMPLO DE RESPOSTA:
+ * {
+ *   "keys": [
+ *     {"crv": "P-256", "kty": "EC", "x": "...", "y": "...",
+ *      "kid": "...", "use": "sig", "alg": "ES256"}
+ *   ]
+ * }
+ *
+ * CACHE HTTP:
+ * - Cache-Control: max-age=300 - O cliente pode reusar por 5 minutos
+ * - ETag - Depois disso, o cliente pergunta "mudou?" (If-None-Match)
+ *   e recebe 304 Not Modified, sem corpo, se as chaves forem as mesmas
+ *
+ * O documento é montado pelo JwtKeyRing só quando as chaves mudam.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks(WebRequest request) {
+        JwtKeyRing.Jwks jwks = keyRing.getJwks();
+
+        /**
+         * checkNotModified() compara o ETag com o If-None-Match da requisição.
+         * Se forem iguais, o Spring já responde 304 e o corpo é ignorado.
+         */
+        if (request.checkNotModified(jwks.etag())) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(jwks.etag())
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(jwks.json());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.exemplo_Jwt.dto;
+
+/**
+ * ========================================================================
+ * FALHA NO CADASTRO EM LOTE
+ * ========================================================================
+ *
+ * Uma linha do lote que NÃO foi cadastrada, e o motivo.
+ *
+ * EXEMPLO DE JSON:
+ * {
+ *   "linha": 3,
+ *   "email": "joao@email.com",
+ *   "motivo": "Email já cadastrado!"
+ * }
+ */
+public record FalhaLoteDTO(
+
+        /**
+         * Posição do usuário no lote (começa em 1)
+         */
+        long linha,
+
+        String email,
+
+        String motivo
+
+) {
+}
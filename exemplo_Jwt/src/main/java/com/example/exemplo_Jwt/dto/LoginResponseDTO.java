@@ -11,6 +11,7 @@ package com.example.exemplo_Jwt.dto;
  * EXEMPLO DE JSON:
  * {
  *   "token": "eyJhbGciOiJIUzI1NiIs...",
+ *   "refreshToken": "q1V9x...",
  *   "tipo": "Bearer",
  *   "id": 1,
  *   "nomeCompleto": "João da Silva",
@@ -19,6 +20,9 @@ package com.example.exemplo_Jwt.dto;
  *
  * O cliente deve guardar o token e enviá-lo em todas as requisições:
  * Header: Authorization: Bearer {token}
+ *
+ * Quando o token expirar, o cliente troca o refreshToken por um par novo
+ * em POST /usuarios/refresh (sem enviar a senha de novo).
  */
 public record LoginResponseDTO(
 
@@ -38,6 +42,14 @@ public record LoginResponseDTO(
          */
         String token,
 
+        /**
+         * REFRESH TOKEN
+         *
+         * Opaco e de uso único: cada renovação devolve um novo
+         * (veja RefreshTokenService).
+         */
+        String refreshToken,
+
         /**
          * TIPO do token (geralmente "Bearer")
          */
@@ -49,6 +61,13 @@ public record LoginResponseDTO(
      * Permite criar com tipo padrão "Bearer"
      */
     public LoginResponseDTO(String token, Long id, String nomeCompleto, String email) {
-        this(id, nomeCompleto, email, token, "Bearer");
+        this(id, nomeCompleto, email, token, null, "Bearer");
+    }
+
+    /**
+     * Com refresh token e tipo padrão "Bearer"
+     */
+    public LoginResponseDTO(String token, String refreshToken, Long id, String nomeCompleto, String email) {
+        this(id, nomeCompleto, email, token, refreshToken, "Bearer");
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.exemplo_Jwt.dto;
+
+import java.util.List;
+
+/**
+ * ========================================================================
+ * PÁGINA DE USUÁRIOS - RESPOSTA DA LISTAGEM PAGINADA
+ * ========================================================================
+ *
+ * Uma página da listagem de usuários (GET /usuarios).
+ *
+ * EXEMPLO DE JSON:
+ * {
+ *   "usuarios": [ { "id": 1, ... }, { "id": 2, ... } ],
+ *   "proximoCursor": "Mg"
+ * }
+ *
+ * Para buscar a próxima página, envie o cursor recebido:
+ * GET /usuarios?cursor=Mg&limite=50
+ *
+ * proximoCursor = null indica que esta é a última página.
+ */
+public record PaginaUsuariosDTO(
+
+        List<UsuarioResponseDTO> usuarios,
+
+        /**
+         * Cursor opaco: o cliente não deve interpretar, só reenviar
+         */
+        String proximoCursor
+
+) {
+}
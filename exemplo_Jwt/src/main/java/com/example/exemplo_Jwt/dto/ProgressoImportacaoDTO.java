@@ -0,0 +1,55 @@
+package com.example.exemplo_Jwt.dto;
+
+import java.util.List;
+
+/**
+ * ========================================================================
+ * PROGRESSO DA IMPORTAÇÃO DE USUÁRIOS
+ * ========================================================================
+ *
+ * Situação de uma importação de arquivo (NDJSON ou CSV).
+ * Devolvido ao final do POST /usuarios/importar e, enquanto a importação
+ * roda, pelo GET /usuarios/importacoes/{id}.
+ *
+ * EXEMPLO DE JSON:
+ * {
+ *   "id": "clientes-2025-12",
+ *   "status": "EM_ANDAMENTO",
+ *   "linhasLidas": 120000,
+ *   "cadastrados": 119850,
+ *   "falhas": 150,
+ *   "ultimaLinhaConfirmada": 120000,
+ *   "linhasPorSegundo": 2450.5,
+ *   "primeirasFalhas": [ { "linha": 17, "email": "...", "motivo": "..." } ]
+ * }
+ */
+public record ProgressoImportacaoDTO(
+
+        String id,
+
+        /**
+         * EM_ANDAMENTO, CONCLUIDA ou FALHOU
+         */
+        String status,
+
+        long linhasLidas,
+
+        long cadastrados,
+
+        long falhas,
+
+        /**
+         * Última linha do arquivo já gravada no banco (checkpoint).
+         * Reenviar o arquivo com o mesmo id continua DEPOIS dela.
+         */
+        long ultimaLinhaConfirmada,
+
+        double linhasPorSegundo,
+
+        /**
+         * Só as primeiras falhas (o total está em "falhas")
+         */
+        List<FalhaLoteDTO> primeirasFalhas
+
+) {
+}
@@ -0,0 +1,14 @@
+package com.example.exemplo_Jwt.dto;
+
+/**
+ * DTO DE REQUEST - RENOVAÇÃO DO TOKEN
+ *
+ * Corpo do POST /usuarios/refresh:
+ * { "refreshToken": "..." }
+ */
+public record RefreshRequestDTO(
+
+        String refreshToken
+
+) {
+}
@@ -0,0 +1,33 @@
+package com.example.exemplo_Jwt.dto;
+
+import java.util.List;
+
+/**
+ * ========================================================================
+ * RESULTADO DO CADASTRO EM LOTE
+ * ========================================================================
+ *
+ * Resposta do POST /usuarios/cadastrar-lote.
+ *
+ * Uma linha com problema NÃO cancela o lote: as outras são cadastradas
+ * e a linha aparece em "falhas" com o motivo.
+ *
+ * EXEMPLO DE JSON:
+ * {
+ *   "total": 3,
+ *   "cadastrados": 2,
+ *   "falhas": [
+ *     { "linha": 3, "email": "joao@email.com", "motivo": "Email já cadastrado!" }
+ *   ]
+ * }
+ */
+public record ResultadoLoteDTO(
+
+        int total,
+
+        int cadastrados,
+
+        List<FalhaLoteDTO> falhas
+
+) {
+}
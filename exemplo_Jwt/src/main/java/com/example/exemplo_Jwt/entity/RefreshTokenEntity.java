@@ -0,0 +1,76 @@
+package com.example.exemplo_Jwt.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ========================================================================
+ * REFRESH TOKEN ENTITY - TABELA "refresh_tokens"
+ * ========================================================================
+ *
+ * Cada linha é um refresh token emitido no login (ou numa renovação).
+ *
+ * O TOKEN EM SI NÃO É GUARDADO:
+ * A coluna hash tem o SHA-256 do token (veja TokenHash). Quem ler a
+ * tabela não consegue usar os tokens.
+ *
+ * ROTAÇÃO E FAMÍLIA:
+ * Cada renovação marca o token usado (usadoEm) e emite um novo, da mesma
+ * família. Se um token JÁ USADO aparecer de novo, alguém copiou o token:
+ * a família inteira é revogada e o usuário precisa fazer login.
+ *
+ * ÍNDICES:
+ * - uk_refresh_tokens_hash - Busca pelo hash em toda renovação
+ * - idx_refresh_tokens_familia - Revogar uma família
+ * - idx_refresh_tokens_usuario - Revogar todos os tokens de um usuário
+ * - idx_refresh_tokens_expira_em - Limpeza dos expirados
+ */
+@Entity
+@Table(name = "refresh_tokens",
+        uniqueConstraints = @UniqueConstraint(name = "uk_refresh_tokens_hash", columnNames = "hash"),
+        indexes = {
+                @Index(name = "idx_refresh_tokens_familia", columnList = "familia"),
+                @Index(name = "idx_refresh_tokens_usuario", columnList = "usuario_id"),
+                @Index(name = "idx_refresh_tokens_expira_em", columnList = "expira_em")
+        })
+@Data
+@NoArgsConstructor
+public class RefreshTokenEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * SHA-256 do token em Base64 URL (43 caracteres)
+     */
+    @Column(nullable = false, length = 43)
+    private String hash;
+
+    /**
+     * Dono do token (só o ID: a renovação busca o usuário pelo cache)
+     */
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    /**
+     * Família de rotação: todos os tokens gerados a partir do mesmo login
+     */
+    @Column(nullable = false, length = 36)
+    private String familia;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    /**
+     * Quando o token foi trocado por um novo (null = ainda não usado)
+     */
+    @Column(name = "usado_em")
+    private LocalDateTime usadoEm;
+}
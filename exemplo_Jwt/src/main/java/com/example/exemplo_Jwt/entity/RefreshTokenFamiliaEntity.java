@@ -0,0 +1,65 @@
+package com.example.exemplo_Jwt.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ========================================================================
+ * REFRESH TOKEN FAMÍLIA ENTITY - TABELA "refresh_token_familias"
+ * ========================================================================
+ *
+ * Uma linha por login: todos os refresh tokens gerados a partir dele
+ * (as rotações) pertencem a esta família.
+ *
+ * POR QUE UMA TABELA SÓ PARA A FAMÍLIA?
+ * Apagar os tokens da família não basta para revogá-la: uma renovação
+ * que já consumiu o token anterior pode inserir o próximo DEPOIS do
+ * DELETE. A marca revogadaEm fica aqui e vale para qualquer token da
+ * família, inclusive os inseridos depois da revogação.
+ *
+ * A renovação trava esta linha (SELECT ... FOR UPDATE) antes de emitir o
+ * token novo, então revogar e renovar a mesma família nunca se cruzam.
+ *
+ * ÍNDICES:
+ * - idx_refresh_familias_usuario - Revogar todas as famílias de um usuário
+ * - idx_refresh_familias_expira_em - Limpeza das expiradas
+ */
+@Entity
+@Table(name = "refresh_token_familias",
+        indexes = {
+                @Index(name = "idx_refresh_familias_usuario", columnList = "usuario_id"),
+                @Index(name = "idx_refresh_familias_expira_em", columnList = "expira_em")
+        })
+@Data
+@NoArgsConstructor
+public class RefreshTokenFamiliaEntity {
+
+    /**
+     * UUID da família (o mesmo de RefreshTokenEntity.familia)
+     */
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "criada_em", nullable = false)
+    private LocalDateTime criadaEm;
+
+    /**
+     * Expiração do token mais novo da família: depois dela nenhum token
+     * da família vale, e a linha pode ser apagada
+     */
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    /**
+     * Quando a família foi revogada (null = ativa)
+     */
+    @Column(name = "revogada_em")
+    private LocalDateTime revogadaEm;
+}
@@ -0,0 +1,35 @@
+package com.example.exemplo_Jwt.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ========================================================================
+ * ID POR SEQUENCE COM OTIMIZADOR POOLED-LO
+ * ========================================================================
+ *
+ * Anotação usada no lugar de @GeneratedValue + @SequenceGenerator.
+ *
+ * A diferença: o tamanho de alocação (quantos IDs cada ida à sequence
+ * reserva) vem do application.properties, e não de uma constante no código:
+ *
+ * spring.jpa.properties.app.id.tamanho-alocacao=50
+ *
+ * Quem gera os IDs é o SequenciaPooledLoGenerator.
+ *
+ * @IdGeneratorType - Liga esta anotação ao gerador de IDs do Hibernate
+ */
+@IdGeneratorType(SequenciaPooledLoGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SequenciaPooledLo {
+
+    /**
+     * Nome da sequence no banco
+     */
+    String value();
+}
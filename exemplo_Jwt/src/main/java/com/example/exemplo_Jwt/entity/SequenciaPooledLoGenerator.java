@@ -0,0 +1,74 @@
+package com.example.exemplo_Jwt.entity;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * ========================================================================
+ * GERADOR DE IDS: SEQUENCE + POOLED-LO
+ * ========================================================================
+ *
+ * É o gerador de sequence padrão do Hibernate (SequenceStyleGenerator),
+ * só que configurado aqui em vez de nas anotações:
+ *
+ * 1. Tamanho de alocação: lido da configuração "app.id.tamanho-alocacao"
+ *    (spring.jpa.properties.app.id.tamanho-alocacao no application.properties)
+ * 2. Otimizador POOLED-LO: o valor lido da sequence é o PRIMEIRO ID do
+ *    bloco. Com tamanho 50, uma ida à sequence devolve 1 e o Hibernate
+ *    usa 1..50 em memória; a próxima devolve 51 e usa 51..100.
+ *    (No "pooled" o valor lido é o ÚLTIMO do bloco; o pooled-lo é mais
+ *    fácil de entender e também funciona com inserts feitos fora da
+ *    aplicação que usem nextval normalmente.)
+ *
+ * Resultado: uma consulta à sequence a cada 50 INSERTs, e o ID já é
+ * conhecido antes do INSERT, o que permite o JDBC batching.
+ *
+ * ATENÇÃO: o INCREMENT da sequence no banco precisa ser igual ao tamanho
+ * de alocação. Com ddl-auto a sequence é criada assim; num banco já
+ * existente, altere a sequence junto com a configuração.
+ */
+public class SequenciaPooledLoGenerator extends SequenceStyleGenerator {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Configuração com o tamanho de alocação
+     */
+    public static final String TAMANHO_ALOCACAO = "app.id.tamanho-alocacao";
+
+    private static final int TAMANHO_ALOCACAO_PADRAO = 50;
+
+    private final String sequencia;
+
+    /**
+     * Construtor chamado pelo Hibernate para cada campo anotado
+     * com @SequenciaPooledLo
+     */
+    public SequenciaPooledLoGenerator(
+            SequenciaPooledLo anotacao,
+            Member campo,
+            CustomIdGeneratorCreationContext contexto
+    ) {
+        this.sequencia = anotacao.value();
+    }
+
+    @Override
+    public void configure(Type type, Properties parametros, ServiceRegistry serviceRegistry) {
+        int tamanhoAlocacao = serviceRegistry.requireService(ConfigurationService.class)
+                .getSetting(TAMANHO_ALOCACAO, StandardConverters.INTEGER, TAMANHO_ALOCACAO_PADRAO);
+
+        parametros.setProperty(SEQUENCE_PARAM, sequencia);
+        parametros.setProperty(INCREMENT_PARAM, String.valueOf(tamanhoAlocacao));
+        parametros.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+
+        super.configure(type, parametros, serviceRegistry);
+    }
+}
@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
@@ -18,26 +22,55 @@ import java.time.LocalDateTime;
  *
  * @Entity - Diz ao Spring que esta classe é uma entidade do banco de dados
  * @Table - Define o nome da tabela (se não colocar, usa o nome da classe)
+ *          e as constraints UNIQUE com nomes fixos (uk_usuarios_email e
+ *          uk_usuarios_cpf). O UsuarioService usa esses nomes para saber
+ *          qual campo estava duplicado no cadastro.
+ * @Cacheable / @Cache - Guarda os usuários no cache de segundo nível do
+ *          Hibernate (Ehcache, configurado no ehcache.xml). Um findById
+ *          de um usuário já carregado não vai ao banco.
+ *          READ_WRITE: alterações feitas pelo Hibernate atualizam o cache
+ *          no commit, então o cache não fica com dados antigos.
+ * @NaturalIdCache - Também guarda email -> ID (veja o campo email)
  * @Data - Lombok que cria automaticamente getters, setters, toString, equals e hashCode
  * @NoArgsConstructor - Lombok que cria um construtor sem parâmetros
  * @AllArgsConstructor - Lombok que cria um construtor com todos os parâmetros
  */
 @Entity
-@Table(name = "usuarios")
+@Table(name = "usuarios", uniqueConstraints = {
+        @UniqueConstraint(name = UsuarioEntity.UK_EMAIL, columnNames = "email"),
+        @UniqueConstraint(name = UsuarioEntity.UK_CPF, columnNames = "cpf")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class UsuarioEntity {
 
+    /**
+     * Nomes das constraints UNIQUE da tabela
+     */
+    public static final String UK_EMAIL = "uk_usuarios_email";
+    public static final String UK_CPF = "uk_usuarios_cpf";
+
     /**
      * ID - Chave primária da tabela
      *
      * @Id - Indica que este campo é a chave primária
-     * @GeneratedValue - O valor é gerado automaticamente
-     * IDENTITY - O banco de dados gera o ID (auto_increment no MySQL)
+     * @SequenciaPooledLo - O ID vem de uma sequence do banco (usuarios_seq)
+     *
+     * POR QUE NÃO IDENTITY (auto_increment)?
+     * Com IDENTITY o Hibernate só descobre o ID DEPOIS de cada INSERT, então
+     * precisa executar um INSERT por vez e não consegue agrupar vários
+     * INSERTs num único envio ao banco (JDBC batching).
+     *
+     * Cada ida à sequence reserva um bloco de IDs (app.id.tamanho-alocacao,
+     * padrão 50), que o Hibernate distribui em memória (otimizador
+     * "pooled-lo", veja SequenciaPooledLoGenerator).
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SequenciaPooledLo("usuarios_seq")
     private Long id;
 
     /**
@@ -53,18 +86,24 @@ public class UsuarioEntity {
     /**
      * CPF - Cadastro de Pessoa Física
      *
-     * unique = true - Não pode ter CPF duplicado no banco
+     * Não pode ter CPF duplicado no banco (constraint uk_usuarios_cpf)
      * length = 11 - CPF tem 11 dígitos (sem pontos e traços)
      */
-    @Column(nullable = false, unique = true, length = 11)
+    @Column(nullable = false, length = 11)
     private String cpf;
 
     /**
      * EMAIL
      *
-     * unique = true - Cada usuário tem um email único
+     * Cada usuário tem um email único (constraint uk_usuarios_email)
+     *
+     * @NaturalId - O email é o identificador "natural" do usuário (o ID
+     * é o identificador técnico). Buscas pelo natural id (findByEmail)
+     * podem ser resolvidas pelo cache de segundo nível.
+     * O email não muda depois do cadastro (o atualizar não altera).
      */
-    @Column(nullable = false, unique = true, length = 100)
+    @NaturalId
+    @Column(nullable = false, length = 100)
     private String email;
 
     /**
@@ -117,6 +156,16 @@ public class UsuarioEntity {
     @Column(nullable = false)
     private Boolean ativo = true;
 
+    /**
+     * VERSÃO DOS TOKENS
+     *
+     * Incrementada quando os dados gravados no token deixam de valer
+     * (ex: usuário desativado). Tokens com versão menor são conferidos
+     * no banco (veja VersaoTokenRegistry).
+     */
+    @Column(name = "versao_token", nullable = false)
+    private Long versaoToken = 0L;
+
     /**
      * DATA DE CRIAÇÃO
      *
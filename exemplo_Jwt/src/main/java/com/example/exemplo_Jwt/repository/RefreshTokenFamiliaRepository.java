@@ -0,0 +1,65 @@
+package com.example.exemplo_Jwt.repository;
+
+import com.example.exemplo_Jwt.entity.RefreshTokenFamiliaEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ========================================================================
+ * REFRESH TOKEN FAMÍLIA REPOSITORY
+ * ========================================================================
+ *
+ * Acesso à tabela refresh_token_familias (veja RefreshTokenFamiliaEntity).
+ */
+@Repository
+public interface RefreshTokenFamiliaRepository extends JpaRepository<RefreshTokenFamiliaEntity, String> {
+
+    /**
+     * Busca a família travando a linha até o fim da transação
+     * (SELECT ... FOR UPDATE): uma revogação concorrente espera a
+     * renovação terminar, ou a renovação enxerga a revogação.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM RefreshTokenFamiliaEntity f WHERE f.id = :id")
+    Optional<RefreshTokenFamiliaEntity> buscarParaRenovar(@Param("id") String id);
+
+    /**
+     * Marca a família como revogada
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE RefreshTokenFamiliaEntity f SET f.revogadaEm = :agora
+            WHERE f.id = :id AND f.revogadaEm IS NULL
+            """)
+    int revogar(@Param("id") String id, @Param("agora") LocalDateTime agora);
+
+    /**
+     * Marca todas as famílias de um usuário como revogadas
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE RefreshTokenFamiliaEntity f SET f.revogadaEm = :agora
+            WHERE f.usuarioId = :usuarioId AND f.revogadaEm IS NULL
+            """)
+    int revogarDoUsuario(@Param("usuarioId") Long usuarioId, @Param("agora") LocalDateTime agora);
+
+    /**
+     * IDs de famílias expiradas, em lotes (usado pela limpeza periódica)
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT f.id FROM RefreshTokenFamiliaEntity f WHERE f.expiraEm < :agora")
+    List<String> buscarExpiradas(@Param("agora") LocalDateTime agora, Limit limite);
+}
@@ -0,0 +1,74 @@
+package com.example.exemplo_Jwt.repository;
+
+import com.example.exemplo_Jwt.entity.RefreshTokenEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ========================================================================
+ * REFRESH TOKEN REPOSITORY
+ * ========================================================================
+ *
+ * Acesso à tabela refresh_tokens. Todas as buscas usam colunas com
+ * índice (hash, familia, usuario_id, expira_em).
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, Long> {
+
+    /**
+     * Query gerada: SELECT * FROM refresh_tokens WHERE hash = ?
+     */
+    @Transactional(readOnly = true)
+    Optional<RefreshTokenEntity> findByHash(String hash);
+
+    /**
+     * ====================================================================
+     * MARCAR TOKEN COMO USADO (rotação atômica)
+     * ====================================================================
+     *
+     * O UPDATE só altera a linha se o token ainda não foi usado e não
+     * expirou. Com duas renovações simultâneas do mesmo token, o banco
+     * garante que só UMA recebe 1 (a outra recebe 0), sem precisar de lock.
+     *
+     * @return 1 se o token foi consumido agora, 0 caso contrário
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE RefreshTokenEntity r SET r.usadoEm = :agora
+            WHERE r.hash = :hash AND r.usadoEm IS NULL AND r.expiraEm > :agora
+            """)
+    int marcarUsado(@Param("hash") String hash, @Param("agora") LocalDateTime agora);
+
+    /**
+     * Revoga uma família inteira (reuso de token detectado)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshTokenEntity r WHERE r.familia = :familia")
+    int revogarFamilia(@Param("familia") String familia);
+
+    /**
+     * Revoga todos os refresh tokens de um usuário
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshTokenEntity r WHERE r.usuarioId = :usuarioId")
+    int revogarDoUsuario(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * IDs de tokens expirados, em lotes (usado pela limpeza periódica)
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT r.id FROM RefreshTokenEntity r WHERE r.expiraEm < :agora")
+    List<Long> buscarExpirados(@Param("agora") LocalDateTime agora, Limit limite);
+}
@@ -1,10 +1,23 @@
 package com.example.exemplo_Jwt.repository;
 
+import com.example.exemplo_Jwt.dto.UsuarioResponseDTO;
 import com.example.exemplo_Jwt.entity.UsuarioEntity;
+import com.example.exemplo_Jwt.repository.projection.CredenciaisUsuario;
+import com.example.exemplo_Jwt.repository.projection.EmailCpf;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * ========================================================================
@@ -21,6 +34,9 @@ import java.util.Optional;
  * - delete() - Deletar
  * - count() - Contar registros
  *
+ * UsuarioRepositoryCustom - Métodos implementados "à mão"
+ * (findByEmail pelo natural id, veja UsuarioRepositoryCustomImpl)
+ *
  * @Repository - Indica que esta interface é um repositório do Spring
  *
  * JpaRepository<UsuarioEntity, Long> significa:
@@ -28,38 +44,147 @@ import java.util.Optional;
  * - Long: tipo da chave primária (ID)
  */
 @Repository
-public interface UsuarioRepository extends JpaRepository<UsuarioEntity, Long> {
+public interface UsuarioRepository extends JpaRepository<UsuarioEntity, Long>, UsuarioRepositoryCustom {
+
+    /**
+     * CONSULTAS DE LEITURA COM PROJEÇÃO (constructor expression)
+     *
+     * "SELECT new ...UsuarioResponseDTO(...)" faz o Hibernate criar o
+     * record DIRETO a partir das colunas, sem passar pela entity:
+     * - não guarda a entity no contexto de persistência
+     * - não guarda cópia para dirty checking
+     * - não lê a coluna senha
+     *
+     * Usado nas rotas que só LEEM listas de dados (listar, exportar).
+     * Buscas de UM usuário (findById, findByEmail) usam a entity, que
+     * fica no cache de segundo nível.
+     */
+    String SELECT_RESPOSTA = """
+            SELECT new com.example.exemplo_Jwt.dto.UsuarioResponseDTO(
+                u.id, u.nomeCompleto, u.cpf, u.email, u.telefone, u.dataNascimento,
+                u.endereco, u.cidade, u.estado, u.cep, u.ativo, u.criadoEm, u.atualizadoEm)
+            FROM UsuarioEntity u
+            """;
 
     /**
      * ====================================================================
-     * BUSCAR USUÁRIO POR EMAIL
+     * BUSCAR CREDENCIAIS POR EMAIL (projeção para autenticação)
      * ====================================================================
      *
-     * O Spring Data JPA cria automaticamente a implementação deste método!
+     * Como o findByEmail, mas traz só as colunas usadas no login e na
+     * validação do token, já dentro de um record (CredenciaisUsuario).
      *
-     * COMO FUNCIONA:
-     * - O Spring lê o nome do método: "findByEmail"
-     * - Identifica que é um "find" (busca)
-     * - Identifica "ByEmail" (pelo campo email)
-     * - Cria automaticamente a query SQL: SELECT * FROM usuarios WHERE email = ?
+     * Query gerada: SELECT id, nome_completo, email, senha, ativo, versao_token
+     *               FROM usuarios WHERE email = ?
      *
-     * Optional<UsuarioEntity> significa:
-     * - Pode retornar um usuário OU pode estar vazio
-     * - Evita NullPointerException
-     * - Uso: optional.isPresent() para verificar se encontrou
+     * @Transactional(readOnly = true) - Transação somente leitura:
+     * o Hibernate não faz flush nem verificação de alterações.
      *
      * @param email - Email para buscar
-     * @return Optional contendo o usuário se encontrado, vazio caso contrário
+     * @return Optional com as credenciais se encontrado
+     */
+    @Transactional(readOnly = true)
+    @Query("""
+            SELECT new com.example.exemplo_Jwt.repository.projection.CredenciaisUsuario(
+                u.id, u.nomeCompleto, u.email, u.senha, u.ativo, u.versaoToken)
+            FROM UsuarioEntity u
+            WHERE u.email = :email
+            """)
+    Optional<CredenciaisUsuario> buscarCredenciaisPorEmail(@Param("email") String email);
+
+    /**
+     * ====================================================================
+     * ATUALIZAR SENHA PELO EMAIL
+     * ====================================================================
+     *
+     * UPDATE direto, sem carregar a entidade.
+     * Usado para recriptografar a senha com um custo maior do BCrypt.
+     *
+     * @Modifying - Indica que a query altera dados (não é um SELECT)
+     *
+     * @param email - Email do usuário
+     * @param senha - Novo hash da senha
+     * @return quantidade de linhas alteradas
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UsuarioEntity u SET u.senha = :senha WHERE u.email = :email")
+    int atualizarSenha(@Param("email") String email, @Param("senha") String senha);
+
+    /**
+     * ====================================================================
+     * BUSCAR PÁGINA DE USUÁRIOS (paginação por keyset)
+     * ====================================================================
+     *
+     * Busca os próximos usuários DEPOIS de um ID, em ordem de ID,
+     * já no formato de resposta (UsuarioResponseDTO).
+     *
+     * Query gerada: SELECT id, nome_completo, ... FROM usuarios
+     *               WHERE id > ? ORDER BY id LIMIT ?
+     *
+     * POR QUE NÃO USAR OFFSET (página 1, 2, 3...)?
+     * Com OFFSET 1000000 o banco precisa LER e DESCARTAR um milhão de linhas
+     * antes de devolver a página. Com "WHERE id > ?" o banco vai direto ao
+     * ponto pelo índice da chave primária: a milésima página custa o mesmo
+     * que a primeira.
+     *
+     * Limit - Quantidade máxima de registros retornados
+     *
+     * @param id - Último ID da página anterior (0 para a primeira página)
+     * @param limite - Tamanho da página
+     * @return usuários com ID maior que o informado, em ordem crescente
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_RESPOSTA + "WHERE u.id > :id ORDER BY u.id")
+    List<UsuarioResponseDTO> buscarPaginaResposta(@Param("id") Long id, Limit limite);
+
+    /**
+     * ====================================================================
+     * PERCORRER TODOS OS USUÁRIOS (exportação)
+     * ====================================================================
+     *
+     * Devolve um Stream em vez de uma List: as linhas são lidas do banco
+     * AOS POUCOS, por um cursor JDBC, conforme o Stream é consumido.
+     *
+     * Cada linha já vira um UsuarioResponseDTO: nenhuma entity é criada,
+     * então nada se acumula no contexto de persistência.
+     *
+     * @QueryHints:
+     * - fetch size: quantas linhas o driver traz do banco por vez
+     *
+     * ATENÇÃO:
+     * - Precisa ser chamado dentro de uma transação
+     * - O Stream deve ser fechado (try-with-resources) para liberar o cursor
+     *
+     * @return Stream com todos os usuários, em ordem de ID
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_RESPOSTA + "ORDER BY u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<UsuarioResponseDTO> percorrerTodos();
+
+    /**
+     * ====================================================================
+     * PERCORRER EMAILS E CPFS (filtro de cadastro)
+     * ====================================================================
+     *
+     * Lê só as colunas email e cpf de todos os usuários, em Stream.
+     * Usado para montar o CadastroBloomFilter.
+     *
+     * @return Stream com email e CPF de cada usuário
      */
-    Optional<UsuarioEntity> findByEmail(String email);
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.exemplo_Jwt.repository.projection.EmailCpf(u.email, u.cpf) FROM UsuarioEntity u")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<EmailCpf> percorrerEmailsECpfs();
 
     /**
      * ====================================================================
      * BUSCAR USUÁRIO POR CPF
      * ====================================================================
      *
-     * Funciona igual ao findByEmail
-     * Query gerada: SELECT * FROM usuarios WHERE cpf = ?
+     * O Spring Data JPA cria a query a partir do nome do método:
+     * "findBy" + "Cpf" -> SELECT * FROM usuarios WHERE cpf = ?
      *
      * @param cpf - CPF para buscar
      * @return Optional contendo o usuário se encontrado
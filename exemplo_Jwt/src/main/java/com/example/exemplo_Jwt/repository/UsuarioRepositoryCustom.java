@@ -0,0 +1,35 @@
+package com.example.exemplo_Jwt.repository;
+
+import com.example.exemplo_Jwt.entity.UsuarioEntity;
+
+import java.util.Optional;
+
+/**
+ * ========================================================================
+ * MÉTODOS DO REPOSITORY IMPLEMENTADOS "À MÃO"
+ * ========================================================================
+ *
+ * O Spring Data junta esta interface ao UsuarioRepository e usa a
+ * implementação da classe UsuarioRepositoryCustomImpl (o sufixo "Impl"
+ * é a convenção do Spring Data para encontrá-la).
+ */
+public interface UsuarioRepositoryCustom {
+
+    /**
+     * ====================================================================
+     * BUSCAR USUÁRIO POR EMAIL
+     * ====================================================================
+     *
+     * Busca pelo natural id (o email), e não por uma query derivada do
+     * nome do método: assim a busca pode ser resolvida pelo cache de
+     * segundo nível, sem ir ao banco.
+     *
+     * Optional<UsuarioEntity> significa:
+     * - Pode retornar um usuário OU pode estar vazio
+     * - Evita NullPointerException
+     *
+     * @param email - Email para buscar
+     * @return Optional contendo o usuário se encontrado, vazio caso contrário
+     */
+    Optional<UsuarioEntity> findByEmail(String email);
+}
@@ -0,0 +1,33 @@
+package com.example.exemplo_Jwt.repository;
+
+import com.example.exemplo_Jwt.entity.UsuarioEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * ========================================================================
+ * IMPLEMENTAÇÃO DOS MÉTODOS "À MÃO" DO UsuarioRepository
+ * ========================================================================
+ *
+ * bySimpleNaturalId() é a API do Hibernate para buscar pelo @NaturalId:
+ * 1. Procura email -> ID no cache de natural id
+ * 2. Procura a entity pelo ID no cache de segundo nível
+ * 3. Só vai ao banco se não achar
+ */
+class UsuarioRepositoryCustomImpl implements UsuarioRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<UsuarioEntity> findByEmail(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(UsuarioEntity.class)
+                .loadOptional(email);
+    }
+}
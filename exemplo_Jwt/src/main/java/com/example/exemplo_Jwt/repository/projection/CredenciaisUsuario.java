@@ -0,0 +1,30 @@
+package com.example.exemplo_Jwt.repository.projection;
+
+/**
+ * ========================================================================
+ * PROJEÇÃO - CREDENCIAIS DO USUÁRIO
+ * ========================================================================
+ *
+ * Apenas os campos necessários para AUTENTICAR um usuário
+ * (e montar a resposta do login, sem uma segunda consulta).
+ *
+ * POR QUE UMA PROJEÇÃO?
+ * Carregar a UsuarioEntity inteira traz 14 colunas, converte datas e cria
+ * uma cópia (snapshot) para o Hibernate detectar alterações no commit.
+ * Para autenticar só precisamos de email, senha e ativo (+ id, nome e
+ * versão dos tokens), e nada disso vai ser alterado.
+ *
+ * O record é criado DIRETO pela query (constructor expression):
+ * SELECT new ...CredenciaisUsuario(u.id, u.email, ...) FROM UsuarioEntity u
+ *
+ * O resultado não é uma entidade: o Hibernate não o gerencia.
+ */
+public record CredenciaisUsuario(
+        Long id,
+        String nomeCompleto,
+        String email,
+        String senha,
+        Boolean ativo,
+        Long versaoToken
+) {
+}
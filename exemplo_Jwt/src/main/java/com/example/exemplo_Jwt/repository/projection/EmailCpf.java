@@ -0,0 +1,16 @@
+package com.example.exemplo_Jwt.repository.projection;
+
+/**
+ * ========================================================================
+ * PROJEÇÃO - EMAIL E CPF
+ * ========================================================================
+ *
+ * Só os dois campos únicos do usuário.
+ * Usada para montar o filtro de cadastro (veja CadastroBloomFilter)
+ * sem carregar as entities inteiras.
+ */
+public record EmailCpf(
+        String email,
+        String cpf
+) {
+}
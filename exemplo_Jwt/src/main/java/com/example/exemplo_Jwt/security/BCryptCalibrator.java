@@ -0,0 +1,126 @@
+package com.example.exemplo_Jwt.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * ========================================================================
+ * CALIBRAÇÃO DO CUSTO DO BCRYPT
+ * ========================================================================
+ *
+ * O "custo" (strength) do BCrypt define quantas rodadas o hash faz:
+ * cada +1 no custo DOBRA o tempo. O padrão do Spring é 10.
+ *
+ * O tempo de cada custo depende do hardware. Em vez de fixar o custo no
+ * código, esta classe MEDE na inicialização e escolhe o MAIOR custo cujo
+ * hash fica dentro de um orçamento de latência (ex: 80 ms).
+ *
+ * COMO FUNCIONA:
+ * 1. Começa no custo mínimo (nunca abaixo dele, por segurança)
+ * 2. Mede o tempo do hash (mediana de algumas execuções)
+ * 3. Se o próximo custo (o dobro do tempo) ainda couber no orçamento, sobe
+ * 4. Para quando o próximo custo estouraria o orçamento
+ *
+ * SENHAS ANTIGAS:
+ * Hashes com custo menor continuam válidos (o custo fica gravado no hash:
+ * "$2a$10$..."). No próximo login bem-sucedido a senha é recriptografada
+ * com o custo novo (veja CustomUserDetailsService.updatePassword).
+ *
+ * Exemplo no application.properties:
+ * seguranca.bcrypt.custo=0                 (0 = calibrar; outro valor = fixo)
+ * seguranca.bcrypt.latencia-alvo-ms=80
+ * seguranca.bcrypt.custo-minimo=10
+ * seguranca.bcrypt.custo-maximo=16
+ */
+@Slf4j
+@Component
+public class BCryptCalibrator {
+
+    /**
+     * Quantas medições por custo (usa a mediana, que ignora picos)
+     */
+    private static final int MEDICOES = 3;
+
+    /**
+     * Custo escolhido
+     */
+    @Getter
+    private final int custo;
+
+    public BCryptCalibrator(
+            @Value("${seguranca.bcrypt.custo:0}") int custoFixo,
+            @Value("${seguranca.bcrypt.latencia-alvo-ms:80}") long latenciaAlvoMs,
+            @Value("${seguranca.bcrypt.custo-minimo:10}") int custoMinimo,
+            @Value("${seguranca.bcrypt.custo-maximo:16}") int custoMaximo,
+            MeterRegistry registry
+    ) {
+        if (custoFixo > 0) {
+            this.custo = custoFixo;
+            log.info("Custo do BCrypt fixo: {}", custo);
+        } else {
+            this.custo = calibrar(latenciaAlvoMs, custoMinimo, custoMaximo, BCryptCalibrator::medir);
+        }
+
+        Gauge.builder("senha.hash.custo", this, BCryptCalibrator::getCusto).register(registry);
+    }
+
+    /**
+     * ====================================================================
+     * CALIBRAR
+     * ====================================================================
+     *
+     * A previsão "o dobro do custo anterior" pode falhar (variação entre
+     * medições): se o último custo medido passar do alvo, volta para o
+     * anterior, que já foi medido dentro do alvo.
+     *
+     * @param medir - Tempo de um hash (ms) para um custo
+     * @return maior custo com hash dentro da latência alvo
+     *         (ou o custo mínimo, se nem ele couber)
+     */
+    static int calibrar(long latenciaAlvoMs, int custoMinimo, int custoMaximo, IntToDoubleFunction medir) {
+        int escolhido = custoMinimo;
+        double tempoMs = medir.applyAsDouble(escolhido);
+        double tempoAnteriorMs = tempoMs;
+
+        // Cada custo a mais dobra o tempo: só sobe se o dobro ainda couber
+        while (escolhido < custoMaximo && tempoMs * 2 <= latenciaAlvoMs) {
+            escolhido++;
+            tempoAnteriorMs = tempoMs;
+            tempoMs = medir.applyAsDouble(escolhido);
+        }
+
+        if (tempoMs > latenciaAlvoMs && escolhido > custoMinimo) {
+            escolhido--;
+            tempoMs = tempoAnteriorMs;
+        } else if (tempoMs > latenciaAlvoMs) {
+            log.warn("BCrypt com custo mínimo {} leva {} ms, acima do alvo de {} ms",
+                    escolhido, Math.round(tempoMs), latenciaAlvoMs);
+        }
+        log.info("Custo do BCrypt calibrado: {} (~{} ms por hash, alvo {} ms)",
+                escolhido, Math.round(tempoMs), latenciaAlvoMs);
+        return escolhido;
+    }
+
+    /**
+     * Mede o tempo de um hash com o custo informado (mediana, em ms)
+     */
+    private static double medir(int custo) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(custo);
+        long[] tempos = new long[MEDICOES];
+        for (int i = 0; i < MEDICOES; i++) {
+            long inicio = System.nanoTime();
+            encoder.encode("calibracao-bcrypt");
+            tempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tempos);
+        return tempos[MEDICOES / 2] / 1_000_000.0;
+    }
+}
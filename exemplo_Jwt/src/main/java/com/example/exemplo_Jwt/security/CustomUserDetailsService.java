@@ -1,16 +1,14 @@
 package com.example.exemplo_Jwt.security;
 
-import com.example.exemplo_Jwt.entity.UsuarioEntity;
 import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import com.example.exemplo_Jwt.repository.projection.CredenciaisUsuario;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-
 /**
  * ========================================================================
  * CUSTOM USER DETAILS SERVICE
@@ -31,7 +29,7 @@ import java.util.ArrayList;
  */
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     /**
      * INJEÇÃO DO REPOSITORY
@@ -40,6 +38,17 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     private final UsuarioRepository repository;
 
+    /**
+     * Versões atuais dos tokens de cada usuário (modo de claims embutidas)
+     */
+    private final VersaoTokenRegistry versaoTokenRegistry;
+
+    /**
+     * Cache em memória dos usuários já carregados (evita um SELECT
+     * a cada requisição autenticada)
+     */
+    private final UserDetailsCache cache;
+
     /**
      * ====================================================================
      * CARREGAR USUÁRIO POR EMAIL (USERNAME)
@@ -54,18 +63,46 @@ public class CustomUserDetailsService implements UserDetailsService {
      * - Carregar senha e permissões
      * - Validar credenciais
      *
+     * O usuário vem do UserDetailsCache quando possível; o banco só é
+     * consultado quando ele não está no cache (ou a entrada expirou).
+     *
      * @param username - Email do usuário (no nosso caso, username = email)
      * @return UserDetails - Objeto com dados do usuário para o Spring Security
      * @throws UsernameNotFoundException - Se usuário não for encontrado
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UsuarioPrincipal usuario = (UsuarioPrincipal) cache.buscarOuCarregar(username, this::carregarDoBanco);
+
+        /**
+         * REGISTRAR VERSÃO DOS TOKENS
+         * ==========================================
+         *
+         * Toda carga atualiza a versão conhecida pelo
+         * JwtAuthenticationFilter (modo de claims embutidas).
+         * O cache é invalidado sempre que a versão muda no banco.
+         */
+        versaoTokenRegistry.registrar(usuario.getId(), usuario.getVersaoToken());
+
+        return usuario;
+    }
+
+    /**
+     * ====================================================================
+     * CARREGAR USUÁRIO DO BANCO
+     * ====================================================================
+     *
+     * Chamado pelo UserDetailsCache quando o usuário não está no cache.
+     */
+    private UserDetails carregarDoBanco(String username) {
 
         /**
          * BUSCAR USUÁRIO NO BANCO
          * ==========================================
          *
-         * repository.findByEmail(username) busca usuário pelo email
+         * repository.buscarCredenciaisPorEmail(username) busca pelo email
+         * SÓ as colunas de autenticação (projeção CredenciaisUsuario),
+         * numa transação somente leitura. Não carrega a entidade inteira.
          *
          * .orElseThrow() lança exceção se não encontrar
          *
@@ -73,7 +110,7 @@ public class CustomUserDetailsService implements UserDetailsService {
          * Esta exceção é capturada pelo Spring Security
          * Resultado: Login falha com erro "Credenciais inválidas"
          */
-        UsuarioEntity usuario = repository.findByEmail(username)
+        CredenciaisUsuario usuario = repository.buscarCredenciaisPorEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException(
                         "Usuário não encontrado com email: " + username
                 ));
@@ -85,7 +122,7 @@ public class CustomUserDetailsService implements UserDetailsService {
          * Se o usuário foi desativado (ativo = false),
          * não deve poder fazer login
          */
-        if (!usuario.getAtivo()) {
+        if (!usuario.ativo()) {
             throw new UsernameNotFoundException(
                     "Usuário está inativo: " + username
             );
@@ -96,12 +133,13 @@ public class CustomUserDetailsService implements UserDetailsService {
          * ==========================================
          *
          * UserDetails é uma INTERFACE do Spring Security.
-         * User.builder() cria uma implementação desta interface.
+         * UsuarioPrincipal é a nossa implementação dela.
          *
          * ESTRUTURA:
          * - username: Identificador único (usamos email)
          * - password: Senha criptografada
          * - authorities: Permissões do usuário (roles)
+         * - id e versaoToken: usados para gerar o token JWT
          *
          * EXPLICANDO AUTHORITIES (Permissões):
          * ==========================================
@@ -112,28 +150,46 @@ public class CustomUserDetailsService implements UserDetailsService {
          * - "ROLE_ADMIN" - Administrador
          * - "ROLE_MANAGER" - Gerente
          *
-         * new ArrayList<>() cria uma lista vazia de permissões
+         * UsuarioPrincipal.de() cria uma lista vazia de permissões
          * (Por enquanto, todos os usuários têm as mesmas permissões)
          *
          * PARA ADICIONAR ROLES:
          * Você precisaria:
          * 1. Adicionar campo "role" na UsuarioEntity
          * 2. Criar enum com roles (USER, ADMIN, etc)
-         * 3. Adicionar authorities aqui:
+         * 3. Adicionar authorities em UsuarioPrincipal.de():
          *
          * List<SimpleGrantedAuthority> authorities = List.of(
          *     new SimpleGrantedAuthority("ROLE_" + usuario.getRole().name())
          * );
          */
-        return User.builder()
-                .username(usuario.getEmail())           // Email como username
-                .password(usuario.getSenha())           // Senha criptografada
-                .authorities(new ArrayList<>())         // Lista de permissões (vazia por ora)
-                .accountExpired(false)                  // Conta não expirada
-                .accountLocked(false)                   // Conta não bloqueada
-                .credentialsExpired(false)              // Credenciais não expiradas
-                .disabled(!usuario.getAtivo())          // Desabilitado se inativo
-                .build();
+        return UsuarioPrincipal.de(usuario);
+    }
+
+    /**
+     * ====================================================================
+     * ATUALIZAR HASH DA SENHA (upgrade de custo do BCrypt)
+     * ====================================================================
+     *
+     * UserDetailsPasswordService é uma INTERFACE do Spring Security.
+     *
+     * O DaoAuthenticationProvider chama este método depois de um login
+     * bem-sucedido quando o hash guardado usa um custo MENOR que o atual
+     * (passwordEncoder.upgradeEncoding() == true). A senha em texto puro
+     * só existe nesse momento, então é a única chance de recriptografar.
+     *
+     * @param user - Usuário autenticado
+     * @param novaSenha - Novo hash (já criptografado com o custo atual)
+     * @return UserDetails - Usuário com o novo hash
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String novaSenha) {
+        repository.atualizarSenha(user.getUsername(), novaSenha);
+
+        // O cache ainda guarda o hash antigo
+        cache.invalidar(user.getUsername());
+
+        return ((UsuarioPrincipal) user).comSenha(novaSenha);
     }
 }
 
@@ -0,0 +1,61 @@
+package com.example.exemplo_Jwt.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Future;
+
+/**
+ * ========================================================================
+ * PASSWORD ENCODER ISOLADO
+ * ========================================================================
+ *
+ * "Embrulha" um PasswordEncoder (o BCrypt) e faz o trabalho pesado
+ * (encode e matches) rodar no PasswordHashExecutor, fora das threads
+ * do Tomcat.
+ *
+ * Quem usa (UsuarioService, DaoAuthenticationProvider) continua chamando
+ * encode() e matches() normalmente: a troca de thread é transparente.
+ */
+@RequiredArgsConstructor
+public class IsolatedPasswordEncoder implements PasswordEncoder {
+
+    /**
+     * Encoder real (BCryptPasswordEncoder)
+     */
+    private final PasswordEncoder delegate;
+
+    /**
+     * Executor dedicado onde o BCrypt roda
+     */
+    private final PasswordHashExecutor executor;
+
+    @Override
+    public String encode(CharSequence senha) {
+        return executor.executar(() -> delegate.encode(senha));
+    }
+
+    @Override
+    public boolean matches(CharSequence senha, String senhaCriptografada) {
+        return executor.executar(() -> delegate.matches(senha, senhaCriptografada));
+    }
+
+    /**
+     * Envia o hash para o executor sem esperar o resultado
+     * (usado no cadastro em lote, que criptografa várias senhas em paralelo)
+     *
+     * @param esperaVagaMs - Quanto tempo esperar se a fila do executor estiver cheia
+     * @return Future com a senha criptografada
+     */
+    public Future<String> encodeEmParalelo(CharSequence senha, long esperaVagaMs) {
+        return executor.enviarQuandoHouverVaga(() -> delegate.encode(senha), esperaVagaMs);
+    }
+
+    /**
+     * Só lê o custo gravado no hash: é barato, roda na própria thread
+     */
+    @Override
+    public boolean upgradeEncoding(String senhaCriptografada) {
+        return delegate.upgradeEncoding(senhaCriptografada);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.exemplo_Jwt.security;
 
 import com.example.exemplo_Jwt.service.JwtService;
+import com.example.exemplo_Jwt.service.TokenInvalidoException;
+import com.example.exemplo_Jwt.service.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -44,6 +46,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      */
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final VersaoTokenRegistry versaoTokenRegistry;
+    private final RevogacaoTokenRegistry revogacaoTokenRegistry;
 
     /**
      * ====================================================================
@@ -78,6 +82,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
          * VARIÁVEIS PARA O TOKEN E EMAIL
          */
         final String jwt;
+        final VerifiedToken tokenVerificado;
         final String userEmail;
 
         /**
@@ -119,12 +124,42 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         /**
-         * PASSO 4: EXTRAIR EMAIL DO TOKEN
+         * PASSO 4: VERIFICAR O TOKEN E EXTRAIR O EMAIL
          * ==========================================
          *
-         * jwtService.extrairEmail() decodifica o token e pega o email
+         * jwtService.verificarToken() decodifica e valida o token UMA vez.
+         * O resultado (email, expiração, claims) é reaproveitado no
+         * restante do filtro, sem novos parses.
          */
-        userEmail = jwtService.extrairEmail(jwt);
+        try {
+            tokenVerificado = jwtService.verificarToken(jwt);
+        } catch (TokenInvalidoException e) {
+            /**
+             * TOKEN REJEITADO (malformado, assinatura inválida, expirado)
+             *
+             * A rejeição já foi contada pelo JwtService. Aqui só marcamos a
+             * requisição e seguimos SEM autenticar:
+             * - Rota pública (login, refresh...): funciona normalmente
+             * - Rota protegida: o TokenRejeitadoEntryPoint responde 401
+             */
+            request.setAttribute(TokenRejeitadoEntryPoint.ATRIBUTO_MOTIVO, e.getMotivo());
+            filterChain.doFilter(request, response);
+            return;
+        }
+        userEmail = tokenVerificado.subject();
+
+        /**
+         * TOKEN REVOGADO (logout)
+         *
+         * Assinatura e exp válidos, mas o jti foi revogado: segue sem
+         * autenticar e, numa rota protegida, recebe o mesmo 401 de um
+         * token inválido (o cliente precisa fazer login de novo).
+         */
+        if (revogacaoTokenRegistry.revogado(tokenVerificado.jti(), tokenVerificado.expiracaoSegundos())) {
+            request.setAttribute(TokenRejeitadoEntryPoint.ATRIBUTO_MOTIVO, TokenInvalidoException.Motivo.REVOGADO);
+            filterChain.doFilter(request, response);
+            return;
+        }
 
         /**
          * PASSO 5: VALIDAR E AUTENTICAR
@@ -143,22 +178,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             /**
              * CARREGAR DADOS DO USUÁRIO
              *
-             * userDetailsService.loadUserByUsername() busca o usuário pelo email
+             * carregarUsuario() monta o usuário pelas claims do token
+             * (modo de claims embutidas) ou busca no banco pelo email.
              * Retorna um UserDetails com dados do usuário
              */
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            UserDetails userDetails = carregarUsuario(tokenVerificado);
 
             /**
              * VALIDAR TOKEN
              *
-             * jwtService.validarToken() verifica:
+             * O token já verificado no PASSO 4 é checado:
              * - Se o token pertence a este usuário
              * - Se o token não está expirado
+             * - Se o usuário está ativo
              *
              * Se válido = true, continua
              * Se inválido = false, não autentica
              */
-            if (jwtService.validarToken(jwt, userDetails.getUsername())) {
+            if (tokenVerificado.pertenceA(userDetails.getUsername())
+                    && !tokenVerificado.expirado()
+                    && userDetails.isEnabled()) {
 
                 /**
                  * CRIAR TOKEN DE AUTENTICAÇÃO
@@ -208,6 +247,43 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
          */
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * ====================================================================
+     * CARREGAR USUÁRIO DO TOKEN
+     * ====================================================================
+     *
+     * MODO DE CLAIMS EMBUTIDAS (jwt.claims-embutidas.habilitado=true):
+     * O token já traz id, ativo, permissões e versão do usuário.
+     * Se a versão do token for a versão atual do usuário, o usuário é
+     * montado direto das claims: ZERO consultas ao banco.
+     *
+     * O banco só é consultado quando:
+     * - O modo está desligado
+     * - O token não tem as claims (emitido antes de ligar o modo)
+     * - A versão do token está desatualizada (ex: usuário desativado)
+     * - A versão atual ainda não é conhecida (ex: aplicação reiniciada)
+     *
+     * @param token - Token já verificado
+     * @return UserDetails - Usuário do token
+     */
+    private UserDetails carregarUsuario(VerifiedToken token) {
+        if (jwtService.claimsEmbutidasHabilitadas()) {
+            UsuarioPrincipal principal = jwtService.principalDasClaims(token);
+            if (principal != null) {
+                Long versaoAtual = versaoTokenRegistry.versaoAtual(principal.getId());
+                if (versaoAtual != null && versaoAtual == principal.getVersaoToken()) {
+                    return principal;
+                }
+            }
+        }
+
+        /**
+         * userDetailsService.loadUserByUsername() busca o usuário pelo email
+         * (e registra a versão atual dos tokens dele)
+         */
+        return userDetailsService.loadUserByUsername(token.subject());
+    }
 }
 
 /**
@@ -226,6 +302,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
  *    b) Decodifica o token
  *    c) Extrai email: "joao@email.com"
  *    d) Busca usuário no banco pelo email
+ *       (ou monta pelas claims do token, no modo de claims embutidas)
  *    e) Valida se token está correto e não expirou
  *    f) Define usuário como autenticado
  *
@@ -244,10 +321,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
  * E SE O TOKEN FOR INVÁLIDO?
  *
  * 1. Filtro tenta validar o token
- * 2. jwtService.validarToken() retorna false
- * 3. Usuário NÃO é definido como autenticado
- * 4. Spring Security bloqueia a requisição
- * 5. Retorna: 401 Unauthorized
+ * 2. Token malformado, com assinatura inválida ou expirado:
+ *    o JwtService lança TokenInvalidoException, o filtro segue sem
+ *    autenticar e, se a rota for protegida, o TokenRejeitadoEntryPoint
+ *    responde 401 Unauthorized (rotas públicas funcionam normalmente)
+ * 3. Token válido que não pertence ao usuário (ou usuário inativo):
+ *    o usuário NÃO é definido como autenticado e o Spring Security
+ *    bloqueia a requisição
  *
  * ========================================================================
  *
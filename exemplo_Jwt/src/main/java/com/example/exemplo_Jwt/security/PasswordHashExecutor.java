@@ -0,0 +1,206 @@
+package com.example.exemplo_Jwt.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ========================================================================
+ * EXECUTOR DEDICADO PARA BCRYPT
+ * ========================================================================
+ *
+ * O BCrypt é LENTO DE PROPÓSITO (dezenas de milissegundos de CPU por hash).
+ * Se ele roda na thread do Tomcat, uma onda de logins ocupa todas as
+ * threads com CPU e requisições baratas (ex: GET /usuarios/{id}) ficam
+ * esperando na fila.
+ *
+ * SOLUÇÃO:
+ * Todo hash e toda comparação de senha rodam NESTE executor:
+ * - Threads = número de núcleos da CPU (mais que isso não acelera o BCrypt)
+ * - Fila com capacidade limitada
+ * - Fila cheia = falha RÁPIDA com 503 (Service Unavailable), em vez de
+ *   acumular trabalho que vai estourar o tempo de resposta de qualquer jeito
+ * - Exceção: trabalho em lote (enviarQuandoHouverVaga) espera uma vaga
+ *   por um tempo limitado, em vez de perder o lote por um pico de logins
+ *
+ * MÉTRICAS (Micrometer, em /actuator/metrics):
+ * - senha.hash.fila: tarefas esperando na fila
+ * - senha.hash.espera: tempo que cada tarefa esperou na fila
+ * - senha.hash.duracao: tempo de execução do BCrypt
+ * - senha.hash.rejeitados: tarefas recusadas com a fila cheia
+ *
+ * Exemplo no application.properties:
+ * seguranca.bcrypt.threads=0          (0 = número de núcleos)
+ * seguranca.bcrypt.capacidade-fila=64
+ */
+@Slf4j
+@Component
+public class PasswordHashExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer tempoEspera;
+    private final Timer tempoExecucao;
+    private final Counter rejeitados;
+
+    public PasswordHashExecutor(
+            @Value("${seguranca.bcrypt.threads:0}") int threads,
+            @Value("${seguranca.bcrypt.capacidade-fila:64}") int capacidadeFila,
+            MeterRegistry registry
+    ) {
+        int totalThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+
+        /**
+         * ThreadPoolExecutor com:
+         * - número fixo de threads (core = max)
+         * - ArrayBlockingQueue: fila com tamanho máximo
+         * - AbortPolicy: fila cheia lança RejectedExecutionException
+         */
+        this.executor = new ThreadPoolExecutor(
+                totalThreads,
+                totalThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "bcrypt-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.tempoEspera = Timer.builder("senha.hash.espera").register(registry);
+        this.tempoExecucao = Timer.builder("senha.hash.duracao").register(registry);
+        this.rejeitados = Counter.builder("senha.hash.rejeitados").register(registry);
+        Gauge.builder("senha.hash.fila", executor, e -> e.getQueue().size()).register(registry);
+
+        log.info("Executor BCrypt: {} threads, fila de {}", totalThreads, capacidadeFila);
+    }
+
+    /**
+     * ====================================================================
+     * EXECUTAR TAREFA DE SENHA
+     * ====================================================================
+     *
+     * Envia a tarefa para o executor e espera o resultado.
+     *
+     * @param tarefa - Hash ou comparação de senha
+     * @return resultado da tarefa
+     * @throws ResponseStatusException 503 - Se a fila estiver cheia
+     */
+    public <T> T executar(Callable<T> tarefa) {
+        return aguardar(enviar(tarefa));
+    }
+
+    /**
+     * Espera o resultado de uma tarefa enviada com enviar()
+     *
+     * @param futuro - Future devolvido por enviar()
+     * @return resultado da tarefa
+     */
+    public <T> T aguardar(Future<T> futuro) {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o BCrypt", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Envia a tarefa sem esperar o resultado
+     * (usado quando várias senhas são processadas em paralelo)
+     *
+     * @throws ResponseStatusException 503 - Se a fila estiver cheia
+     */
+    public <T> Future<T> enviar(Callable<T> tarefa) {
+        try {
+            return submeter(tarefa);
+        } catch (RejectedExecutionException e) {
+            throw recusar();
+        }
+    }
+
+    /**
+     * ====================================================================
+     * ENVIAR ESPERANDO VAGA (trabalho em lote)
+     * ====================================================================
+     *
+     * Com a fila cheia, tenta de novo com pausas crescentes (1, 2, 4...
+     * até 50 ms) em vez de falhar na hora: um pico de logins atrasa o
+     * lote, mas não o derruba. As requisições interativas continuam
+     * usando enviar(), que falha rápido.
+     *
+     * @param esperaMaximaMs - Quanto tempo esperar por uma vaga na fila
+     * @throws ResponseStatusException 503 - Se a fila continuar cheia até o prazo
+     */
+    public <T> Future<T> enviarQuandoHouverVaga(Callable<T> tarefa, long esperaMaximaMs) {
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        long pausaMs = 1;
+        while (true) {
+            try {
+                return submeter(tarefa);
+            } catch (RejectedExecutionException e) {
+                if (System.nanoTime() - prazo >= 0) {
+                    throw recusar();
+                }
+            }
+            try {
+                Thread.sleep(pausaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrompido esperando vaga no BCrypt", e);
+            }
+            pausaMs = Math.min(pausaMs * 2, 50);
+        }
+    }
+
+    private <T> Future<T> submeter(Callable<T> tarefa) {
+        long enviadoEm = System.nanoTime();
+        return executor.submit(() -> {
+            tempoEspera.record(System.nanoTime() - enviadoEm, TimeUnit.NANOSECONDS);
+            return tempoExecucao.recordCallable(tarefa);
+        });
+    }
+
+    private ResponseStatusException recusar() {
+        rejeitados.increment();
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Servidor ocupado, tente novamente em instantes");
+    }
+
+    /**
+     * Número de threads do executor
+     */
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdown();
+    }
+}
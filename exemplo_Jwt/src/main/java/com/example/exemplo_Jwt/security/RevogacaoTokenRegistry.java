@@ -0,0 +1,234 @@
+package com.example.exemplo_Jwt.security;
+
+import com.example.exemplo_Jwt.service.VerifiedToken;
+import com.example.exemplo_Jwt.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * ========================================================================
+ * REGISTRO DE TOKENS REVOGADOS
+ * ========================================================================
+ *
+ * Um JWT vale até o "exp", mesmo depois do logout. Para revogar antes,
+ * cada token leva um identificador único (claim "jti") e os jti
+ * revogados ficam guardados aqui até o token expirar.
+ *
+ * ESTRUTURA (particionada pelo tempo de expiração):
+ * Os tokens revogados são separados em "baldes" pelo exp, cada balde
+ * cobrindo uma janela de jwt.revogacao.largura-balde-ms (ex: 1 minuto).
+ * Cada balde tem:
+ * - Um Bloom filter: responde "com certeza NÃO revogado" sem alocar nada
+ *   (dimensionado para capacidade-balde, até memoria-maxima-balde-kb)
+ * - Um Set exato: confirma os "talvez" do filtro (sem falso positivo)
+ *
+ * Os baldes ficam num vetor circular com uma posição por janela até o
+ * maior exp possível (jwt.expiration). Achar o balde de um token é só
+ * uma conta: (exp / largura) % tamanho do vetor.
+ *
+ * NA REQUISIÇÃO (JwtAuthenticationFilter):
+ * Quase todo token não foi revogado: o balde do exp dele não existe ou o
+ * Bloom filter diz "não". Nenhuma alocação, nenhum lock.
+ *
+ * MEMÓRIA LIMITADA:
+ * Quando a janela de um balde passa, todos os tokens dele já expiraram:
+ * o balde inteiro é descartado (na limpeza periódica ou quando a
+ * posição do vetor é reaproveitada).
+ *
+ * ATENÇÃO:
+ * - A revogação vale só para esta instância (fica em memória)
+ * - Tokens sem "jti" (emitidos antes desta versão) não podem ser revogados
+ *
+ * MÉTRICAS (Micrometer, em /actuator/metrics):
+ * - jwt.revogacao.rejeitados - Requisições com token revogado
+ * - jwt.revogacao.tokens - Tokens revogados ainda não expirados
+ */
+@Component
+public class RevogacaoTokenRegistry {
+
+    private final long larguraBaldeSeg;
+    private final int capacidadeBalde;
+    private final double taxaFalsoPositivo;
+    private final long memoriaMaximaBaldeBytes;
+
+    /**
+     * Vetor circular de baldes (posição = índice da janela % tamanho)
+     */
+    private final AtomicReferenceArray<Balde> baldes;
+
+    /**
+     * Revogações com exp além do vetor (só acontece se jwt.expiration
+     * diminuiu com tokens antigos ainda válidos): jti -> exp em segundos
+     */
+    private final Map<String, Long> excedentes = new ConcurrentHashMap<>();
+
+    private final Counter rejeitados;
+
+    public RevogacaoTokenRegistry(
+            @Value("${jwt.expiration}") long tempoExpiracaoMs,
+            @Value("${jwt.revogacao.largura-balde-ms:60000}") long larguraBaldeMs,
+            @Value("${jwt.revogacao.capacidade-balde:1024}") int capacidadeBalde,
+            @Value("${jwt.revogacao.taxa-falso-positivo:0.01}") double taxaFalsoPositivo,
+            @Value("${jwt.revogacao.memoria-maxima-balde-kb:64}") long memoriaMaximaBaldeKb,
+            MeterRegistry registry
+    ) {
+        this.larguraBaldeSeg = Math.max(1, larguraBaldeMs / 1000);
+        this.capacidadeBalde = capacidadeBalde;
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        this.memoriaMaximaBaldeBytes = memoriaMaximaBaldeKb * 1024;
+
+        // Uma posição por janela até o maior exp possível, mais folga
+        int tamanho = (int) (tempoExpiracaoMs / 1000 / larguraBaldeSeg) + 2;
+        this.baldes = new AtomicReferenceArray<>(tamanho);
+
+        this.rejeitados = Counter.builder("jwt.revogacao.rejeitados")
+                .register(registry);
+        Gauge.builder("jwt.revogacao.tokens", this, RevogacaoTokenRegistry::quantidade)
+                .register(registry);
+    }
+
+    /**
+     * ====================================================================
+     * REVOGAR TOKEN
+     * ====================================================================
+     *
+     * @param jti - Claim "jti" do token
+     * @param exp - Claim "exp" do token, em segundos (VerifiedToken.expiracaoSegundos)
+     */
+    public void revogar(String jti, long exp) {
+        if (jti == null || exp == VerifiedToken.AUSENTE) {
+            return;
+        }
+        long agora = System.currentTimeMillis() / 1000;
+        if (exp <= agora) {
+            return; // Já expirou: não precisa guardar
+        }
+
+        long indice = exp / larguraBaldeSeg;
+        if (indice - agora / larguraBaldeSeg >= baldes.length()) {
+            excedentes.put(jti, exp);
+            return;
+        }
+        baldePara(indice).adicionar(jti);
+    }
+
+    /**
+     * ====================================================================
+     * VERIFICAR SE O TOKEN FOI REVOGADO
+     * ====================================================================
+     *
+     * Caminho de toda requisição autenticada: só contas, leituras de
+     * memória e o Bloom filter. O Set exato só é consultado nos "talvez".
+     *
+     * @param jti - Claim "jti" do token (null = token sem jti)
+     * @param exp - Claim "exp" do token, em segundos
+     * @return true se o token foi revogado
+     */
+    public boolean revogado(String jti, long exp) {
+        if (jti == null || exp == VerifiedToken.AUSENTE) {
+            return false;
+        }
+        long indice = exp / larguraBaldeSeg;
+        Balde balde = baldes.get(posicao(indice));
+
+        boolean revogado = (balde != null && balde.indice == indice && balde.contem(jti))
+                || (!excedentes.isEmpty() && excedentes.containsKey(jti));
+        if (revogado) {
+            rejeitados.increment();
+        }
+        return revogado;
+    }
+
+    /**
+     * ====================================================================
+     * DESCARTAR BALDES EXPIRADOS
+     * ====================================================================
+     *
+     * Um balde cuja janela já passou só tem tokens expirados.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revogacao.largura-balde-ms:60000}")
+    public void descartarExpirados() {
+        long agora = System.currentTimeMillis() / 1000;
+        long indiceAtual = agora / larguraBaldeSeg;
+        for (int i = 0; i < baldes.length(); i++) {
+            Balde balde = baldes.get(i);
+            if (balde != null && balde.indice < indiceAtual) {
+                baldes.compareAndSet(i, balde, null);
+            }
+        }
+        excedentes.values().removeIf(exp -> exp <= agora);
+    }
+
+    /**
+     * Tokens revogados ainda guardados
+     */
+    public long quantidade() {
+        long total = excedentes.size();
+        for (int i = 0; i < baldes.length(); i++) {
+            Balde balde = baldes.get(i);
+            if (balde != null) {
+                total += balde.exatos.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Balde da janela informada; cria (ou substitui um balde vencido
+     * que ocupava a mesma posição) se for preciso
+     */
+    private Balde baldePara(long indice) {
+        int posicao = posicao(indice);
+        while (true) {
+            Balde atual = baldes.get(posicao);
+            if (atual != null && atual.indice == indice) {
+                return atual;
+            }
+            Balde novo = new Balde(indice,
+                    new BloomFilter(capacidadeBalde, taxaFalsoPositivo, memoriaMaximaBaldeBytes));
+            if (baldes.compareAndSet(posicao, atual, novo)) {
+                return novo;
+            }
+        }
+    }
+
+    private int posicao(long indice) {
+        return (int) Math.floorMod(indice, (long) baldes.length());
+    }
+
+    /**
+     * Balde de uma janela de expiração
+     *
+     * O jti entra primeiro no Set exato e depois no filtro: quem vê o
+     * filtro dizer "talvez" sempre encontra o jti no Set.
+     */
+    private static final class Balde {
+
+        private final long indice;
+        private final BloomFilter filtro;
+        private final Set<String> exatos = ConcurrentHashMap.newKeySet();
+
+        private Balde(long indice, BloomFilter filtro) {
+            this.indice = indice;
+            this.filtro = filtro;
+        }
+
+        private void adicionar(String jti) {
+            exatos.add(jti);
+            filtro.adicionar(jti);
+        }
+
+        private boolean contem(String jti) {
+            return filtro.talvezContenha(jti) && exatos.contains(jti);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.exemplo_Jwt.security;
 
+import com.example.exemplo_Jwt.controller.ChavesJwtEndpoint;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -11,9 +14,9 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -46,7 +49,11 @@ public class SecurityConfig {
      * DEPENDÊNCIAS INJETADAS
      */
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final TokenRejeitadoEntryPoint tokenRejeitadoEntryPoint;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final PasswordHashExecutor passwordHashExecutor;
+    private final BCryptCalibrator bcryptCalibrator;
 
     /**
      * ====================================================================
@@ -87,12 +94,41 @@ public class SecurityConfig {
                          * Estas rotas podem ser acessadas sem token:
                          * - POST /api/usuarios/cadastrar - Para criar conta
                          * - POST /api/usuarios/login - Para fazer login
+                         * - POST /api/usuarios/refresh - Para renovar o token
+                         * - POST /api/usuarios/logout/refresh - Logout só com o refresh token
                          */
                         .requestMatchers(
                                 "/usuarios/cadastrar",
-                                "/usuarios/login"
+                                "/usuarios/login",
+                                "/usuarios/refresh",
+                                "/usuarios/logout/refresh"
                         ).permitAll()
 
+                        /**
+                         * PÁGINA DE ERRO
+                         *
+                         * Quando um endpoint responde com erro (ex: 503, 409),
+                         * o Spring encaminha para /error para montar o corpo.
+                         * Sem liberar /error, o cliente receberia 403 no lugar
+                         * do status real.
+                         */
+                        .requestMatchers("/error").permitAll()
+
+                        /**
+                         * CHAVES PÚBLICAS (JWKS)
+                         *
+                         * Outros serviços baixam as chaves para validar os
+                         * tokens; só contém chaves públicas.
+                         */
+                        .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
+
+                        /**
+                         * ROTAÇÃO DE CHAVES (Actuator /actuator/chavesjwt)
+                         *
+                         * Só administradores, se o endpoint for exposto por HTTP.
+                         */
+                        .requestMatchers(EndpointRequest.to(ChavesJwtEndpoint.class)).hasRole("ADMIN")
+
                         /**
                          * TODAS AS OUTRAS ROTAS SÃO PROTEGIDAS
                          *
@@ -124,6 +160,16 @@ public class SecurityConfig {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
 
+                /**
+                 * RESPOSTA PARA ROTA PROTEGIDA SEM AUTENTICAÇÃO
+                 *
+                 * Token rejeitado pelo filtro: 401 com WWW-Authenticate.
+                 * Sem token: 403 (padrão). Veja TokenRejeitadoEntryPoint.
+                 */
+                .exceptionHandling(ex -> ex
+                        .authenticationEntryPoint(tokenRejeitadoEntryPoint)
+                )
+
                 /**
                  * CONFIGURAR PROVIDER DE AUTENTICAÇÃO
                  *
@@ -172,11 +218,22 @@ public class SecurityConfig {
      * senha = "minhasenha123"
      * hash = "$2a$10$N9qo8uLOickgx2ZMRZoMye..."
      *
+     * CUSTO:
+     * Medido na inicialização pelo BCryptCalibrator, de acordo com a
+     * latência alvo configurada (seguranca.bcrypt.latencia-alvo-ms).
+     *
+     * EXECUTOR DEDICADO:
+     * Por ser lento, o BCrypt roda no PasswordHashExecutor (IsolatedPasswordEncoder),
+     * e não nas threads do Tomcat que atendem as outras requisições.
+     *
      * @return PasswordEncoder - Encoder BCrypt
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public IsolatedPasswordEncoder passwordEncoder() {
+        return new IsolatedPasswordEncoder(
+                new BCryptPasswordEncoder(bcryptCalibrator.getCusto()),
+                passwordHashExecutor
+        );
     }
 
     /**
@@ -212,6 +269,12 @@ public class SecurityConfig {
          */
         authProvider.setPasswordEncoder(passwordEncoder());
 
+        /**
+         * Define como atualizar hashes antigos (custo menor do BCrypt)
+         * depois de um login bem-sucedido
+         */
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
+
         return authProvider;
     }
 
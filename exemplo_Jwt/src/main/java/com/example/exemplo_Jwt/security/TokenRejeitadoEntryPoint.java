@@ -0,0 +1,69 @@
+package com.example.exemplo_Jwt.security;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ========================================================================
+ * ENTRY POINT - RESPOSTA PARA REQUISIÇÕES NÃO AUTENTICADAS
+ * ========================================================================
+ *
+ * O Spring Security chama o entry point quando uma rota PROTEGIDA recebe
+ * uma requisição sem usuário autenticado.
+ *
+ * O JwtAuthenticationFilter não responde nada quando o token é rejeitado:
+ * ele só marca a requisição (ATRIBUTO_MOTIVO) e segue sem autenticar.
+ * Assim, rotas públicas (login, cadastrar, refresh, jwks) continuam
+ * funcionando mesmo que o cliente mande um token vencido junto.
+ *
+ * RESPOSTAS:
+ * - Token rejeitado: 401 com WWW-Authenticate: Bearer error="invalid_token"
+ *   (RFC 6750), avisando o cliente que ele precisa de um token novo
+ * - Sem token: 403, o mesmo comportamento padrão de antes
+ */
+@Component
+public class TokenRejeitadoEntryPoint implements AuthenticationEntryPoint {
+
+    /**
+     * Atributo da requisição com o motivo da rejeição
+     * (TokenInvalidoException.Motivo), definido pelo JwtAuthenticationFilter
+     */
+    public static final String ATRIBUTO_MOTIVO = TokenRejeitadoEntryPoint.class.getName() + ".motivo";
+
+    /**
+     * O corpo é sempre o mesmo, então já fica pronto em bytes
+     */
+    private static final byte[] CORPO_401 =
+            "{\"status\":401,\"error\":\"Unauthorized\",\"message\":\"Token inválido!\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    private final AuthenticationEntryPoint semToken = new Http403ForbiddenEntryPoint();
+
+    @Override
+    public void commence(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            AuthenticationException authException
+    ) throws IOException, ServletException {
+        if (request.getAttribute(ATRIBUTO_MOTIVO) == null) {
+            semToken.commence(request, response, authException);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(CORPO_401.length);
+        response.getOutputStream().write(CORPO_401);
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.exemplo_Jwt.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * ========================================================================
+ * CACHE DE USERDETAILS
+ * ========================================================================
+ *
+ * Guarda em memória os usuários carregados pelo CustomUserDetailsService,
+ * indexados pelo email. Sem o cache, cada requisição autenticada fazia um
+ * SELECT na tabela usuarios.
+ *
+ * REGRAS:
+ * - TTL: cada entrada vale por um tempo fixo (ex: 5 minutos)
+ * - Tamanho máximo: quando enche, entradas expiradas saem primeiro
+ * - Invalidação explícita: o UsuarioService chama invalidar() ao atualizar
+ *   ou deletar um usuário. Assim um usuário desativado perde o acesso na
+ *   hora, sem esperar o TTL.
+ *
+ * A invalidação acontece DEPOIS do commit da transação: invalidar antes
+ * permitiria que outra requisição recarregasse os dados antigos (ainda não
+ * commitados) e os colocasse de volta no cache.
+ *
+ * CARGA EM ANDAMENTO DURANTE A INVALIDAÇÃO:
+ * Uma carga que leu o banco ANTES do commit pode terminar DEPOIS da
+ * invalidação. Para ela não devolver os dados antigos ao cache, cada
+ * email tem um contador de geração (em faixas, ver GERACOES): invalidar
+ * incrementa o contador, e a carga só guarda o resultado se a geração
+ * ainda for a mesma de quando ela começou.
+ *
+ * MÉTRICAS (Micrometer, em /actuator/metrics):
+ * - cache.gets{cache=usuarios, result=hit|miss}
+ * - cache.evictions{cache=usuarios}
+ * - cache.size{cache=usuarios}
+ * - cache.hit.ratio{cache=usuarios}
+ * - cache.load{cache=usuarios} (tempo de carga no banco)
+ *
+ * Exemplo no application.properties:
+ * seguranca.cache-usuarios.habilitado=true
+ * seguranca.cache-usuarios.ttl-ms=300000
+ * seguranca.cache-usuarios.tamanho-maximo=10000
+ */
+@Component
+public class UserDetailsCache {
+
+    private static final String NOME_CACHE = "usuarios";
+
+    /**
+     * Quantidade de contadores de geração (potência de 2). Emails que caem
+     * na mesma faixa compartilham o contador: uma invalidação de um deles
+     * só faz a carga do outro não ser guardada (uma falha a mais no cache),
+     * e a memória fica fixa, sem um contador por email já invalidado.
+     */
+    private static final int GERACOES = 1024;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray geracoes = new AtomicLongArray(GERACOES);
+
+    private final boolean habilitado;
+    private final long ttlMs;
+    private final int tamanhoMaximo;
+
+    private final Counter acertos;
+    private final Counter falhas;
+    private final Counter remocoes;
+    private final Timer tempoCarga;
+
+    public UserDetailsCache(
+            @Value("${seguranca.cache-usuarios.habilitado:true}") boolean habilitado,
+            @Value("${seguranca.cache-usuarios.ttl-ms:300000}") long ttlMs,
+            @Value("${seguranca.cache-usuarios.tamanho-maximo:10000}") int tamanhoMaximo,
+            MeterRegistry registry
+    ) {
+        this.habilitado = habilitado;
+        this.ttlMs = ttlMs;
+        this.tamanhoMaximo = tamanhoMaximo;
+
+        this.acertos = Counter.builder("cache.gets")
+                .tag("cache", NOME_CACHE).tag("result", "hit")
+                .register(registry);
+        this.falhas = Counter.builder("cache.gets")
+                .tag("cache", NOME_CACHE).tag("result", "miss")
+                .register(registry);
+        this.remocoes = Counter.builder("cache.evictions")
+                .tag("cache", NOME_CACHE)
+                .register(registry);
+        this.tempoCarga = Timer.builder("cache.load")
+                .tag("cache", NOME_CACHE)
+                .register(registry);
+        Gauge.builder("cache.size", entradas, Map::size)
+                .tag("cache", NOME_CACHE)
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", this, UserDetailsCache::taxaAcerto)
+                .tag("cache", NOME_CACHE)
+                .register(registry);
+    }
+
+    /**
+     * ====================================================================
+     * BUSCAR OU CARREGAR
+     * ====================================================================
+     *
+     * 1. Procura o email no cache
+     * 2. Se não achar (ou se expirou), chama o carregador (banco)
+     * 3. Guarda o resultado para as próximas requisições
+     *
+     * Se o carregador lançar exceção (ex: usuário inativo), nada é
+     * guardado e a exceção segue para quem chamou.
+     *
+     * @param email - Email do usuário
+     * @param carregador - Função que busca o usuário no banco
+     * @return UserDetails do usuário
+     */
+    public UserDetails buscarOuCarregar(String email, Function<String, UserDetails> carregador) {
+        if (!habilitado) {
+            return carregador.apply(email);
+        }
+
+        long agora = System.currentTimeMillis();
+        Entrada entrada = entradas.get(email);
+        if (entrada != null && entrada.expiraEm() > agora) {
+            acertos.increment();
+            return entrada.usuario();
+        }
+        falhas.increment();
+
+        int faixa = faixa(email);
+        long geracao = geracoes.get(faixa);
+        UserDetails usuario = tempoCarga.record(() -> carregador.apply(email));
+
+        if (entradas.size() >= tamanhoMaximo) {
+            abrirEspaco(agora);
+        }
+
+        /**
+         * compute() trava a chave: se a invalidação incrementar a geração
+         * depois desta comparação, o remove() dela espera e apaga a entrada
+         */
+        entradas.compute(email, (chave, atual) ->
+                geracoes.get(faixa) == geracao ? new Entrada(usuario, agora + ttlMs) : atual);
+        return usuario;
+    }
+
+    /**
+     * ====================================================================
+     * INVALIDAR USUÁRIO
+     * ====================================================================
+     *
+     * Se houver transação ativa, remove do cache depois do commit.
+     * Sem transação, remove na hora.
+     *
+     * @param email - Email do usuário alterado ou removido
+     */
+    public void invalidar(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remover(email);
+                }
+            });
+        } else {
+            remover(email);
+        }
+    }
+
+    private void remover(String email) {
+        // Primeiro a geração: uma carga em andamento não guarda mais o resultado
+        geracoes.incrementAndGet(faixa(email));
+        if (entradas.remove(email) != null) {
+            remocoes.increment();
+        }
+    }
+
+    /**
+     * ABRIR ESPAÇO QUANDO O CACHE ENCHE
+     *
+     * Remove as entradas expiradas e, se ainda estiver cheio,
+     * descarta entradas até ficar com 90% da capacidade.
+     */
+    private void abrirEspaco(long agora) {
+        entradas.entrySet().removeIf(e -> {
+            boolean expirada = e.getValue().expiraEm() <= agora;
+            if (expirada) {
+                remocoes.increment();
+            }
+            return expirada;
+        });
+
+        int alvo = (int) (tamanhoMaximo * 0.9);
+        Iterator<String> iterator = entradas.keySet().iterator();
+        while (entradas.size() > alvo && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            remocoes.increment();
+        }
+    }
+
+    private static int faixa(String email) {
+        int hash = email.hashCode();
+        return (hash ^ (hash >>> 16)) & (GERACOES - 1);
+    }
+
+    /**
+     * Acertos / total de buscas (0 quando ainda não houve buscas)
+     */
+    private double taxaAcerto() {
+        double total = acertos.count() + falhas.count();
+        return total == 0 ? 0 : acertos.count() / total;
+    }
+
+    /**
+     * Usuário guardado + momento em que a entrada expira
+     */
+    private record Entrada(UserDetails usuario, long expiraEm) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.exemplo_Jwt.security;
+
+import com.example.exemplo_Jwt.entity.UsuarioEntity;
+import com.example.exemplo_Jwt.repository.projection.CredenciaisUsuario;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+/**
+ * ========================================================================
+ * USUARIO PRINCIPAL - USUÁRIO AUTENTICADO
+ * ========================================================================
+ *
+ * Implementação própria de UserDetails (no lugar do User do Spring).
+ *
+ * POR QUE UMA CLASSE PRÓPRIA?
+ * Além de email, senha e permissões, ela carrega dados que usamos depois
+ * da autenticação, sem precisar buscar o usuário de novo no banco:
+ * - id e nomeCompleto: usados na resposta do login (sem nova consulta)
+ * - versaoToken: versão atual dos tokens do usuário
+ *   (veja VersaoTokenRegistry)
+ *
+ * Pode ser criada de duas formas:
+ * - de(CredenciaisUsuario) / de(UsuarioEntity): a partir do banco
+ * - pelo JwtAuthenticationFilter: a partir das claims do token (sem banco)
+ */
+@Getter
+@AllArgsConstructor
+public class UsuarioPrincipal implements UserDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String nomeCompleto;
+    private final String email;
+    private final String senha;
+    private final boolean ativo;
+    private final long versaoToken;
+    private final List<GrantedAuthority> authorities;
+
+    /**
+     * Cria o principal a partir da entidade do banco
+     *
+     * new ArrayList/List.of() vazio: por enquanto todos os usuários
+     * têm as mesmas permissões (veja CustomUserDetailsService)
+     */
+    public static UsuarioPrincipal de(UsuarioEntity usuario) {
+        return new UsuarioPrincipal(
+                usuario.getId(),
+                usuario.getNomeCompleto(),
+                usuario.getEmail(),
+                usuario.getSenha(),
+                usuario.getAtivo(),
+                usuario.getVersaoToken(),
+                List.of()
+        );
+    }
+
+    /**
+     * Cria o principal a partir da projeção de credenciais
+     * (caminho usado pelo CustomUserDetailsService)
+     */
+    public static UsuarioPrincipal de(CredenciaisUsuario credenciais) {
+        return new UsuarioPrincipal(
+                credenciais.id(),
+                credenciais.nomeCompleto(),
+                credenciais.email(),
+                credenciais.senha(),
+                credenciais.ativo(),
+                credenciais.versaoToken(),
+                List.of()
+        );
+    }
+
+    /**
+     * Cópia do principal com outro hash de senha
+     * (usada quando o hash é atualizado para um custo maior do BCrypt)
+     */
+    public UsuarioPrincipal comSenha(String novaSenha) {
+        return new UsuarioPrincipal(id, nomeCompleto, email, novaSenha, ativo, versaoToken, authorities);
+    }
+
+    /**
+     * Email é o "username" no Spring Security
+     */
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    /**
+     * Senha criptografada (null quando o principal vem das claims do token)
+     */
+    @Override
+    public String getPassword() {
+        return senha;
+    }
+
+    /**
+     * Usuário inativo = desabilitado
+     */
+    @Override
+    public boolean isEnabled() {
+        return ativo;
+    }
+}
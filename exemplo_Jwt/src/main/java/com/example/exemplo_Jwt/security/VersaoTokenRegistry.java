@@ -0,0 +1,56 @@
+package com.example.exemplo_Jwt.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ========================================================================
+ * REGISTRO DE VERSÕES DE TOKEN
+ * ========================================================================
+ *
+ * Guarda em memória a versão ATUAL dos tokens de cada usuário
+ * (a coluna versao_token da tabela usuarios).
+ *
+ * PARA QUE SERVE?
+ * No modo de claims embutidas, o JwtAuthenticationFilter autentica
+ * direto pelas claims do token, sem ir ao banco. Mas e se o usuário
+ * foi desativado depois que o token foi emitido?
+ *
+ * 1. Desativar o usuário incrementa a versao_token no banco
+ * 2. O UsuarioService registra a nova versão aqui
+ * 3. Tokens com a versão antiga ficam "desatualizados"
+ * 4. Para tokens desatualizados (ou versão desconhecida, ex: depois de
+ *    reiniciar a aplicação) o filtro consulta o banco de novo
+ *
+ * As versões só aumentam: registrar uma versão menor que a atual é
+ * ignorado, evitando que uma leitura antiga "desfaça" uma atualização.
+ */
+@Component
+public class VersaoTokenRegistry {
+
+    private final Map<Long, Long> versoes = new ConcurrentHashMap<>();
+
+    /**
+     * @param usuarioId - ID do usuário
+     * @return versão atual conhecida, ou null se desconhecida
+     */
+    public Long versaoAtual(Long usuarioId) {
+        return versoes.get(usuarioId);
+    }
+
+    /**
+     * Registra a versão lida do banco ou recém-incrementada
+     */
+    public void registrar(Long usuarioId, long versao) {
+        versoes.merge(usuarioId, versao, Math::max);
+    }
+
+    /**
+     * Esquece o usuário (ex: removido permanentemente)
+     */
+    public void remover(Long usuarioId) {
+        versoes.remove(usuarioId);
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import com.example.exemplo_Jwt.repository.projection.EmailCpf;
+import com.example.exemplo_Jwt.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * ========================================================================
+ * FILTRO DE CADASTRO (BLOOM FILTER DE EMAILS E CPFS)
+ * ========================================================================
+ *
+ * Guarda em memória um Bloom filter com os emails e outro com os CPFs
+ * já cadastrados. No cadastro, antes do BCrypt:
+ * - filtro diz "NÃO"    -> email novo com certeza: nenhuma consulta ao banco
+ * - filtro diz "TALVEZ" -> confirma no banco (existsByEmail / existsByCpf)
+ *
+ * O caso comum (email novo) sai quase de graça, e um email repetido é
+ * recusado ANTES de gastar o BCrypt. Quem garante a unicidade continua
+ * sendo o banco (constraints UNIQUE): o filtro só evita trabalho.
+ *
+ * CICLO DE VIDA:
+ * - Montado quando a aplicação sobe (ApplicationReadyEvent), lendo só
+ *   email e CPF da tabela. Até lá, toda consulta vai ao banco.
+ * - Cada cadastro novo é adicionado (adicionar)
+ * - Exclusões definitivas não saem do filtro (Bloom filter não remove):
+ *   só são contadas (registrarRemocao)
+ * - Um job verifica periodicamente se o filtro "desviou" (muitas remoções
+ *   ou mais itens que a capacidade) e o reconstrói
+ *
+ * MÉTRICAS (Micrometer, em /actuator/metrics):
+ * - cadastro.filtro.consultas{filtro=email|cpf, resultado=ausente|talvez}
+ * - cadastro.filtro.falsos.positivos{filtro=email|cpf}
+ * - cadastro.filtro.taxa.falso.positivo{filtro=email|cpf} (estimada)
+ * - cadastro.filtro.reconstrucoes
+ *
+ * Exemplo no application.properties:
+ * seguranca.filtro-cadastro.habilitado=true
+ * seguranca.filtro-cadastro.taxa-falso-positivo=0.01
+ * seguranca.filtro-cadastro.memoria-maxima-kb=4096
+ */
+@Slf4j
+@Component
+public class CadastroBloomFilter {
+
+    private final UsuarioRepository repository;
+    private final TransactionTemplate transacaoLeitura;
+
+    private final boolean habilitado;
+    private final double taxaFalsoPositivo;
+    private final long memoriaMaximaBytes;
+    private final long capacidadeMinima;
+    private final double limiteDesvio;
+
+    /**
+     * Filtros em uso (null até a primeira montagem)
+     */
+    private volatile Filtros atuais;
+
+    /**
+     * Filtros sendo montados: cadastros feitos durante a reconstrução
+     * também entram neles, para não se perderem na troca
+     */
+    private volatile Filtros emConstrucao;
+
+    /**
+     * Exclusões definitivas desde a última montagem
+     */
+    private final AtomicLong remocoes = new AtomicLong();
+
+    private final Metricas metricasEmail;
+    private final Metricas metricasCpf;
+    private final Counter reconstrucoes;
+
+    public CadastroBloomFilter(
+            UsuarioRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${seguranca.filtro-cadastro.habilitado:true}") boolean habilitado,
+            @Value("${seguranca.filtro-cadastro.taxa-falso-positivo:0.01}") double taxaFalsoPositivo,
+            @Value("${seguranca.filtro-cadastro.memoria-maxima-kb:4096}") long memoriaMaximaKb,
+            @Value("${seguranca.filtro-cadastro.capacidade-minima:10000}") long capacidadeMinima,
+            @Value("${seguranca.filtro-cadastro.limite-desvio:0.1}") double limiteDesvio,
+            MeterRegistry registry
+    ) {
+        this.repository = repository;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+
+        this.habilitado = habilitado;
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        // Metade da memória para cada filtro (email e CPF)
+        this.memoriaMaximaBytes = memoriaMaximaKb * 1024 / 2;
+        this.capacidadeMinima = capacidadeMinima;
+        this.limiteDesvio = limiteDesvio;
+
+        this.metricasEmail = new Metricas("email", Filtros::emails, registry);
+        this.metricasCpf = new Metricas("cpf", Filtros::cpfs, registry);
+        this.reconstrucoes = Counter.builder("cadastro.filtro.reconstrucoes").register(registry);
+    }
+
+    /**
+     * ====================================================================
+     * EMAIL JÁ CADASTRADO?
+     * ====================================================================
+     *
+     * @return true se o email já existe no banco
+     *         (o banco só é consultado quando o filtro diz "talvez")
+     */
+    public boolean emailJaCadastrado(String email) {
+        return consultar(email, metricasEmail, repository::existsByEmail);
+    }
+
+    /**
+     * CPF JÁ CADASTRADO? (mesma lógica do email)
+     */
+    public boolean cpfJaCadastrado(String cpf) {
+        return consultar(cpf, metricasCpf, repository::existsByCpf);
+    }
+
+    private boolean consultar(String valor, Metricas metricas, Predicate<String> consultaBanco) {
+        if (!habilitado) {
+            // Sem filtro: o cadastro confia só na constraint do banco
+            return false;
+        }
+
+        Filtros filtros = atuais;
+        if (filtros != null && !metricas.filtro.apply(filtros).talvezContenha(valor)) {
+            metricas.ausentes.increment();
+            return false;
+        }
+        metricas.talvez.increment();
+
+        boolean existe = consultaBanco.test(valor);
+        if (!existe && filtros != null) {
+            metricas.falsosPositivos.increment();
+        }
+        return existe;
+    }
+
+    /**
+     * ====================================================================
+     * ADICIONAR CADASTRO NOVO
+     * ====================================================================
+     *
+     * Chamado pelo UsuarioService depois que o INSERT deu certo.
+     */
+    public void adicionar(String email, String cpf) {
+        if (!habilitado) {
+            return;
+        }
+        Filtros filtros = atuais;
+        if (filtros != null) {
+            filtros.adicionar(email, cpf);
+        }
+        Filtros novos = emConstrucao;
+        if (novos != null) {
+            novos.adicionar(email, cpf);
+        }
+    }
+
+    /**
+     * Exclusão definitiva: o valor continua no filtro (vira um falso
+     * positivo), então só contamos para saber quando reconstruir
+     */
+    public void registrarRemocao() {
+        remocoes.incrementAndGet();
+    }
+
+    /**
+     * ====================================================================
+     * MONTAR / RECONSTRUIR O FILTRO
+     * ====================================================================
+     *
+     * 1. Calcula a capacidade (dobro dos usuários atuais, com um mínimo)
+     * 2. Cria filtros vazios e publica em "emConstrucao"
+     * 3. Percorre email e CPF de todos os usuários (Stream, sem entities)
+     * 4. Troca os filtros atuais pelos novos
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconstruir() {
+        if (!habilitado) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+
+        long total = transacaoLeitura.execute(status -> repository.count());
+        long capacidade = Math.max(capacidadeMinima, total * 2);
+        Filtros novos = new Filtros(
+                new BloomFilter(capacidade, taxaFalsoPositivo, memoriaMaximaBytes),
+                new BloomFilter(capacidade, taxaFalsoPositivo, memoriaMaximaBytes));
+        emConstrucao = novos;
+        long remocoesAntes = remocoes.get();
+
+        try {
+            transacaoLeitura.executeWithoutResult(status -> {
+                try (Stream<EmailCpf> usuarios = repository.percorrerEmailsECpfs()) {
+                    usuarios.forEach(u -> novos.adicionar(u.email(), u.cpf()));
+                }
+            });
+            atuais = novos;
+            remocoes.addAndGet(-remocoesAntes);
+            reconstrucoes.increment();
+        } finally {
+            emConstrucao = null;
+        }
+
+        log.info("Filtro de cadastro montado: {} usuários, capacidade {}, {} KB, {} hashes, em {} ms",
+                novos.emails().getItens(), capacidade,
+                2 * novos.emails().getTamanhoEmBytes() / 1024,
+                novos.emails().getNumeroHashes(),
+                System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * ====================================================================
+     * VERIFICAR DESVIO (job agendado)
+     * ====================================================================
+     *
+     * Reconstrói se:
+     * - as exclusões passaram de limiteDesvio (ex: 10%) dos itens, ou
+     * - o filtro recebeu mais itens que a capacidade planejada
+     *   (a taxa de falso positivo sobe rápido depois disso)
+     */
+    @Scheduled(
+            initialDelayString = "${seguranca.filtro-cadastro.intervalo-verificacao-ms:600000}",
+            fixedDelayString = "${seguranca.filtro-cadastro.intervalo-verificacao-ms:600000}")
+    public void verificarDesvio() {
+        Filtros filtros = atuais;
+        if (!habilitado || filtros == null) {
+            return;
+        }
+        BloomFilter emails = filtros.emails();
+        boolean muitasRemocoes = remocoes.get() > emails.getItens() * limiteDesvio;
+        boolean cheio = emails.getItens() > emails.getCapacidade();
+
+        if (muitasRemocoes || cheio) {
+            log.info("Reconstruindo filtro de cadastro (remoções: {}, itens: {}, capacidade: {})",
+                    remocoes.get(), emails.getItens(), emails.getCapacidade());
+            reconstruir();
+        }
+    }
+
+    /**
+     * Par de filtros: emails e CPFs
+     */
+    private record Filtros(BloomFilter emails, BloomFilter cpfs) {
+
+        void adicionar(String email, String cpf) {
+            emails.adicionar(email);
+            cpfs.adicionar(cpf);
+        }
+    }
+
+    /**
+     * Contadores de um dos filtros (email ou CPF)
+     */
+    private final class Metricas {
+
+        private final Function<Filtros, BloomFilter> filtro;
+        private final Counter ausentes;
+        private final Counter talvez;
+        private final Counter falsosPositivos;
+
+        private Metricas(String nome, Function<Filtros, BloomFilter> filtro, MeterRegistry registry) {
+            this.filtro = filtro;
+            this.ausentes = Counter.builder("cadastro.filtro.consultas")
+                    .tag("filtro", nome).tag("resultado", "ausente")
+                    .register(registry);
+            this.talvez = Counter.builder("cadastro.filtro.consultas")
+                    .tag("filtro", nome).tag("resultado", "talvez")
+                    .register(registry);
+            this.falsosPositivos = Counter.builder("cadastro.filtro.falsos.positivos")
+                    .tag("filtro", nome)
+                    .register(registry);
+            Gauge.builder("cadastro.filtro.taxa.falso.positivo", CadastroBloomFilter.this,
+                            c -> c.atuais == null ? 0 : filtro.apply(c.atuais).taxaFalsoPositivoEstimada())
+                    .tag("filtro", nome)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.dto.FalhaLoteDTO;
+import com.example.exemplo_Jwt.dto.ResultadoLoteDTO;
+import com.example.exemplo_Jwt.dto.UsuarioRequestDTO;
+import com.example.exemplo_Jwt.dto.mapper.UsuarioMapper;
+import com.example.exemplo_Jwt.entity.UsuarioEntity;
+import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import com.example.exemplo_Jwt.security.IsolatedPasswordEncoder;
+import com.example.exemplo_Jwt.security.PasswordHashExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * ========================================================================
+ * CADASTRO EM LOTE
+ * ========================================================================
+ *
+ * Cadastra milhares de usuários numa única chamada.
+ *
+ * POR QUE NÃO CHAMAR UsuarioService.cadastrar() EM LOOP?
+ * Seria uma transação, um INSERT e um BCrypt por vez, em sequência.
+ * Aqui o trabalho é agrupado:
+ *
+ * 1. VALIDAÇÃO: campos obrigatórios, email/CPF repetidos dentro do lote
+ *    e email/CPF já cadastrados (pelo CadastroBloomFilter)
+ * 2. BCRYPT EM PARALELO: as senhas são enviadas ao PasswordHashExecutor,
+ *    que usa todos os núcleos da CPU
+ * 3. INSERT EM BLOCOS: cada bloco (ex: 500 usuários) é salvo numa
+ *    transação, e o Hibernate agrupa os INSERTs em lotes JDBC
+ *    (hibernate.jdbc.batch_size), em vez de uma ida ao banco por usuário
+ *
+ * Uma linha com problema NÃO cancela o lote: ela vai para a lista de
+ * falhas com o motivo, e as outras seguem.
+ *
+ * EXECUTOR DO BCRYPT OCUPADO:
+ * Com a fila do executor cheia, o lote espera uma vaga (até
+ * cadastro-lote.espera-fila-ms). Se a fila continuar cheia, os blocos já
+ * gravados ficam gravados e o resultado é PARCIAL: as linhas restantes
+ * voltam como falhas com o motivo NAO_PROCESSADA, para o cliente reenviar.
+ *
+ * Exemplo no application.properties:
+ * cadastro-lote.tamanho-maximo=50000
+ * cadastro-lote.tamanho-bloco=500
+ * cadastro-lote.espera-fila-ms=30000
+ */
+@Slf4j
+@Service
+public class CadastroLoteService {
+
+    /**
+     * Motivo das linhas que não chegaram a ser processadas
+     * (executor do BCrypt ocupado até o fim da espera)
+     */
+    public static final String NAO_PROCESSADA = "Servidor ocupado: linha não processada, envie de novo!";
+
+    private final UsuarioRepository repository;
+    private final UsuarioMapper mapper;
+    private final IsolatedPasswordEncoder passwordEncoder;
+    private final PasswordHashExecutor passwordHashExecutor;
+    private final CadastroBloomFilter cadastroBloomFilter;
+    private final TransactionTemplate transacao;
+
+    private final int tamanhoMaximo;
+    private final int tamanhoBloco;
+    private final long esperaFilaMs;
+
+    public CadastroLoteService(
+            UsuarioRepository repository,
+            UsuarioMapper mapper,
+            IsolatedPasswordEncoder passwordEncoder,
+            PasswordHashExecutor passwordHashExecutor,
+            CadastroBloomFilter cadastroBloomFilter,
+            PlatformTransactionManager transactionManager,
+            @Value("${cadastro-lote.tamanho-maximo:50000}") int tamanhoMaximo,
+            @Value("${cadastro-lote.tamanho-bloco:500}") int tamanhoBloco,
+            @Value("${cadastro-lote.espera-fila-ms:30000}") long esperaFilaMs
+    ) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashExecutor = passwordHashExecutor;
+        this.cadastroBloomFilter = cadastroBloomFilter;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.tamanhoBloco = tamanhoBloco;
+        this.esperaFilaMs = esperaFilaMs;
+    }
+
+    /**
+     * ====================================================================
+     * CADASTRAR LOTE
+     * ====================================================================
+     *
+     * @param usuarios - Usuários a cadastrar
+     * @return ResultadoLoteDTO - Quantos foram cadastrados + falhas por linha
+     * @throws ResponseStatusException 400 - Se o lote passar do tamanho máximo
+     */
+    public ResultadoLoteDTO cadastrar(List<UsuarioRequestDTO> usuarios) {
+        if (usuarios.size() > tamanhoMaximo) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Lote com mais de " + tamanhoMaximo + " usuários!");
+        }
+
+        // Numera as linhas pela posição na lista (começa em 1)
+        List<Linha> linhas = new ArrayList<>(usuarios.size());
+        for (int i = 0; i < usuarios.size(); i++) {
+            linhas.add(new Linha(i + 1, usuarios.get(i)));
+        }
+        return cadastrarLinhas(linhas);
+    }
+
+    /**
+     * ====================================================================
+     * CADASTRAR LINHAS NUMERADAS
+     * ====================================================================
+     *
+     * Igual ao cadastrar(), mas cada usuário já vem com o número da linha
+     * de origem (usado pela importação de arquivos, onde o número é a
+     * linha no arquivo). Não aplica o tamanho máximo: quem chama controla
+     * o tamanho de cada bloco.
+     *
+     * @param linhas - Usuários numerados
+     * @return ResultadoLoteDTO - Quantos foram cadastrados + falhas por linha
+     */
+    public ResultadoLoteDTO cadastrarLinhas(List<Linha> linhas) {
+        long inicio = System.currentTimeMillis();
+
+        // 1. VALIDAÇÃO
+        List<FalhaLoteDTO> falhas = new ArrayList<>();
+        List<Linha> validas = new ArrayList<>(linhas.size());
+        Set<String> emailsDoLote = new HashSet<>();
+        Set<String> cpfsDoLote = new HashSet<>();
+
+        for (Linha linha : linhas) {
+            UsuarioRequestDTO dto = linha.dto();
+            String motivo = validar(dto, emailsDoLote, cpfsDoLote);
+            if (motivo != null) {
+                falhas.add(new FalhaLoteDTO(linha.numero(), dto == null ? null : dto.email(), motivo));
+            } else {
+                validas.add(linha);
+            }
+        }
+
+        // 2 e 3. BCRYPT + INSERT, bloco a bloco
+        int cadastrados = 0;
+        for (int i = 0; i < validas.size(); i += tamanhoBloco) {
+            List<Linha> bloco = validas.subList(i, Math.min(i + tamanhoBloco, validas.size()));
+            List<String> hashes;
+            try {
+                hashes = criptografar(bloco);
+            } catch (ResponseStatusException e) {
+                if (e.getStatusCode() != HttpStatus.SERVICE_UNAVAILABLE) {
+                    throw e;
+                }
+                // Executor ocupado: os blocos anteriores já foram gravados
+                List<Linha> restantes = validas.subList(i, validas.size());
+                log.warn("Cadastro em lote parcial: executor BCrypt ocupado, {} linhas não processadas",
+                        restantes.size());
+                for (Linha linha : restantes) {
+                    falhas.add(new FalhaLoteDTO(linha.numero(), linha.dto().email(), NAO_PROCESSADA));
+                }
+                break;
+            }
+            cadastrados += inserir(bloco, hashes, falhas);
+        }
+
+        falhas.sort(Comparator.comparingLong(FalhaLoteDTO::linha));
+        log.debug("Cadastro em lote: {} de {} usuários em {} ms",
+                cadastrados, linhas.size(), System.currentTimeMillis() - inicio);
+        return new ResultadoLoteDTO(linhas.size(), cadastrados, falhas);
+    }
+
+    /**
+     * Valida uma linha
+     *
+     * O UsuarioRequestDTO não tem anotações de Bean Validation, então os
+     * campos obrigatórios são conferidos aqui.
+     *
+     * @return motivo da falha, ou null se a linha for válida
+     */
+    private String validar(UsuarioRequestDTO dto, Set<String> emailsDoLote, Set<String> cpfsDoLote) {
+        if (dto == null) {
+            return "Linha vazia!";
+        }
+
+        if (vazio(dto.nomeCompleto())) {
+            return "Nome completo é obrigatório!";
+        }
+        if (vazio(dto.cpf())) {
+            return "CPF é obrigatório!";
+        }
+        if (vazio(dto.email())) {
+            return "Email é obrigatório!";
+        }
+        if (vazio(dto.senha())) {
+            return "Senha é obrigatória!";
+        }
+        if (dto.dataNascimento() == null) {
+            return "Data de nascimento é obrigatória!";
+        }
+
+        // Repetidos dentro do próprio lote
+        if (!emailsDoLote.add(dto.email())) {
+            return "Email repetido no lote!";
+        }
+        if (!cpfsDoLote.add(dto.cpf())) {
+            return "CPF repetido no lote!";
+        }
+
+        // Já cadastrados (o banco só é consultado se o filtro disser "talvez")
+        if (cadastroBloomFilter.emailJaCadastrado(dto.email())) {
+            return "Email já cadastrado!";
+        }
+        if (cadastroBloomFilter.cpfJaCadastrado(dto.cpf())) {
+            return "CPF já cadastrado!";
+        }
+        return null;
+    }
+
+    private static boolean vazio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+    /**
+     * ====================================================================
+     * BCRYPT EM PARALELO
+     * ====================================================================
+     *
+     * Mantém no máximo "threads do executor" hashes em andamento por vez:
+     * todos os núcleos ficam ocupados, mas o lote não enche a fila do
+     * executor (que também atende login e cadastro).
+     *
+     * Se o envio falhar (fila cheia até o fim da espera), os hashes já
+     * enviados são cancelados: o bloco não vai ser gravado mesmo.
+     *
+     * @return hashes na mesma ordem das linhas do bloco
+     * @throws ResponseStatusException 503 - Se a fila do executor continuar cheia
+     */
+    private List<String> criptografar(List<Linha> bloco) {
+        List<String> hashes = new ArrayList<>(bloco.size());
+        Deque<Future<String>> emAndamento = new ArrayDeque<>();
+        int janela = passwordHashExecutor.getThreads();
+
+        try {
+            for (Linha linha : bloco) {
+                if (emAndamento.size() >= janela) {
+                    hashes.add(passwordHashExecutor.aguardar(emAndamento.removeFirst()));
+                }
+                emAndamento.addLast(passwordEncoder.encodeEmParalelo(linha.dto().senha(), esperaFilaMs));
+            }
+            while (!emAndamento.isEmpty()) {
+                hashes.add(passwordHashExecutor.aguardar(emAndamento.removeFirst()));
+            }
+        } catch (RuntimeException e) {
+            emAndamento.forEach(futuro -> futuro.cancel(true));
+            throw e;
+        }
+        return hashes;
+    }
+
+    /**
+     * ====================================================================
+     * INSERT DO BLOCO
+     * ====================================================================
+     *
+     * Tenta salvar o bloco inteiro numa transação (INSERTs em lote JDBC).
+     *
+     * Se alguma linha violar uma constraint UNIQUE (ex: o mesmo email foi
+     * cadastrado por outra requisição enquanto o lote rodava), o bloco
+     * inteiro volta (rollback) e é refeito linha a linha, para descobrir
+     * exatamente quais linhas falharam.
+     *
+     * @return quantidade de usuários cadastrados
+     */
+    private int inserir(List<Linha> bloco, List<String> hashes, List<FalhaLoteDTO> falhas) {
+        try {
+            transacao.executeWithoutResult(status -> {
+                List<UsuarioEntity> entidades = new ArrayList<>(bloco.size());
+                for (int i = 0; i < bloco.size(); i++) {
+                    entidades.add(criarEntidade(bloco.get(i), hashes.get(i)));
+                }
+                repository.saveAll(entidades);
+                repository.flush();
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Bloco com violação de constraint, refazendo linha a linha", e);
+            return inserirUmPorUm(bloco, hashes, falhas);
+        }
+
+        for (Linha linha : bloco) {
+            cadastroBloomFilter.adicionar(linha.dto().email(), linha.dto().cpf());
+        }
+        return bloco.size();
+    }
+
+    private int inserirUmPorUm(List<Linha> bloco, List<String> hashes, List<FalhaLoteDTO> falhas) {
+        int cadastrados = 0;
+        for (int i = 0; i < bloco.size(); i++) {
+            Linha linha = bloco.get(i);
+            // Entity nova: a da tentativa anterior já recebeu um ID
+            UsuarioEntity usuario = criarEntidade(linha, hashes.get(i));
+            try {
+                transacao.executeWithoutResult(status -> repository.saveAndFlush(usuario));
+                cadastroBloomFilter.adicionar(linha.dto().email(), linha.dto().cpf());
+                cadastrados++;
+            } catch (DataIntegrityViolationException e) {
+                falhas.add(new FalhaLoteDTO(linha.numero(), linha.dto().email(), motivo(e)));
+            }
+        }
+        return cadastrados;
+    }
+
+    private UsuarioEntity criarEntidade(Linha linha, String senhaCriptografada) {
+        UsuarioEntity usuario = mapper.toEntity(linha.dto());
+        usuario.setSenha(senhaCriptografada);
+        return usuario;
+    }
+
+    /**
+     * Motivo legível de uma violação de constraint
+     * (mesma tradução do cadastro individual)
+     */
+    private static String motivo(DataIntegrityViolationException e) {
+        RuntimeException traduzida = UsuarioService.traduzirViolacao(e);
+        if (traduzida instanceof ResponseStatusException status) {
+            return status.getReason();
+        }
+        return "Dados inválidos!";
+    }
+
+    /**
+     * Linha do lote: número da linha de origem (começa em 1) + dados
+     */
+    public record Linha(long numero, UsuarioRequestDTO dto) {
+    }
+}
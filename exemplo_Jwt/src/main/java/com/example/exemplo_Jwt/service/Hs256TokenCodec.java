@@ -0,0 +1,621 @@
+package com.example.exemplo_Jwt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ========================================================================
+ * HS256 TOKEN CODEC - VERIFICAÇÃO RÁPIDA DOS TOKENS EMITIDOS POR NÓS
+ * ========================================================================
+ *
+ * O jjwt é genérico: aceita qualquer algoritmo e qualquer claim, e por
+ * isso, a cada token, monta objetos de header e claims, lê o JSON para
+ * um Map e cria objetos Date.
+ *
+ * Os tokens desta aplicação têm SEMPRE o mesmo formato:
+ * - Header:  {"kid": "...", "alg": "HS256"}
+ * - Payload: {"sub", "jti", "iat", "exp"} + as claims embutidas (uid, atv, aut, ver)
+ *
+ * Este codec verifica só esse formato, gastando o mínimo possível:
+ * 1. Decodifica o Base64 URL direto em buffers da própria thread
+ * 2. Calcula o HMAC com um Mac reutilizado por thread (sem getInstance)
+ * 3. Compara a assinatura em tempo constante (MessageDigest.isEqual)
+ * 4. Lê o JSON com um leitor próprio (LeitorJson), campo a campo,
+ *    direto para variáveis primitivas, que vão para o VerifiedToken
+ *    sem passar por Map, Long ou Date
+ *
+ * QUANDO O JJWT AINDA É USADO (o método devolve null):
+ * - Header ou claims fora do formato acima (ex: "nbf", outro "alg")
+ * - Base64 ou JSON que o codec não reconhece (ex: texto com escape)
+ * - Token expirado (o jjwt lança a ExpiredJwtException de sempre)
+ * - Token maior que TAMANHO_MAXIMO
+ *
+ * Assinatura inválida ou kid desconhecido NÃO voltam para o jjwt:
+ * lançam TokenInvalidoException(ASSINATURA_INVALIDA), a instância
+ * compartilhada e sem stack trace. Assim um ataque que muda um caractere
+ * por requisição (escapando do TokenRejeitadoCache) não paga a montagem
+ * de um stack trace a cada tentativa.
+ *
+ * MÉTRICA (Micrometer, em /actuator/metrics):
+ * - jwt.verificacoes{caminho=rapido|jjwt}
+ *
+ * Exemplo no application.properties:
+ * jwt.codec-rapido.habilitado=true
+ */
+@Component
+public class Hs256TokenCodec {
+
+    /**
+     * Tokens maiores que isso vão para o jjwt
+     * (evita que um token gigante deixe um buffer enorme preso na thread)
+     */
+    static final int TAMANHO_MAXIMO = 8192;
+
+    private static final int TAMANHO_HMAC_SHA256 = 32;
+
+    private static final long AUSENTE = VerifiedToken.AUSENTE;
+
+    /**
+     * Tabela Base64 URL: caractere ASCII -> valor de 6 bits (-1 = inválido)
+     */
+    private static final byte[] BASE64_URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_URL, (byte) -1);
+        String alfabeto = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alfabeto.length(); i++) {
+            BASE64_URL[alfabeto.charAt(i)] = (byte) i;
+        }
+    }
+
+    /**
+     * ESTADO POR THREAD
+     *
+     * Mac não é thread-safe, então cada thread tem o seu, junto com os
+     * buffers usados na verificação. Nada disso é alocado por token.
+     */
+    private static final ThreadLocal<Estado> ESTADO = ThreadLocal.withInitial(Estado::new);
+
+    private final JwtKeyRing keyRing;
+    private final boolean habilitado;
+
+    private final Counter caminhoRapido;
+    private final Counter caminhoJjwt;
+
+    public Hs256TokenCodec(
+            JwtKeyRing keyRing,
+            @Value("${jwt.codec-rapido.habilitado:true}") boolean habilitado,
+            MeterRegistry registry
+    ) {
+        this.keyRing = keyRing;
+        this.habilitado = habilitado;
+        this.caminhoRapido = Counter.builder("jwt.verificacoes")
+                .tag("caminho", "rapido")
+                .register(registry);
+        this.caminhoJjwt = Counter.builder("jwt.verificacoes")
+                .tag("caminho", "jjwt")
+                .register(registry);
+    }
+
+    /**
+     * ====================================================================
+     * VERIFICAR TOKEN
+     * ====================================================================
+     *
+     * @param token - Token JWT (header.payload.assinatura)
+     * @return VerifiedToken, ou null se o token deve ser verificado pelo jjwt
+     * @throws TokenInvalidoException - Assinatura inválida ou kid desconhecido
+     */
+    public VerifiedToken verificar(String token) {
+        VerifiedToken verificado = habilitado ? tentarVerificar(token) : null;
+        (verificado != null ? caminhoRapido : caminhoJjwt).increment();
+        return verificado;
+    }
+
+    private VerifiedToken tentarVerificar(String token) {
+        int tamanho = token.length();
+        if (tamanho > TAMANHO_MAXIMO) {
+            return null;
+        }
+
+        int ponto1 = token.indexOf('.');
+        int ponto2 = ponto1 < 0 ? -1 : token.indexOf('.', ponto1 + 1);
+        if (ponto2 < 0 || token.indexOf('.', ponto2 + 1) >= 0) {
+            return null;
+        }
+
+        Estado estado = ESTADO.get();
+
+        // HEADER: só {"alg": "HS256", "kid": "..."} (e "typ": "JWT")
+        int tamanhoHeader = decodificar(token, 0, ponto1, estado.json);
+        if (tamanhoHeader < 0) {
+            return null;
+        }
+        if (!lerHeader(estado, tamanhoHeader)) {
+            return null;
+        }
+        String kid = estado.kid;
+
+        Key chave = keyRing.buscarChave(kid);
+        if (chave == null) {
+            throw TokenInvalidoException.de(TokenInvalidoException.Motivo.ASSINATURA_INVALIDA);
+        }
+        // kid de uma chave ES256 com alg HS256: o jjwt rejeita a mistura
+        if (!(chave instanceof SecretKey)) {
+            return null;
+        }
+
+        // PAYLOAD: decodificado antes do HMAC (rejeita caracteres fora do Base64)
+        int tamanhoPayload = decodificar(token, ponto1 + 1, ponto2, estado.json);
+        if (tamanhoPayload < 0) {
+            return null;
+        }
+
+        // ASSINATURA: HMAC-SHA256 de "header.payload", comparado em tempo constante
+        if (decodificar(token, ponto2 + 1, tamanho, estado.assinaturaRecebida) != TAMANHO_HMAC_SHA256) {
+            return null;
+        }
+        if (!estado.assinar(chave, token, ponto2)) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(estado.assinaturaCalculada, estado.assinaturaRecebida)) {
+            throw TokenInvalidoException.de(TokenInvalidoException.Motivo.ASSINATURA_INVALIDA);
+        }
+
+        // CLAIMS: só são lidas depois da assinatura conferida
+        VerifiedToken verificado = lerClaims(estado, tamanhoPayload, kid);
+
+        // Expirado: o jjwt lança a ExpiredJwtException com a mensagem de sempre
+        if (verificado == null || verificado.expirado()) {
+            return null;
+        }
+        return verificado;
+    }
+
+    /**
+     * ====================================================================
+     * LER HEADER
+     * ====================================================================
+     *
+     * @return true se o header é {"alg": "HS256"} com kid (e typ) opcionais;
+     *         o kid fica em estado.kid
+     */
+    private static boolean lerHeader(Estado estado, int tamanho) {
+        LeitorJson leitor = estado.leitor.iniciar(estado.json, tamanho);
+        boolean hs256 = false;
+        String kid = null;
+
+        if (!leitor.consumir('{')) {
+            return false;
+        }
+        if (!leitor.consumir('}')) {
+            do {
+                if (!leitor.lerTexto() || !leitor.consumir(':')) {
+                    return false;
+                }
+                if (leitor.textoIgual("alg")) {
+                    hs256 = leitor.lerTexto() && leitor.textoIgual("HS256");
+                    if (!hs256) {
+                        return false;
+                    }
+                } else if (leitor.textoIgual("kid")) {
+                    kid = leitor.lerString();
+                    if (kid == null) {
+                        return false;
+                    }
+                } else if (leitor.textoIgual("typ")) {
+                    if (!leitor.lerTexto()) {
+                        return false;
+                    }
+                } else {
+                    return false;
+                }
+            } while (leitor.consumir(','));
+            if (!leitor.consumir('}')) {
+                return false;
+            }
+        }
+        if (!leitor.terminou()) {
+            return false;
+        }
+        estado.kid = kid;
+        return hs256;
+    }
+
+    /**
+     * ====================================================================
+     * LER CLAIMS
+     * ====================================================================
+     *
+     * Lê cada claim conhecida direto para uma variável do tipo certo.
+     * Qualquer claim desconhecida (ou de tipo inesperado) devolve null,
+     * e o token segue para o jjwt.
+     */
+    private static VerifiedToken lerClaims(Estado estado, int tamanho, String kid) {
+        LeitorJson leitor = estado.leitor.iniciar(estado.json, tamanho);
+        String sub = null;
+        String jti = null;
+        long iat = AUSENTE;
+        long exp = AUSENTE;
+        long uid = AUSENTE;
+        long ver = AUSENTE;
+        Boolean atv = null;
+        List<String> aut = null;
+
+        if (!leitor.consumir('{')) {
+            return null;
+        }
+        if (!leitor.consumir('}')) {
+            do {
+                if (!leitor.lerTexto() || !leitor.consumir(':')) {
+                    return null;
+                }
+                if (leitor.textoIgual("sub")) {
+                    if ((sub = leitor.lerString()) == null) {
+                        return null;
+                    }
+                } else if (leitor.textoIgual("jti")) {
+                    if ((jti = leitor.lerString()) == null) {
+                        return null;
+                    }
+                } else if (leitor.textoIgual("exp")) {
+                    if ((exp = leitor.lerInteiro()) == AUSENTE) {
+                        return null;
+                    }
+                } else if (leitor.textoIgual("iat")) {
+                    if ((iat = leitor.lerInteiro()) == AUSENTE) {
+                        return null;
+                    }
+                } else if (leitor.textoIgual(JwtService.CLAIM_USUARIO_ID)) {
+                    if ((uid = leitor.lerInteiro()) == AUSENTE) {
+                        return null;
+                    }
+                } else if (leitor.textoIgual(JwtService.CLAIM_VERSAO)) {
+                    if ((ver = leitor.lerInteiro()) == AUSENTE) {
+                        return null;
+                    }
+                } else if (leitor.textoIgual(JwtService.CLAIM_ATIVO)) {
+                    if ((atv = leitor.lerBooleano()) == null) {
+                        return null;
+                    }
+                } else if (leitor.textoIgual(JwtService.CLAIM_PERMISSOES)) {
+                    if ((aut = leitor.lerListaDeStrings()) == null) {
+                        return null;
+                    }
+                } else {
+                    return null;
+                }
+            } while (leitor.consumir(','));
+            if (!leitor.consumir('}')) {
+                return null;
+            }
+        }
+        if (!leitor.terminou()) {
+            return null;
+        }
+
+        // Sem "exp" o token não expira: formato que nós não emitimos
+        if (sub == null || exp == AUSENTE) {
+            return null;
+        }
+
+        return new VerifiedToken(
+                sub,
+                jti,
+                exp,
+                iat,
+                uid,
+                ver,
+                atv,
+                aut,
+                kid
+        );
+    }
+
+    /**
+     * ====================================================================
+     * DECODIFICAR BASE64 URL (sem padding)
+     * ====================================================================
+     *
+     * Decodifica token[inicio, fim) direto no buffer de destino,
+     * sem criar Strings nem arrays intermediários.
+     *
+     * @return quantidade de bytes escritos, ou -1 se o trecho for inválido
+     *         ou não couber no destino
+     */
+    static int decodificar(String token, int inicio, int fim, byte[] destino) {
+        int tamanho = fim - inicio;
+        if (tamanho % 4 == 1) {
+            return -1;
+        }
+        int saida = tamanho / 4 * 3 + Math.max(0, tamanho % 4 - 1);
+        if (saida > destino.length) {
+            return -1;
+        }
+
+        int bits = 0;
+        int quantidadeBits = 0;
+        int posicao = 0;
+        for (int i = inicio; i < fim; i++) {
+            char c = token.charAt(i);
+            int valor = c < 128 ? BASE64_URL[c] : -1;
+            if (valor < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | valor;
+            quantidadeBits += 6;
+            if (quantidadeBits >= 8) {
+                quantidadeBits -= 8;
+                destino[posicao++] = (byte) (bits >> quantidadeBits);
+            }
+        }
+        // Bits que sobram no fim precisam ser zero (Base64 canônico)
+        if ((bits & ((1 << quantidadeBits) - 1)) != 0) {
+            return -1;
+        }
+        return posicao;
+    }
+
+    /**
+     * ====================================================================
+     * ESTADO DE UMA THREAD
+     * ====================================================================
+     *
+     * - mac: HmacSHA256 já iniciado com a última chave usada
+     *   (chaves só mudam na rotação, então o init é raro)
+     * - entrada: "header.payload" em ASCII, para o HMAC
+     * - json: header ou payload decodificado
+     * - kid: kid do último header lido
+     * - leitor: LeitorJson reaproveitado em todas as leituras
+     */
+    private static final class Estado {
+
+        private final Mac mac;
+        private Key chaveAtual;
+        private String kid;
+        private final LeitorJson leitor = new LeitorJson();
+
+        private final byte[] entrada = new byte[TAMANHO_MAXIMO];
+        private final byte[] json = new byte[TAMANHO_MAXIMO];
+        private final byte[] assinaturaRecebida = new byte[TAMANHO_HMAC_SHA256];
+        private final byte[] assinaturaCalculada = new byte[TAMANHO_HMAC_SHA256];
+
+        private Estado() {
+            try {
+                mac = Mac.getInstance("HmacSHA256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("HmacSHA256 indisponível", e);
+            }
+        }
+
+        /**
+         * Calcula o HMAC de token[0, fim) em assinaturaCalculada
+         *
+         * @return false se a chave não servir para HMAC (o jjwt decide)
+         */
+        private boolean assinar(Key chave, String token, int fim) {
+            try {
+                if (chave != chaveAtual) {
+                    mac.init(chave);
+                    chaveAtual = chave;
+                }
+                for (int i = 0; i < fim; i++) {
+                    entrada[i] = (byte) token.charAt(i);
+                }
+                mac.update(entrada, 0, fim);
+                mac.doFinal(assinaturaCalculada, 0);
+                return true;
+            } catch (InvalidKeyException | ShortBufferException e) {
+                chaveAtual = null;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * ====================================================================
+     * LEITOR DE JSON (só o formato dos nossos tokens)
+     * ====================================================================
+     *
+     * Um parser de JSON genérico cria vários objetos por leitura (o parser
+     * do Jackson custa ~600 bytes cada, e são dois por token). Header e
+     * payload dos nossos tokens são objetos "planos", então este leitor
+     * percorre os bytes direto, sem criar nada além das Strings dos valores.
+     *
+     * Aceita só:
+     * - Textos ASCII sem escape (\) - o resto vai para o jjwt
+     * - Inteiros positivos sem zero à esquerda, até 18 dígitos
+     * - true / false
+     * - Listas de textos
+     *
+     * Qualquer outra coisa faz o método devolver "falhou" e o token segue
+     * para o jjwt, que entende o JSON completo.
+     *
+     * Uma instância por thread (dentro do Estado), reiniciada a cada uso.
+     */
+    static final class LeitorJson {
+
+        private byte[] json;
+        private int posicao;
+        private int fim;
+
+        /**
+         * Trecho [inicioTexto, fimTexto) do último texto lido (sem aspas)
+         */
+        private int inicioTexto;
+        private int fimTexto;
+
+        LeitorJson iniciar(byte[] json, int tamanho) {
+            this.json = json;
+            this.posicao = 0;
+            this.fim = tamanho;
+            return this;
+        }
+
+        /**
+         * Consome o caractere esperado (depois de espaços)
+         */
+        boolean consumir(char esperado) {
+            pularEspacos();
+            if (posicao < fim && json[posicao] == esperado) {
+                posicao++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Só sobraram espaços depois do objeto
+         */
+        boolean terminou() {
+            pularEspacos();
+            return posicao == fim;
+        }
+
+        /**
+         * Lê um texto entre aspas e guarda onde ele está (sem criar String)
+         */
+        boolean lerTexto() {
+            if (!consumir('"')) {
+                return false;
+            }
+            int inicio = posicao;
+            while (posicao < fim) {
+                byte b = json[posicao];
+                if (b == '"') {
+                    inicioTexto = inicio;
+                    fimTexto = posicao++;
+                    return true;
+                }
+                // Escape, caractere de controle ou não ASCII: o jjwt decide
+                if (b == '\\' || b < 0x20 || b > 0x7e) {
+                    return false;
+                }
+                posicao++;
+            }
+            return false;
+        }
+
+        /**
+         * O último texto lido é igual a este (ASCII)?
+         */
+        boolean textoIgual(String esperado) {
+            int tamanho = fimTexto - inicioTexto;
+            if (tamanho != esperado.length()) {
+                return false;
+            }
+            for (int i = 0; i < tamanho; i++) {
+                if (json[inicioTexto + i] != esperado.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return o texto como String, ou null se não for um texto aceito
+         */
+        String lerString() {
+            if (!lerTexto()) {
+                return null;
+            }
+            return new String(json, inicioTexto, fimTexto - inicioTexto, StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * @return o inteiro, ou AUSENTE se não for um inteiro aceito
+         */
+        long lerInteiro() {
+            pularEspacos();
+            int inicio = posicao;
+            long valor = 0;
+            while (posicao < fim && json[posicao] >= '0' && json[posicao] <= '9') {
+                valor = valor * 10 + (json[posicao] - '0');
+                posicao++;
+            }
+            int digitos = posicao - inicio;
+            if (digitos == 0 || digitos > 18 || (digitos > 1 && json[inicio] == '0')) {
+                return AUSENTE;
+            }
+            // "1.5", "1e3": número que não é inteiro simples
+            if (posicao < fim && (json[posicao] == '.' || json[posicao] == 'e' || json[posicao] == 'E')) {
+                return AUSENTE;
+            }
+            return valor;
+        }
+
+        /**
+         * @return TRUE, FALSE, ou null se não for um booleano
+         */
+        Boolean lerBooleano() {
+            pularEspacos();
+            if (palavra("true")) {
+                return Boolean.TRUE;
+            }
+            if (palavra("false")) {
+                return Boolean.FALSE;
+            }
+            return null;
+        }
+
+        /**
+         * @return lista imutável de textos, ou null se não for uma lista de textos
+         */
+        List<String> lerListaDeStrings() {
+            if (!consumir('[')) {
+                return null;
+            }
+            List<String> lista = new ArrayList<>(2);
+            if (consumir(']')) {
+                return Collections.unmodifiableList(lista);
+            }
+            do {
+                String item = lerString();
+                if (item == null) {
+                    return null;
+                }
+                lista.add(item);
+            } while (consumir(','));
+            return consumir(']') ? Collections.unmodifiableList(lista) : null;
+        }
+
+        private boolean palavra(String palavra) {
+            int tamanho = palavra.length();
+            if (fim - posicao < tamanho) {
+                return false;
+            }
+            for (int i = 0; i < tamanho; i++) {
+                if (json[posicao + i] != palavra.charAt(i)) {
+                    return false;
+                }
+            }
+            posicao += tamanho;
+            return true;
+        }
+
+        private void pularEspacos() {
+            while (posicao < fim) {
+                byte b = json[posicao];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                posicao++;
+            }
+        }
+    }
+}
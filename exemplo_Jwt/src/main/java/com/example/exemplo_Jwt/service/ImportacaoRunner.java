@@ -0,0 +1,90 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.dto.ProgressoImportacaoDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * ========================================================================
+ * IMPORTAÇÃO PELA LINHA DE COMANDO
+ * ========================================================================
+ *
+ * Importa um arquivo local quando a aplicação sobe, usando o mesmo
+ * ImportacaoService do endpoint POST /usuarios/importar.
+ *
+ * EXEMPLO:
+ * java -jar exemplo_Jwt.jar --importacao.arquivo=/dados/clientes.csv
+ *
+ * - Formato pela extensão: .csv = CSV, qualquer outra = NDJSON
+ * - Id da importação: --importacao.id=... (padrão: nome do arquivo).
+ *   Rodar de novo com o mesmo id retoma do último checkpoint.
+ * - Ao terminar, a aplicação encerra (código 0 = concluída, 1 = falhou).
+ *   Use --importacao.encerrar-ao-terminar=false para continuar servindo.
+ *
+ * ApplicationRunner - Executado pelo Spring Boot depois que o contexto sobe
+ * @ConditionalOnProperty - Só existe se importacao.arquivo for informado
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "importacao.arquivo")
+@RequiredArgsConstructor
+public class ImportacaoRunner implements ApplicationRunner {
+
+    private final ImportacaoService importacaoService;
+    private final ConfigurableApplicationContext contexto;
+
+    @Value("${importacao.arquivo}")
+    private String arquivo;
+
+    @Value("${importacao.id:}")
+    private String id;
+
+    @Value("${importacao.encerrar-ao-terminar:true}")
+    private boolean encerrarAoTerminar;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path caminho = Path.of(arquivo);
+        String nome = caminho.getFileName().toString();
+
+        ImportacaoService.Formato formato = nome.toLowerCase(Locale.ROOT).endsWith(".csv")
+                ? ImportacaoService.Formato.CSV
+                : ImportacaoService.Formato.NDJSON;
+        String idImportacao = id.isBlank() ? idDoArquivo(nome) : id;
+
+        boolean concluida = false;
+        try (InputStream entrada = Files.newInputStream(caminho)) {
+            ProgressoImportacaoDTO resultado = importacaoService.importar(idImportacao, formato, entrada);
+            concluida = ImportacaoService.CONCLUIDA.equals(resultado.status());
+        } catch (Exception e) {
+            log.error("Falha na importação de {}", caminho, e);
+        }
+
+        if (encerrarAoTerminar) {
+            int codigo = concluida ? 0 : 1;
+            System.exit(SpringApplication.exit(contexto, () -> codigo));
+        }
+    }
+
+    /**
+     * "clientes 2025.csv" -> "clientes_2025"
+     */
+    private static String idDoArquivo(String nome) {
+        int ponto = nome.lastIndexOf('.');
+        String base = ponto > 0 ? nome.substring(0, ponto) : nome;
+        String id = base.replaceAll("[^A-Za-z0-9_-]", "_");
+        return id.length() > 64 ? id.substring(0, 64) : id;
+    }
+}
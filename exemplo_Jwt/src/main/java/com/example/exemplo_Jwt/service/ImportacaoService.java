@@ -0,0 +1,580 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.dto.FalhaLoteDTO;
+import com.example.exemplo_Jwt.dto.ProgressoImportacaoDTO;
+import com.example.exemplo_Jwt.dto.ResultadoLoteDTO;
+import com.example.exemplo_Jwt.dto.UsuarioRequestDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * ========================================================================
+ * IMPORTAÇÃO DE USUÁRIOS (NDJSON / CSV)
+ * ========================================================================
+ *
+ * Importa arquivos com milhões de usuários SEM carregar o arquivo na
+ * memória: o arquivo é lido linha a linha e os usuários são cadastrados
+ * em blocos pelo CadastroLoteService (validação, BCrypt em paralelo e
+ * INSERT em lote JDBC).
+ *
+ * FORMATOS:
+ * - NDJSON: um UsuarioRequestDTO em JSON por linha
+ * - CSV: primeira linha com os nomes das colunas (nomeCompleto,cpf,email,
+ *   telefone,dataNascimento,endereco,cidade,estado,cep,senha), em qualquer
+ *   ordem. Campos podem vir entre aspas ("Rua A, 123"), mas não podem
+ *   quebrar linha.
+ *
+ * CHECKPOINT (retomar uma importação interrompida):
+ * Depois de cada bloco gravado no banco, a última linha confirmada é
+ * salva num arquivo de checkpoint (um por id de importação). Se a
+ * importação for interrompida, basta enviar o MESMO arquivo com o MESMO
+ * id: as linhas já confirmadas são puladas.
+ * Se a queda acontecer entre o commit e o checkpoint, o bloco é refeito e
+ * as linhas já gravadas viram falhas "Email já cadastrado!" (sem duplicar).
+ * Se o executor do BCrypt ficar ocupado demais (resultado parcial do
+ * CadastroLoteService), o checkpoint para logo antes da primeira linha
+ * não processada e a importação termina com 503, pronta para retomar.
+ *
+ * PROGRESSO E MÉTRICAS:
+ * - GET /usuarios/importacoes/{id} (linhas lidas, cadastrados, falhas,
+ *   linhas por segundo). Os contadores andam bloco a bloco, junto com o
+ *   checkpoint. Importações terminadas saem da memória e passam a ser
+ *   lidas do checkpoint (que guarda também as primeiras falhas).
+ * - importacao.linhas{resultado=cadastrado|falha}
+ * - importacao.linhas.por.segundo (soma das importações em andamento)
+ * - importacao.ativas
+ *
+ * Exemplo no application.properties:
+ * importacao.diretorio-checkpoint=${java.io.tmpdir}/importacoes
+ * importacao.tamanho-bloco=500
+ * importacao.maximo-falhas-relatadas=1000
+ */
+@Slf4j
+@Service
+public class ImportacaoService {
+
+    /**
+     * Formato do arquivo
+     */
+    public enum Formato {
+        NDJSON, CSV;
+
+        public static Formato de(String nome) {
+            try {
+                return valueOf(nome.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato inválido: use ndjson ou csv!");
+            }
+        }
+    }
+
+    public static final String EM_ANDAMENTO = "EM_ANDAMENTO";
+    public static final String CONCLUIDA = "CONCLUIDA";
+    public static final String FALHOU = "FALHOU";
+
+    /**
+     * O id vira nome de arquivo: só letras, números, "-" e "_"
+     */
+    private static final Pattern ID_VALIDO = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final CadastroLoteService cadastroLoteService;
+    private final ObjectReader leitorJson;
+
+    private final Path diretorioCheckpoint;
+    private final int tamanhoBloco;
+    private final int maximoFalhasRelatadas;
+
+    /**
+     * Importações EM ANDAMENTO nesta execução, por id
+     * (as terminadas ficam só no checkpoint)
+     */
+    private final Map<String, Progresso> importacoes = new ConcurrentHashMap<>();
+
+    private final Counter linhasCadastradas;
+    private final Counter linhasComFalha;
+
+    public ImportacaoService(
+            CadastroLoteService cadastroLoteService,
+            ObjectMapper objectMapper,
+            @Value("${importacao.diretorio-checkpoint:${java.io.tmpdir}/importacoes}") String diretorioCheckpoint,
+            @Value("${importacao.tamanho-bloco:500}") int tamanhoBloco,
+            @Value("${importacao.maximo-falhas-relatadas:1000}") int maximoFalhasRelatadas,
+            MeterRegistry registry
+    ) {
+        this.cadastroLoteService = cadastroLoteService;
+        this.leitorJson = objectMapper.readerFor(UsuarioRequestDTO.class);
+        this.diretorioCheckpoint = Path.of(diretorioCheckpoint);
+        this.tamanhoBloco = tamanhoBloco;
+        this.maximoFalhasRelatadas = maximoFalhasRelatadas;
+
+        this.linhasCadastradas = Counter.builder("importacao.linhas")
+                .tag("resultado", "cadastrado")
+                .register(registry);
+        this.linhasComFalha = Counter.builder("importacao.linhas")
+                .tag("resultado", "falha")
+                .register(registry);
+        Gauge.builder("importacao.linhas.por.segundo", this, ImportacaoService::linhasPorSegundoEmAndamento)
+                .register(registry);
+        Gauge.builder("importacao.ativas", this, s -> s.emAndamento().count())
+                .register(registry);
+    }
+
+    /**
+     * ====================================================================
+     * IMPORTAR
+     * ====================================================================
+     *
+     * Lê o arquivo até o fim e devolve o resultado final.
+     * Enquanto roda, o progresso pode ser consultado por outra requisição.
+     *
+     * @param id - Identificador da importação (reenviar com o mesmo id retoma)
+     * @param formato - NDJSON ou CSV
+     * @param entrada - Conteúdo do arquivo
+     * @return progresso final da importação
+     * @throws ResponseStatusException 409 - Se já houver importação com esse id rodando
+     */
+    public ProgressoImportacaoDTO importar(String id, Formato formato, InputStream entrada) throws IOException {
+        validarId(id);
+        Progresso progresso = iniciar(id);
+        log.info("Importação {} ({}) iniciada a partir da linha {}",
+                id, formato, progresso.ultimaLinhaConfirmada + 1);
+
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            Map<String, Integer> colunas = null;
+            List<CadastroLoteService.Linha> bloco = new ArrayList<>(tamanhoBloco);
+            List<FalhaLoteDTO> falhasDeLeitura = new ArrayList<>();
+            long lidasNoBloco = 0;
+            long numero = 0;
+            String texto;
+
+            while ((texto = leitor.readLine()) != null) {
+                numero++;
+                if (numero == 1) {
+                    texto = removerBom(texto);
+                }
+
+                // CSV: a primeira linha é o cabeçalho (lida mesmo ao retomar)
+                if (formato == Formato.CSV && colunas == null) {
+                    colunas = lerCabecalho(texto);
+                    continue;
+                }
+
+                // Já importada numa execução anterior (checkpoint)
+                if (numero <= progresso.ultimaLinhaConfirmada || texto.isBlank()) {
+                    continue;
+                }
+
+                lidasNoBloco++;
+                try {
+                    UsuarioRequestDTO dto = formato == Formato.CSV
+                            ? converterCsv(texto, colunas)
+                            : leitorJson.readValue(texto);
+                    bloco.add(new CadastroLoteService.Linha(numero, dto));
+                } catch (IOException | RuntimeException e) {
+                    falhasDeLeitura.add(new FalhaLoteDTO(numero, null, "Linha inválida: " + e.getMessage()));
+                }
+
+                if (bloco.size() >= tamanhoBloco) {
+                    confirmar(progresso, bloco, falhasDeLeitura, lidasNoBloco, numero);
+                    bloco.clear();
+                    falhasDeLeitura.clear();
+                    lidasNoBloco = 0;
+                }
+            }
+
+            confirmar(progresso, bloco, falhasDeLeitura, lidasNoBloco, numero);
+            progresso.finalizar(CONCLUIDA);
+            gravarCheckpoint(progresso);
+        } catch (IOException | RuntimeException e) {
+            progresso.finalizar(FALHOU);
+            log.warn("Importação {} interrompida na linha {}: {}",
+                    id, progresso.ultimaLinhaConfirmada, e.getMessage());
+            try {
+                gravarCheckpoint(progresso);
+            } catch (IOException falhaCheckpoint) {
+                log.warn("Importação {}: não foi possível gravar o status FALHOU no checkpoint", id, falhaCheckpoint);
+            }
+            throw e;
+        } finally {
+            importacoes.remove(id, progresso);
+        }
+
+        log.info("Importação {} concluída: {} cadastrados, {} falhas ({} linhas/s)",
+                id, progresso.cadastrados, progresso.falhas, Math.round(progresso.linhasPorSegundo()));
+        return progresso.paraDTO();
+    }
+
+    /**
+     * ====================================================================
+     * CONSULTAR PROGRESSO
+     * ====================================================================
+     *
+     * Procura primeiro nas importações em andamento; se não achar, no
+     * arquivo de checkpoint (importações terminadas, desta execução ou
+     * de execuções anteriores).
+     *
+     * @throws ResponseStatusException 404 - Se a importação não existir
+     */
+    public ProgressoImportacaoDTO buscarProgresso(String id) {
+        validarId(id);
+        Progresso progresso = importacoes.get(id);
+        if (progresso == null) {
+            progresso = lerCheckpoint(id);
+        }
+        if (progresso == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Importação não encontrada!");
+        }
+        return progresso.paraDTO();
+    }
+
+    /**
+     * Registra a importação como em andamento
+     * (retomando do checkpoint, se existir)
+     */
+    private Progresso iniciar(String id) {
+        return importacoes.compute(id, (chave, atual) -> {
+            if (atual != null && EM_ANDAMENTO.equals(atual.status)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Importação já em andamento!");
+            }
+            Progresso progresso = lerCheckpoint(id);
+            if (progresso == null) {
+                progresso = new Progresso(id);
+            }
+            progresso.iniciar();
+            return progresso;
+        });
+    }
+
+    /**
+     * Grava o bloco no banco, soma os contadores e salva o checkpoint
+     *
+     * Os contadores só mudam aqui, então o progresso em memória é sempre
+     * o mesmo que está (ou vai estar) no checkpoint.
+     *
+     * Resultado parcial (executor do BCrypt ocupado): só conta o que veio
+     * antes da primeira linha não processada, grava o checkpoint ali e
+     * interrompe a importação. As linhas seguintes (inclusive as inválidas)
+     * serão lidas e contadas de novo ao retomar.
+     *
+     * @throws ResponseStatusException 503 - Se parte do bloco não foi processada
+     */
+    private void confirmar(
+            Progresso progresso,
+            List<CadastroLoteService.Linha> bloco,
+            List<FalhaLoteDTO> falhasDeLeitura,
+            long lidasNoBloco,
+            long ultimaLinha
+    ) throws IOException {
+        long lidas = lidasNoBloco;
+        List<FalhaLoteDTO> falhas = new ArrayList<>(falhasDeLeitura);
+        if (!bloco.isEmpty()) {
+            ResultadoLoteDTO resultado = cadastroLoteService.cadastrarLinhas(bloco);
+            progresso.cadastrados += resultado.cadastrados();
+            linhasCadastradas.increment(resultado.cadastrados());
+            falhas.addAll(resultado.falhas());
+        }
+
+        long naoProcessadaDesde = Long.MAX_VALUE;
+        for (FalhaLoteDTO falha : falhas) {
+            if (CadastroLoteService.NAO_PROCESSADA.equals(falha.motivo())) {
+                naoProcessadaDesde = Math.min(naoProcessadaDesde, falha.linha());
+            }
+        }
+        for (FalhaLoteDTO falha : falhas) {
+            if (falha.linha() < naoProcessadaDesde) {
+                registrarFalha(progresso, falha);
+            } else {
+                lidas--;
+            }
+        }
+        progresso.linhasLidas += lidas;
+
+        if (naoProcessadaDesde != Long.MAX_VALUE) {
+            progresso.ultimaLinhaConfirmada = naoProcessadaDesde - 1;
+            gravarCheckpoint(progresso);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Servidor ocupado: importação pausada na linha " + naoProcessadaDesde
+                            + ", envie de novo com o mesmo id");
+        }
+        progresso.ultimaLinhaConfirmada = ultimaLinha;
+        gravarCheckpoint(progresso);
+    }
+
+    private void registrarFalha(Progresso progresso, FalhaLoteDTO falha) {
+        progresso.falhas++;
+        linhasComFalha.increment();
+        if (progresso.primeirasFalhas.size() < maximoFalhasRelatadas) {
+            progresso.primeirasFalhas.add(falha);
+        }
+    }
+
+    /**
+     * ====================================================================
+     * CSV
+     * ====================================================================
+     */
+    private static Map<String, Integer> lerCabecalho(String texto) {
+        List<String> nomes = dividirCsv(texto);
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < nomes.size(); i++) {
+            colunas.put(nomes.get(i).trim(), i);
+        }
+        return colunas;
+    }
+
+    private static UsuarioRequestDTO converterCsv(String texto, Map<String, Integer> colunas) {
+        List<String> campos = dividirCsv(texto);
+        String dataNascimento = campo(campos, colunas, "dataNascimento");
+
+        return new UsuarioRequestDTO(
+                campo(campos, colunas, "nomeCompleto"),
+                campo(campos, colunas, "cpf"),
+                campo(campos, colunas, "email"),
+                campo(campos, colunas, "telefone"),
+                dataNascimento == null ? null : LocalDate.parse(dataNascimento),
+                campo(campos, colunas, "endereco"),
+                campo(campos, colunas, "cidade"),
+                campo(campos, colunas, "estado"),
+                campo(campos, colunas, "cep"),
+                campo(campos, colunas, "senha")
+        );
+    }
+
+    /**
+     * Valor de uma coluna (null se a coluna não existir ou estiver vazia)
+     */
+    private static String campo(List<String> campos, Map<String, Integer> colunas, String nome) {
+        Integer indice = colunas.get(nome);
+        if (indice == null || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    /**
+     * Divide uma linha CSV nas vírgulas, respeitando campos entre aspas
+     * ("Rua A, 123") e aspas escapadas ("" vira ")
+     */
+    static List<String> dividirCsv(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    /**
+     * Alguns editores gravam um BOM (U+FEFF) no início de arquivos UTF-8
+     */
+    private static String removerBom(String texto) {
+        return texto.startsWith("\uFEFF") ? texto.substring(1) : texto;
+    }
+
+    /**
+     * ====================================================================
+     * CHECKPOINT
+     * ====================================================================
+     *
+     * Um arquivo .properties por importação. A gravação é atômica:
+     * escreve num arquivo temporário e depois renomeia, para nunca deixar
+     * um checkpoint pela metade.
+     *
+     * Além dos contadores, guarda as primeiras falhas (falha.N.linha,
+     * falha.N.email, falha.N.motivo) e, no fim, as linhas por segundo:
+     * a consulta de uma importação terminada lê tudo daqui.
+     */
+    private void gravarCheckpoint(Progresso progresso) throws IOException {
+        Properties dados = new Properties();
+        dados.setProperty("status", progresso.status);
+        dados.setProperty("ultimaLinhaConfirmada", String.valueOf(progresso.ultimaLinhaConfirmada));
+        dados.setProperty("linhasLidas", String.valueOf(progresso.linhasLidas));
+        dados.setProperty("cadastrados", String.valueOf(progresso.cadastrados));
+        dados.setProperty("falhas", String.valueOf(progresso.falhas));
+        if (!EM_ANDAMENTO.equals(progresso.status)) {
+            dados.setProperty("linhasPorSegundo", String.valueOf(progresso.linhasPorSegundo()));
+        }
+        int indice = 0;
+        for (FalhaLoteDTO falha : progresso.primeirasFalhas) {
+            String prefixo = "falha." + indice++ + ".";
+            dados.setProperty(prefixo + "linha", String.valueOf(falha.linha()));
+            if (falha.email() != null) {
+                dados.setProperty(prefixo + "email", falha.email());
+            }
+            dados.setProperty(prefixo + "motivo", falha.motivo());
+        }
+
+        Files.createDirectories(diretorioCheckpoint);
+        Path arquivo = arquivoCheckpoint(progresso.id);
+        Path temporario = diretorioCheckpoint.resolve(progresso.id + ".checkpoint.tmp");
+        try (Writer escritor = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+            dados.store(escritor, "Checkpoint da importacao " + progresso.id);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return progresso salvo, ou null se não houver checkpoint
+     */
+    private Progresso lerCheckpoint(String id) {
+        Path arquivo = arquivoCheckpoint(id);
+        if (!Files.exists(arquivo)) {
+            return null;
+        }
+        Properties dados = new Properties();
+        try (Reader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            dados.load(leitor);
+        } catch (IOException e) {
+            throw new IllegalStateException("Checkpoint ilegível: " + arquivo, e);
+        }
+
+        Progresso progresso = new Progresso(id);
+        progresso.status = dados.getProperty("status", FALHOU);
+        progresso.ultimaLinhaConfirmada = Long.parseLong(dados.getProperty("ultimaLinhaConfirmada", "0"));
+        progresso.linhasLidas = Long.parseLong(dados.getProperty("linhasLidas", "0"));
+        progresso.cadastrados = Long.parseLong(dados.getProperty("cadastrados", "0"));
+        progresso.falhas = Long.parseLong(dados.getProperty("falhas", "0"));
+        progresso.linhasPorSegundoSalvas = Double.parseDouble(dados.getProperty("linhasPorSegundo", "0"));
+        for (int i = 0; dados.containsKey("falha." + i + ".linha"); i++) {
+            String prefixo = "falha." + i + ".";
+            progresso.primeirasFalhas.add(new FalhaLoteDTO(
+                    Long.parseLong(dados.getProperty(prefixo + "linha")),
+                    dados.getProperty(prefixo + "email"),
+                    dados.getProperty(prefixo + "motivo")));
+        }
+        // Um checkpoint "em andamento" no disco é de uma execução que caiu
+        if (EM_ANDAMENTO.equals(progresso.status)) {
+            progresso.status = FALHOU;
+        }
+        progresso.linhasLidasNoInicio = progresso.linhasLidas;
+        return progresso;
+    }
+
+    private Path arquivoCheckpoint(String id) {
+        return diretorioCheckpoint.resolve(id + ".checkpoint");
+    }
+
+    private static void validarId(String id) {
+        if (id == null || !ID_VALIDO.matcher(id).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Id de importação inválido: use até 64 letras, números, - ou _!");
+        }
+    }
+
+    private Stream<Progresso> emAndamento() {
+        return importacoes.values().stream().filter(p -> EM_ANDAMENTO.equals(p.status));
+    }
+
+    private double linhasPorSegundoEmAndamento() {
+        return emAndamento().mapToDouble(Progresso::linhasPorSegundo).sum();
+    }
+
+    /**
+     * Estado de uma importação.
+     * Só a thread da importação altera os campos; volatile deixa as
+     * consultas de progresso (outras threads) verem os valores atuais.
+     */
+    private static final class Progresso {
+
+        private final String id;
+        private volatile String status;
+        private volatile long linhasLidas;
+        private volatile long cadastrados;
+        private volatile long falhas;
+        private volatile long ultimaLinhaConfirmada;
+        private final List<FalhaLoteDTO> primeirasFalhas = new CopyOnWriteArrayList<>();
+
+        /**
+         * Início e fim desta execução (para calcular linhas por segundo)
+         */
+        private volatile long inicio = System.nanoTime();
+        private volatile long fim = inicio;
+        private volatile long linhasLidasNoInicio;
+
+        /**
+         * Linhas por segundo lidas do checkpoint (importação terminada)
+         */
+        private volatile double linhasPorSegundoSalvas;
+
+        private Progresso(String id) {
+            this.id = id;
+        }
+
+        private void iniciar() {
+            status = EM_ANDAMENTO;
+            linhasPorSegundoSalvas = 0;
+            inicio = System.nanoTime();
+            linhasLidasNoInicio = linhasLidas;
+        }
+
+        private void finalizar(String statusFinal) {
+            fim = System.nanoTime();
+            status = statusFinal;
+        }
+
+        private double linhasPorSegundo() {
+            if (linhasPorSegundoSalvas > 0) {
+                return linhasPorSegundoSalvas;
+            }
+            long ate = EM_ANDAMENTO.equals(status) ? System.nanoTime() : fim;
+            double segundos = (ate - inicio) / 1_000_000_000.0;
+            return segundos <= 0 ? 0 : (linhasLidas - linhasLidasNoInicio) / segundos;
+        }
+
+        private ProgressoImportacaoDTO paraDTO() {
+            return new ProgressoImportacaoDTO(id, status, linhasLidas, cadastrados, falhas,
+                    ultimaLinhaConfirmada, linhasPorSegundo(), List.copyOf(primeirasFalhas));
+        }
+    }
+}
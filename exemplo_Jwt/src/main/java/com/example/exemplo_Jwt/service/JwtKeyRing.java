@@ -0,0 +1,547 @@
+package com.example.exemplo_Jwt.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.AlgorithmParameters;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ========================================================================
+ * JWT KEY RING - CHAVEIRO DE CHAVES DE ASSINATURA
+ * ========================================================================
+ *
+ * Guarda TODAS as chaves que podem validar um token, cada uma identificada
+ * por um "kid" (key id), e indica qual delas é usada para ASSINAR novos tokens.
+ *
+ * POR QUE UM CHAVEIRO?
+ * 1. Performance: a chave Base64 é decodificada UMA vez (na inicialização
+ *    ou na rotação), e não a cada token assinado ou validado.
+ * 2. Rotação: ao trocar a chave, as antigas continuam no chaveiro.
+ *    Tokens já emitidos (com o kid antigo no header) seguem válidos até
+ *    expirarem, sem precisar reiniciar a aplicação.
+ *
+ * COMO O KID CHEGA NO TOKEN:
+ * Header do JWT: {"kid": "principal", "alg": "HS256"}
+ * Na validação, o kid do header escolhe a chave com uma busca O(1) no Map.
+ *
+ * Exemplo no application.properties:
+ * jwt.kid=principal
+ * jwt.chaves-anteriores=antiga:OUTRA_CHAVE_BASE64,outra:MAIS_UMA_BASE64
+ *
+ * ASSINATURA ASSIMÉTRICA (ES256):
+ * Com jwt.algoritmo=ES256 os tokens são assinados com uma chave PRIVADA
+ * de curva elíptica (P-256), que só esta aplicação conhece. A chave
+ * PÚBLICA correspondente é publicada em /.well-known/jwks.json, e outros
+ * serviços validam os tokens sozinhos, sem conhecer nenhum segredo.
+ *
+ * Por padrão, com ES256 a chave jwt.secret NÃO valida mais nada: quem
+ * conhece o segredo não pode continuar emitindo tokens HS256 aceitos.
+ * Durante a migração, jwt.es256.aceitar-hs256-ms mantém os segredos HS256
+ * (jwt.secret e jwt.chaves-anteriores) por uma janela depois da troca,
+ * nunca maior que jwt.expiration (nenhum token HS256 legítimo vive mais
+ * que isso). Vencida a janela, eles saem do chaveiro.
+ *
+ * As chaves EC são conferidas ao carregar: precisam ser da curva P-256,
+ * e a privada e a pública precisam formar um par.
+ *
+ * jwt.algoritmo=ES256
+ * jwt.es256.chave-privada=PKCS8_EM_BASE64
+ * jwt.es256.chave-publica=X509_EM_BASE64
+ * jwt.es256.chaves-anteriores=kid:X509_EM_BASE64
+ * jwt.es256.aceitar-hs256-ms=900000
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    /**
+     * Chave ativa inicial (a mesma jwt.secret de sempre)
+     */
+    @Value("${jwt.secret}")
+    private String chaveSecreta;
+
+    /**
+     * Identificador (kid) da chave ativa inicial
+     */
+    @Value("${jwt.kid:principal}")
+    private String kidInicial;
+
+    /**
+     * Chaves antigas que ainda devem VALIDAR tokens (mas não assinam)
+     * Formato: kid:chaveBase64,kid:chaveBase64
+     */
+    @Value("${jwt.chaves-anteriores:}")
+    private String chavesAnteriores;
+
+    /**
+     * Algoritmo dos novos tokens: HS256 (segredo compartilhado) ou ES256
+     */
+    @Value("${jwt.algoritmo:HS256}")
+    private String algoritmo;
+
+    /**
+     * Par de chaves ES256 (DER em Base64: PKCS#8 e X.509)
+     * Vazio: gera um par temporário na inicialização
+     */
+    @Value("${jwt.es256.chave-privada:}")
+    private String chavePrivadaEs256;
+
+    @Value("${jwt.es256.chave-publica:}")
+    private String chavePublicaEs256;
+
+    /**
+     * Chaves públicas ES256 antigas que ainda validam tokens (e seguem
+     * publicadas no JWKS). Formato: kid:chaveX509Base64,kid:chaveX509Base64
+     */
+    @Value("${jwt.es256.chaves-anteriores:}")
+    private String chavesPublicasAnteriores;
+
+    /**
+     * Com ES256: por quanto tempo (ms) os tokens HS256 ainda são aceitos
+     * depois da troca. 0 = recusa na hora. Limitado a jwt.expiration.
+     */
+    @Value("${jwt.es256.aceitar-hs256-ms:0}")
+    private long aceitarHs256Ms;
+
+    @Value("${jwt.expiration}")
+    private long expiracaoMs;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Parâmetros da curva P-256 (secp256r1), para conferir as chaves carregadas
+     */
+    private static final ECParameterSpec P256 = parametrosP256();
+
+    /**
+     * Até quando (epoch ms) os segredos HS256 ainda validam tokens
+     *
+     * Long.MAX_VALUE = sem prazo (modo HS256, ou já descartados).
+     */
+    private volatile long hs256AceitoAteMs = Long.MAX_VALUE;
+
+    /**
+     * Todas as chaves de validação, indexadas pelo kid
+     *
+     * ConcurrentHashMap permite ler e rotacionar ao mesmo tempo
+     * sem travar as requisições.
+     */
+    private final Map<String, Key> chaves = new ConcurrentHashMap<>();
+
+    /**
+     * Chave usada para assinar novos tokens
+     *
+     * volatile garante que todas as threads enxerguem a troca imediatamente.
+     * kid e chave ficam juntos no mesmo objeto para serem trocados de uma vez.
+     */
+    private volatile ChaveAtiva chaveAtiva;
+
+    /**
+     * Documento JWKS já montado (e o seu ETag)
+     *
+     * Só muda quando uma chave entra ou sai do chaveiro, então é montado
+     * uma vez e reaproveitado em todas as requisições ao endpoint.
+     */
+    private volatile Jwks jwks;
+
+    /**
+     * ====================================================================
+     * CARREGAR CHAVES NA INICIALIZAÇÃO
+     * ====================================================================
+     *
+     * @PostConstruct - Executado uma vez, logo depois da injeção dos @Value
+     */
+    @PostConstruct
+    void carregar() {
+        Map<String, Key> segredos = new LinkedHashMap<>();
+        for (String entrada : chavesAnteriores.split(",")) {
+            if (entrada.isBlank()) {
+                continue;
+            }
+            String[] partes = entrada.trim().split(":", 2);
+            if (partes.length != 2) {
+                throw new IllegalStateException("jwt.chaves-anteriores inválido: use kid:chaveBase64");
+            }
+            segredos.put(partes[0], decodificar(partes[1]));
+        }
+
+        switch (algoritmo) {
+            case "HS256" -> {
+                chaves.putAll(segredos);
+                rotacionar(kidInicial, chaveSecreta);
+            }
+            case "ES256" -> {
+                long janelaMs = Math.min(aceitarHs256Ms, expiracaoMs);
+                if (janelaMs > 0) {
+                    segredos.put(kidInicial, decodificar(chaveSecreta));
+                    chaves.putAll(segredos);
+                    hs256AceitoAteMs = System.currentTimeMillis() + janelaMs;
+                    log.info("Tokens HS256 aceitos por mais {} ms: kids={}", janelaMs, segredos.keySet());
+                }
+                for (String entrada : chavesPublicasAnteriores.split(",")) {
+                    if (entrada.isBlank()) {
+                        continue;
+                    }
+                    String[] partes = entrada.trim().split(":", 2);
+                    if (partes.length != 2) {
+                        throw new IllegalStateException("jwt.es256.chaves-anteriores inválido: use kid:chaveX509Base64");
+                    }
+                    chaves.put(partes[0], decodificarChavePublica(partes[1]));
+                }
+                rotacionar(carregarParEs256());
+            }
+            default -> throw new IllegalStateException("jwt.algoritmo inválido: use HS256 ou ES256");
+        }
+    }
+
+    /**
+     * ====================================================================
+     * ROTACIONAR CHAVE (sem reiniciar)
+     * ====================================================================
+     *
+     * Adiciona uma nova chave e passa a assinar os próximos tokens com ela.
+     * As chaves anteriores continuam no chaveiro para validar os tokens
+     * que ainda estão em circulação.
+     *
+     * @param kid - Identificador da nova chave
+     * @param chaveBase64 - Segredo em Base64 (mínimo 256 bits)
+     */
+    public void rotacionar(String kid, String chaveBase64) {
+        Key chave = decodificar(chaveBase64);
+        chaves.put(kid, chave);
+        hs256AceitoAteMs = Long.MAX_VALUE;
+        chaveAtiva = new ChaveAtiva(kid, chave, SignatureAlgorithm.HS256);
+        jwks = montarJwks();
+        log.info("Chave JWT ativa: kid={}", kid);
+    }
+
+    /**
+     * ====================================================================
+     * ROTACIONAR PARA UM NOVO PAR ES256
+     * ====================================================================
+     *
+     * A chave privada passa a assinar os próximos tokens e a pública entra
+     * no chaveiro (e no JWKS). O kid é o "thumbprint" da chave pública
+     * (RFC 7638): o mesmo par gera sempre o mesmo kid.
+     *
+     * @param par - Par de chaves EC na curva P-256
+     * @throws IllegalStateException se a curva não for P-256 ou as chaves não formarem um par
+     */
+    public void rotacionar(KeyPair par) {
+        validarPar(par);
+        ECPublicKey publica = (ECPublicKey) par.getPublic();
+        String kid = thumbprint(publica);
+        chaves.put(kid, publica);
+        chaveAtiva = new ChaveAtiva(kid, par.getPrivate(), SignatureAlgorithm.ES256);
+        jwks = montarJwks();
+        log.info("Chave JWT ativa: kid={} (ES256)", kid);
+    }
+
+    /**
+     * ====================================================================
+     * REMOVER CHAVE
+     * ====================================================================
+     *
+     * Tokens assinados com esta chave deixam de ser aceitos.
+     * Use depois que todos os tokens dela já expiraram.
+     *
+     * @param kid - Identificador da chave
+     */
+    public void remover(String kid) {
+        if (kid.equals(chaveAtiva.kid())) {
+            throw new IllegalStateException("Não é possível remover a chave ativa: " + kid);
+        }
+        chaves.remove(kid);
+        jwks = montarJwks();
+    }
+
+    /**
+     * Chave (e kid) usada para assinar novos tokens
+     */
+    public ChaveAtiva getChaveAtiva() {
+        return chaveAtiva;
+    }
+
+    /**
+     * ====================================================================
+     * BUSCAR CHAVE DE VALIDAÇÃO PELO KID
+     * ====================================================================
+     *
+     * Tokens emitidos antes do chaveiro não têm kid no header.
+     * Eles foram assinados com jwt.secret, então usam o kid inicial.
+     *
+     * Com ES256, o primeiro segredo HS256 pedido depois da janela de
+     * jwt.es256.aceitar-hs256-ms descarta todos eles do chaveiro.
+     *
+     * @param kid - kid do header do token (pode ser null)
+     * @return Key - Chave de validação, ou null se o kid for desconhecido
+     */
+    public Key buscarChave(String kid) {
+        Key chave = chaves.get(kid != null ? kid : kidInicial);
+        if (chave instanceof SecretKey
+                && hs256AceitoAteMs != Long.MAX_VALUE
+                && System.currentTimeMillis() >= hs256AceitoAteMs) {
+            descartarSegredosHs256();
+            return null;
+        }
+        return chave;
+    }
+
+    /**
+     * Verifica se um kid ainda está no chaveiro
+     */
+    public boolean contem(String kid) {
+        return buscarChave(kid) != null;
+    }
+
+    /**
+     * Fim da janela de migração: tira os segredos HS256 do chaveiro
+     * (eles nunca estão no JWKS, então o documento não muda)
+     */
+    private synchronized void descartarSegredosHs256() {
+        if (hs256AceitoAteMs == Long.MAX_VALUE) {
+            return;
+        }
+        chaves.values().removeIf(chave -> chave instanceof SecretKey);
+        hs256AceitoAteMs = Long.MAX_VALUE;
+        log.info("Janela de migração encerrada: tokens HS256 não são mais aceitos");
+    }
+
+    /**
+     * kids atualmente aceitos na validação
+     */
+    public Set<String> kids() {
+        return Set.copyOf(chaves.keySet());
+    }
+
+    /**
+     * 1. Decoders.BASE64.decode() - Decodifica a chave de Base64
+     * 2. Keys.hmacShaKeyFor() - Cria um objeto Key para HMAC SHA
+     */
+    private Key decodificar(String chaveBase64) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(chaveBase64));
+    }
+
+    /**
+     * ====================================================================
+     * JWKS - CHAVES PÚBLICAS PARA OUTROS SERVIÇOS
+     * ====================================================================
+     *
+     * @return documento {"keys": [...]} com as chaves ES256 do chaveiro
+     *         (segredos HS256 nunca entram) e o ETag do documento
+     */
+    public Jwks getJwks() {
+        return jwks;
+    }
+
+    private Jwks montarJwks() {
+        List<Map<String, String>> chavesPublicas = new ArrayList<>();
+        new TreeMap<>(chaves).forEach((kid, chave) -> {
+            if (chave instanceof ECPublicKey publica) {
+                Map<String, String> jwk = new LinkedHashMap<>(jwkMinimo(publica));
+                jwk.put("kid", kid);
+                jwk.put("use", "sig");
+                jwk.put("alg", "ES256");
+                chavesPublicas.add(jwk);
+            }
+        });
+        try {
+            String json = JSON.writeValueAsString(Map.of("keys", chavesPublicas));
+            return new Jwks(json, "\"" + TokenHash.sha256(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao montar o JWKS", e);
+        }
+    }
+
+    /**
+     * Membros obrigatórios de uma JWK EC, em ordem alfabética (RFC 7638)
+     */
+    private static Map<String, String> jwkMinimo(ECPublicKey chave) {
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("crv", "P-256");
+        jwk.put("kty", "EC");
+        jwk.put("x", coordenada(chave.getW().getAffineX()));
+        jwk.put("y", coordenada(chave.getW().getAffineY()));
+        return jwk;
+    }
+
+    /**
+     * Coordenada do ponto da curva em Base64 URL, sempre com 32 bytes
+     * (cabe sempre: só chaves P-256 entram no chaveiro, veja validarCurva)
+     */
+    private static String coordenada(BigInteger valor) {
+        byte[] bytes = valor.toByteArray();
+        byte[] fixo = new byte[32];
+        int copiar = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - copiar, fixo, 32 - copiar, copiar);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixo);
+    }
+
+    /**
+     * Thumbprint JWK (RFC 7638): SHA-256 da JWK mínima em JSON compacto
+     */
+    private static String thumbprint(ECPublicKey chave) {
+        try {
+            byte[] json = JSON.writeValueAsString(jwkMinimo(chave)).getBytes(StandardCharsets.UTF_8);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (JsonProcessingException | GeneralSecurityException e) {
+            throw new IllegalStateException("Falha ao calcular o kid da chave ES256", e);
+        }
+    }
+
+    /**
+     * ====================================================================
+     * CARREGAR PAR ES256
+     * ====================================================================
+     *
+     * Sem chaves configuradas, gera um par temporário: serve para
+     * desenvolvimento, mas os tokens deixam de valer ao reiniciar.
+     */
+    private KeyPair carregarParEs256() {
+        if (!chavePrivadaEs256.isBlank() && !chavePublicaEs256.isBlank()) {
+            return decodificarPar(chavePrivadaEs256, chavePublicaEs256);
+        }
+        log.warn("jwt.es256.chave-privada/chave-publica não configuradas: usando um par ES256 temporário");
+        try {
+            KeyPairGenerator gerador = KeyPairGenerator.getInstance("EC");
+            gerador.initialize(new ECGenParameterSpec("secp256r1"));
+            return gerador.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Chave ES256 inválida", e);
+        }
+    }
+
+    /**
+     * Monta (e confere) um par ES256 a partir das chaves em Base64
+     *
+     * @param chavePrivadaBase64 - PKCS#8 em Base64
+     * @param chavePublicaBase64 - X.509 em Base64
+     * @throws IllegalStateException se as chaves forem inválidas, de outra curva ou não formarem um par
+     */
+    public static KeyPair decodificarPar(String chavePrivadaBase64, String chavePublicaBase64) {
+        PrivateKey privada;
+        try {
+            privada = KeyFactory.getInstance("EC")
+                    .generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(chavePrivadaBase64)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Chave privada ES256 inválida", e);
+        }
+        KeyPair par = new KeyPair(decodificarChavePublica(chavePublicaBase64), privada);
+        validarPar(par);
+        return par;
+    }
+
+    private static PublicKey decodificarChavePublica(String chaveBase64) {
+        PublicKey chave;
+        try {
+            chave = KeyFactory.getInstance("EC")
+                    .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(chaveBase64)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Chave pública ES256 inválida", e);
+        }
+        validarCurva((ECKey) chave);
+        return chave;
+    }
+
+    /**
+     * ====================================================================
+     * CONFERIR O PAR ES256
+     * ====================================================================
+     *
+     * 1. As duas chaves precisam ser EC na curva P-256 (a JWK publica
+     *    "crv":"P-256" e coordenadas de 32 bytes)
+     * 2. A pública precisa validar uma assinatura feita pela privada:
+     *    um par trocado só seria percebido quando outro serviço
+     *    recusasse todos os tokens
+     */
+    private static void validarPar(KeyPair par) {
+        if (!(par.getPublic() instanceof ECPublicKey publica) || !(par.getPrivate() instanceof ECKey privada)) {
+            throw new IllegalStateException("Chave ES256 inválida: o par precisa ser de curva elíptica (EC)");
+        }
+        validarCurva(publica);
+        validarCurva(privada);
+        try {
+            byte[] amostra = new byte[32];
+            new SecureRandom().nextBytes(amostra);
+            Signature assinador = Signature.getInstance("SHA256withECDSA");
+            assinador.initSign(par.getPrivate());
+            assinador.update(amostra);
+            byte[] assinatura = assinador.sign();
+            Signature verificador = Signature.getInstance("SHA256withECDSA");
+            verificador.initVerify(publica);
+            verificador.update(amostra);
+            if (!verificador.verify(assinatura)) {
+                throw new IllegalStateException("Chave ES256 inválida: a chave pública não corresponde à privada");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Chave ES256 inválida", e);
+        }
+    }
+
+    private static void validarCurva(ECKey chave) {
+        ECParameterSpec parametros = chave.getParams();
+        if (parametros.getCurve().getField().getFieldSize() != 256
+                || !parametros.getCurve().equals(P256.getCurve())
+                || !parametros.getOrder().equals(P256.getOrder())
+                || !parametros.getGenerator().equals(P256.getGenerator())) {
+            throw new IllegalStateException("Chave ES256 inválida: a curva precisa ser P-256 (secp256r1)");
+        }
+    }
+
+    private static ECParameterSpec parametrosP256() {
+        try {
+            AlgorithmParameters parametros = AlgorithmParameters.getInstance("EC");
+            parametros.init(new ECGenParameterSpec("secp256r1"));
+            return parametros.getParameterSpec(ECParameterSpec.class);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Curva P-256 indisponível nesta JVM", e);
+        }
+    }
+
+    /**
+     * Chave (e kid) usada para assinar novos tokens, com o seu algoritmo
+     */
+    public record ChaveAtiva(String kid, Key chave, SignatureAlgorithm algoritmo) {
+    }
+
+    /**
+     * Documento JWKS pronto para servir, com o seu ETag
+     */
+    public record Jwks(String json, String etag) {
+    }
+}
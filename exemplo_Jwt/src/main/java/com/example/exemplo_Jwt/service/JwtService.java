@@ -1,17 +1,31 @@
 package com.example.exemplo_Jwt.service;
 
+import com.example.exemplo_Jwt.security.UsuarioPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 
 /**
@@ -40,23 +54,42 @@ import java.util.function.Function;
  * - Seguro: não pode ser alterado sem invalidar a assinatura
  */
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
     /**
-     * CHAVE SECRETA
+     * CHAVEIRO DE CHAVES
      *
-     * Esta chave é usada para ASSINAR e VALIDAR o token.
-     * Deve ser uma string longa e complexa (mínimo 256 bits).
+     * As chaves usadas para ASSINAR e VALIDAR o token.
+     * A chave secreta (jwt.secret) é decodificada UMA vez no JwtKeyRing,
+     * e não a cada token. Veja JwtKeyRing para rotação de chaves.
      *
-     * IMPORTANTE: Nunca compartilhe esta chave!
+     * IMPORTANTE: Nunca compartilhe estas chaves!
      * Guarde em variável de ambiente ou arquivo de configuração seguro.
+     */
+    private final JwtKeyRing keyRing;
+
+    /**
+     * CACHE DE TOKENS JÁ VERIFICADOS
      *
-     * @Value - Busca o valor do arquivo application.properties
-     * Exemplo no application.properties:
-     * jwt.secret=404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970
+     * Evita repetir a validação HMAC de um token que já foi verificado.
+     */
+    private final VerifiedTokenCache cache;
+
+    /**
+     * VERIFICAÇÃO RÁPIDA (HS256)
+     *
+     * Verifica os tokens no formato que nós emitimos sem passar pelo jjwt.
+     * Tokens em outro formato continuam indo para o parser do jjwt.
+     */
+    private final Hs256TokenCodec codec;
+
+    /**
+     * CACHE DE TOKENS REJEITADOS
+     *
+     * Um token que já falhou falha de novo sem repetir a verificação.
      */
-    @Value("${jwt.secret}")
-    private String chaveSecreta;
+    private final TokenRejeitadoCache tokensRejeitados;
 
     /**
      * TEMPO DE EXPIRAÇÃO DO TOKEN
@@ -69,6 +102,44 @@ public class JwtService {
     @Value("${jwt.expiration}")
     private Long tempoExpiracao;
 
+    /**
+     * MODO DE CLAIMS EMBUTIDAS (opcional)
+     *
+     * Quando ligado, o token carrega id, ativo, permissões e versão do
+     * usuário. O JwtAuthenticationFilter autentica direto pelas claims,
+     * sem consultar o banco a cada requisição.
+     *
+     * Exemplo no application.properties:
+     * jwt.claims-embutidas.habilitado=true
+     */
+    @Value("${jwt.claims-embutidas.habilitado:false}")
+    private boolean claimsEmbutidas;
+
+    /**
+     * NOMES DAS CLAIMS EMBUTIDAS
+     *
+     * Nomes curtos deixam o token menor (ele viaja em toda requisição)
+     */
+    public static final String CLAIM_USUARIO_ID = "uid";
+    public static final String CLAIM_ATIVO = "atv";
+    public static final String CLAIM_PERMISSOES = "aut";
+    public static final String CLAIM_VERSAO = "ver";
+
+    /**
+     * PARSER DE TOKENS
+     *
+     * O JwtParser é imutável e thread-safe, então é construído UMA vez
+     * e reutilizado em todas as validações.
+     */
+    private JwtParser parser;
+
+    @PostConstruct
+    void criarParser() {
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new ResolvedorChave())
+                .build();
+    }
+
     /**
      * ====================================================================
      * GERAR TOKEN JWT
@@ -101,6 +172,80 @@ public class JwtService {
         return criarToken(claims, email);
     }
 
+    /**
+     * ====================================================================
+     * GERAR TOKEN JWT PARA UM USUÁRIO AUTENTICADO
+     * ====================================================================
+     *
+     * Igual ao gerarToken(email), mas no modo de claims embutidas grava
+     * também os dados do usuário no token:
+     * {"uid": 1, "atv": true, "aut": ["ROLE_USER"], "ver": 0, "sub": "joao@email.com", ...}
+     *
+     * @param usuario - Usuário autenticado
+     * @return String - Token JWT gerado
+     */
+    public String gerarToken(UsuarioPrincipal usuario) {
+        Map<String, Object> claims = new HashMap<>();
+
+        if (claimsEmbutidas) {
+            claims.put(CLAIM_USUARIO_ID, usuario.getId());
+            claims.put(CLAIM_ATIVO, usuario.isAtivo());
+            claims.put(CLAIM_PERMISSOES, usuario.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .toList());
+            claims.put(CLAIM_VERSAO, usuario.getVersaoToken());
+        }
+
+        return criarToken(claims, usuario.getUsername());
+    }
+
+    /**
+     * Indica se o modo de claims embutidas está ligado
+     */
+    public boolean claimsEmbutidasHabilitadas() {
+        return claimsEmbutidas;
+    }
+
+    /**
+     * ====================================================================
+     * MONTAR USUÁRIO A PARTIR DAS CLAIMS
+     * ====================================================================
+     *
+     * Faz o caminho inverso do gerarToken(UsuarioPrincipal):
+     * lê as claims embutidas e monta o UsuarioPrincipal, sem banco.
+     *
+     * O jjwt lê números pequenos do JSON como Integer e grandes como Long,
+     * por isso a conversão passa por Number.
+     *
+     * @param token - Token já verificado
+     * @return UsuarioPrincipal, ou null se o token não tiver as claims
+     *         (ex: emitido com o modo desligado)
+     */
+    public UsuarioPrincipal principalDasClaims(VerifiedToken token) {
+        if (token.usuarioId() == VerifiedToken.AUSENTE
+                || token.versao() == VerifiedToken.AUSENTE
+                || token.ativo() == null) {
+            return null;
+        }
+
+        List<GrantedAuthority> permissoes = new ArrayList<>();
+        if (token.permissoes() != null) {
+            for (String permissao : token.permissoes()) {
+                permissoes.add(new SimpleGrantedAuthority(permissao));
+            }
+        }
+
+        return new UsuarioPrincipal(
+                token.usuarioId(),
+                null, // O nome não viaja no token
+                token.subject(),
+                null, // Sem senha: a autenticação veio do token
+                token.ativo(),
+                token.versao(),
+                permissoes
+        );
+    }
+
     /**
      * ====================================================================
      * CRIAR TOKEN (método privado)
@@ -121,12 +266,19 @@ public class JwtService {
          * 2. setSubject() - Define o "dono" do token (geralmente email ou ID)
          * 3. setIssuedAt() - Define quando o token foi criado
          * 4. setExpiration() - Define quando o token expira
-         * 5. signWith() - Assina o token com a chave secreta
-         * 6. compact() - Finaliza e retorna a string do token
+         * 5. setHeaderParam("kid") - Indica qual chave assinou o token
+         * 6. setId() - Identificador único do token (claim "jti"), usado
+         *    para revogar o token antes do exp (veja RevogacaoTokenRegistry)
+         * 7. signWith() - Assina o token com a chave ativa do chaveiro
+         * 8. compact() - Finaliza e retorna a string do token
          */
+        JwtKeyRing.ChaveAtiva chaveAtiva = keyRing.getChaveAtiva();
+
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, chaveAtiva.kid()) // kid da chave ativa
                 .setClaims(claims) // Adiciona informações extras
                 .setSubject(email) // Define o email como "subject"
+                .setId(novoJti()) // Identificador único (revogação)
 
                 /**
                  * new Date(System.currentTimeMillis())
@@ -148,14 +300,28 @@ public class JwtService {
                 /**
                  * signWith() - Assina o token
                  *
-                 * getChaveAssinatura() - Pega a chave secreta
-                 * SignatureAlgorithm.HS256 - Algoritmo de criptografia
+                 * chaveAtiva.chave() - Chave já decodificada no chaveiro
+                 * chaveAtiva.algoritmo() - HS256 (segredo) ou ES256 (chave privada),
+                 * conforme jwt.algoritmo
                  */
-                .signWith(getChaveAssinatura(), SignatureAlgorithm.HS256)
+                .signWith(chaveAtiva.chave(), chaveAtiva.algoritmo())
 
                 .compact(); // Finaliza e retorna o token como String
     }
 
+    /**
+     * JTI - IDENTIFICADOR ÚNICO DO TOKEN
+     *
+     * 128 bits aleatórios em Base64 URL (22 caracteres).
+     * Não precisa ser secreto (o token é assinado), só único.
+     */
+    private static String novoJti() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        byte[] bytes = new byte[16];
+        aleatorio.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
     /**
      * ====================================================================
      * EXTRAIR EMAIL DO TOKEN
@@ -227,6 +393,83 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * ====================================================================
+     * VERIFICAR TOKEN (PARSE ÚNICO)
+     * ====================================================================
+     *
+     * Decodifica e valida o token UMA ÚNICA VEZ e devolve todas as
+     * informações juntas em um VerifiedToken.
+     *
+     * Prefira este método quando precisar de mais de uma informação do
+     * token (ex: email E expiração). Chamar extrairEmail() e depois
+     * extrairExpiracao() faz o parse e a validação da assinatura duas vezes.
+     *
+     * Tokens malformados, com assinatura inválida ou expirados lançam
+     * TokenInvalidoException (sem stack trace) com o motivo.
+     *
+     * CAMINHO RÁPIDO:
+     * Primeiro tenta o Hs256TokenCodec, que verifica os nossos tokens HS256
+     * sem montar os objetos do jjwt. Se ele não reconhecer o formato
+     * (devolve null), o jjwt faz a verificação completa.
+     *
+     * CACHE:
+     * O resultado fica guardado no VerifiedTokenCache até o token expirar.
+     * Um acerto no cache só é aceito se a chave que assinou o token
+     * (kid) ainda estiver no chaveiro: remover uma chave invalida os
+     * tokens dela mesmo que estejam no cache.
+     *
+     * Os tokens REJEITADOS também ficam guardados por pouco tempo
+     * (TokenRejeitadoCache): o mesmo token falso repetido por um bot é
+     * recusado sem decodificar nada.
+     *
+     * @param token - Token JWT
+     * @return VerifiedToken - Subject, expiração, emissão e claims do token
+     * @throws TokenInvalidoException - Token malformado, com assinatura
+     *                                  inválida, expirado ou não suportado
+     */
+    public VerifiedToken verificarToken(String token) {
+        final String chaveCache = TokenHash.sha256(token);
+
+        VerifiedToken emCache = cache.buscar(chaveCache);
+        if (emCache != null && keyRing.contem(emCache.kid())) {
+            return emCache;
+        }
+
+        TokenInvalidoException.Motivo rejeitado = tokensRejeitados.buscar(chaveCache);
+        if (rejeitado != null) {
+            throw TokenInvalidoException.de(rejeitado);
+        }
+
+        VerifiedToken tokenVerificado;
+        try {
+            tokenVerificado = codec.verificar(token);
+            if (tokenVerificado == null) {
+                tokenVerificado = verificarComJjwt(token);
+            }
+        } catch (TokenInvalidoException e) {
+            // Rejeitado pelo codec ou pelo ResolvedorChave (já sem stack trace)
+            tokensRejeitados.guardar(chaveCache, e.getMotivo());
+            throw e;
+        } catch (JwtException | IllegalArgumentException e) {
+            TokenInvalidoException.Motivo motivo = motivo(e);
+            tokensRejeitados.guardar(chaveCache, motivo);
+            throw TokenInvalidoException.de(motivo);
+        }
+
+        cache.guardar(chaveCache, tokenVerificado);
+        return tokenVerificado;
+    }
+
+    /**
+     * Verificação completa pelo jjwt (tokens que o Hs256TokenCodec não
+     * reconhece). Lança as exceções do jjwt, traduzidas em verificarToken().
+     */
+    VerifiedToken verificarComJjwt(String token) {
+        final Jws<Claims> jws = parser.parseClaimsJws(token);
+        return VerifiedToken.deClaims(jws.getBody(), jws.getHeader().getKeyId());
+    }
+
     /**
      * ====================================================================
      * EXTRAIR TODAS AS CLAIMS DO TOKEN
@@ -239,36 +482,43 @@ public class JwtService {
      */
     private Claims extrairTodasClaims(String token) {
         /**
-         * Jwts.parserBuilder() - Cria um parser para ler o token
+         * parser - Parser criado uma vez em criarParser()
          *
-         * 1. setSigningKey() - Define a chave secreta para validar
-         * 2. build() - Constrói o parser
-         * 3. parseClaimsJws() - Decodifica e valida o token
-         * 4. getBody() - Pega o conteúdo (claims) do token
+         * 1. parseClaimsJws() - Decodifica e valida o token
+         *    (a chave é escolhida pelo kid do header, via ResolvedorChave)
+         * 2. getBody() - Pega o conteúdo (claims) do token
          */
-        return Jwts.parserBuilder()
-                .setSigningKey(getChaveAssinatura()) // Usa a mesma chave secreta
-                .build()
-                .parseClaimsJws(token) // Decodifica e valida
-                .getBody(); // Retorna o conteúdo
+        try {
+            return parser
+                    .parseClaimsJws(token) // Decodifica e valida
+                    .getBody(); // Retorna o conteúdo
+        } catch (JwtException | IllegalArgumentException e) {
+            throw TokenInvalidoException.de(motivo(e));
+        }
     }
 
     /**
      * ====================================================================
-     * VERIFICAR SE TOKEN ESTÁ EXPIRADO
+     * MOTIVO DA REJEIÇÃO
      * ====================================================================
      *
-     * @param token - Token JWT
-     * @return boolean - true se expirado, false se ainda válido
+     * Traduz a exceção do jjwt (ou do Hs256TokenCodec) para o motivo:
+     * - ExpiredJwtException -> EXPIRADO
+     * - SignatureException, chave desconhecida ou inválida -> ASSINATURA_INVALIDA
+     * - UnsupportedJwtException (ex: token sem assinatura) -> NAO_SUPORTADO
+     * - Qualquer outra (Base64, JSON, formato) -> MALFORMADO
      */
-    private Boolean tokenExpirado(String token) {
-        /**
-         * 1. extrairExpiracao(token) - Pega a data de expiração
-         * 2. before(new Date()) - Verifica se é antes da data atual
-         *
-         * Se a data de expiração for antes de agora = token expirado
-         */
-        return extrairExpiracao(token).before(new Date());
+    private static TokenInvalidoException.Motivo motivo(RuntimeException e) {
+        if (e instanceof ExpiredJwtException) {
+            return TokenInvalidoException.Motivo.EXPIRADO;
+        }
+        if (e instanceof SecurityException) {
+            return TokenInvalidoException.Motivo.ASSINATURA_INVALIDA;
+        }
+        if (e instanceof UnsupportedJwtException) {
+            return TokenInvalidoException.Motivo.NAO_SUPORTADO;
+        }
+        return TokenInvalidoException.Motivo.MALFORMADO;
     }
 
     /**
@@ -287,26 +537,35 @@ public class JwtService {
          * Token é válido se:
          * 1. O email no token é igual ao email fornecido
          * 2. O token não está expirado
+         *
+         * verificarToken() faz o parse uma única vez para as duas checagens
          */
-        final String emailToken = extrairEmail(token);
-        return (emailToken.equals(email) && !tokenExpirado(token));
+        final VerifiedToken tokenVerificado = verificarToken(token);
+        return (tokenVerificado.pertenceA(email) && !tokenVerificado.expirado());
     }
 
     /**
      * ====================================================================
-     * OBTER CHAVE DE ASSINATURA
+     * RESOLVER CHAVE DE VALIDAÇÃO PELO KID
      * ====================================================================
      *
-     * Converte a chave secreta String em um objeto Key.
+     * Chamado pelo parser durante a validação de cada token.
+     * Lê o kid do header e busca a chave no chaveiro (O(1)).
      *
-     * @return Key - Chave para assinar/validar o token
+     * O jjwt 0.11 declara o parâmetro como JwsHeader "cru" (sem <?>), e
+     * uma sobrescrita precisa repetir a mesma assinatura: o tipo cru fica
+     * só na assinatura, e o corpo usa o JwsHeader<?>.
      */
-    private Key getChaveAssinatura() {
-        /**
-         * 1. Decoders.BASE64.decode() - Decodifica a chave de Base64
-         * 2. Keys.hmacShaKeyFor() - Cria um objeto Key para HMAC SHA
-         */
-        byte[] keyBytes = Decoders.BASE64.decode(chaveSecreta);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private class ResolvedorChave extends SigningKeyResolverAdapter {
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            JwsHeader<?> cabecalho = header;
+            Key chave = keyRing.buscarChave(cabecalho.getKeyId());
+            if (chave == null) {
+                throw TokenInvalidoException.de(TokenInvalidoException.Motivo.ASSINATURA_INVALIDA);
+            }
+            return chave;
+        }
     }
 }
@@ -0,0 +1,326 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.dto.LoginResponseDTO;
+import com.example.exemplo_Jwt.entity.RefreshTokenEntity;
+import com.example.exemplo_Jwt.entity.RefreshTokenFamiliaEntity;
+import com.example.exemplo_Jwt.entity.UsuarioEntity;
+import com.example.exemplo_Jwt.repository.RefreshTokenFamiliaRepository;
+import com.example.exemplo_Jwt.repository.RefreshTokenRepository;
+import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import com.example.exemplo_Jwt.security.UsuarioPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * ========================================================================
+ * REFRESH TOKEN SERVICE - RENOVAÇÃO DO TOKEN SEM SENHA
+ * ========================================================================
+ *
+ * O PROBLEMA:
+ * Um token de acesso de longa duração (24h) demora para ser revogado e
+ * continua valendo mesmo depois de esquecido. Um token curto obrigaria
+ * o usuário a fazer login de novo toda hora, e cada login paga o custo
+ * do BCrypt.
+ *
+ * A SOLUÇÃO:
+ * - Token de acesso (JWT) curto: jwt.expiration (ex: 15 minutos)
+ * - Refresh token longo e opaco: jwt.refresh.expiracao-ms (ex: 30 dias)
+ *
+ * Quando o token de acesso expira, o cliente chama POST /usuarios/refresh
+ * com o refresh token e recebe um par novo. Sem BCrypt: só um UPDATE,
+ * a leitura da família, um INSERT e a busca do usuário (que vem do
+ * cache de segundo nível), tudo numa transação.
+ *
+ * SEGURANÇA:
+ * - O refresh token é aleatório (256 bits) e só o SHA-256 vai para o banco
+ * - Cada refresh token vale UMA vez (rotação): a renovação devolve outro
+ * - Reuso de um token já trocado revoga a família inteira (veja
+ *   RefreshTokenFamiliaEntity): um token roubado para de funcionar assim
+ *   que o dono ou o ladrão usar o outro
+ * - Usuário inativo ou removido não renova
+ *
+ * TOLERÂNCIA (jwt.refresh.tolerancia-reuso-ms):
+ * Se a resposta de uma renovação se perder, o cliente repete o pedido
+ * com o mesmo token, que já foi usado. Dentro da tolerância isso é só
+ * recusado (401), sem revogar a família; depois dela é tratado como reuso.
+ *
+ * MÉTRICA (Micrometer, em /actuator/metrics):
+ * - jwt.refresh.renovacoes{resultado=sucesso|invalido|reuso}
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+    private static final int TAMANHO_TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository repository;
+    private final RefreshTokenFamiliaRepository familiaRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final JwtService jwtService;
+
+    private final long expiracaoMs;
+    private final Duration toleranciaReuso;
+    private final int tamanhoLoteLimpeza;
+
+    private final Counter sucessos;
+    private final Counter invalidos;
+    private final Counter reusos;
+
+    public RefreshTokenService(
+            RefreshTokenRepository repository,
+            RefreshTokenFamiliaRepository familiaRepository,
+            UsuarioRepository usuarioRepository,
+            JwtService jwtService,
+            @Value("${jwt.refresh.expiracao-ms:2592000000}") long expiracaoMs,
+            @Value("${jwt.refresh.tolerancia-reuso-ms:10000}") long toleranciaReusoMs,
+            @Value("${jwt.refresh.tamanho-lote-limpeza:1000}") int tamanhoLoteLimpeza,
+            MeterRegistry registry
+    ) {
+        this.repository = repository;
+        this.familiaRepository = familiaRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.jwtService = jwtService;
+        this.expiracaoMs = expiracaoMs;
+        this.toleranciaReuso = Duration.ofMillis(toleranciaReusoMs);
+        this.tamanhoLoteLimpeza = tamanhoLoteLimpeza;
+
+        this.sucessos = Counter.builder("jwt.refresh.renovacoes")
+                .tag("resultado", "sucesso")
+                .register(registry);
+        this.invalidos = Counter.builder("jwt.refresh.renovacoes")
+                .tag("resultado", "invalido")
+                .register(registry);
+        this.reusos = Counter.builder("jwt.refresh.renovacoes")
+                .tag("resultado", "reuso")
+                .register(registry);
+    }
+
+    /**
+     * ====================================================================
+     * EMITIR REFRESH TOKEN (login)
+     * ====================================================================
+     *
+     * Começa uma nova família de rotação.
+     *
+     * @param usuarioId - ID do usuário autenticado
+     * @return refresh token (só o cliente recebe o valor, o banco guarda o hash)
+     */
+    @Transactional
+    public String emitir(Long usuarioId) {
+        LocalDateTime agora = LocalDateTime.now();
+        RefreshTokenFamiliaEntity familia = new RefreshTokenFamiliaEntity();
+        familia.setId(UUID.randomUUID().toString());
+        familia.setUsuarioId(usuarioId);
+        familia.setCriadaEm(agora);
+        familia.setExpiraEm(agora.plusNanos(expiracaoMs * 1_000_000));
+        familiaRepository.save(familia);
+
+        return emitir(usuarioId, familia.getId());
+    }
+
+    private String emitir(Long usuarioId, String familia) {
+        byte[] bytes = new byte[TAMANHO_TOKEN_BYTES];
+        ALEATORIO.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime agora = LocalDateTime.now();
+        RefreshTokenEntity entidade = new RefreshTokenEntity();
+        entidade.setHash(TokenHash.sha256(token));
+        entidade.setUsuarioId(usuarioId);
+        entidade.setFamilia(familia);
+        entidade.setCriadoEm(agora);
+        entidade.setExpiraEm(agora.plusNanos(expiracaoMs * 1_000_000));
+        repository.save(entidade);
+
+        return token;
+    }
+
+    /**
+     * ====================================================================
+     * RENOVAR (trocar o refresh token por um par novo)
+     * ====================================================================
+     *
+     * Tudo numa única transação: se qualquer passo falhar (ex: o INSERT do
+     * token novo), o token enviado volta a valer e o cliente pode repetir.
+     *
+     * 1. Consome o refresh token com um UPDATE condicional (só um pedido
+     *    simultâneo consegue usar o mesmo token; o outro espera o primeiro
+     *    terminar e recebe 0)
+     * 2. Trava a família (FOR UPDATE) e confere se não foi revogada
+     * 3. Busca o usuário pelo ID (cache de segundo nível) e confere se
+     *    ainda está ativo
+     * 4. Gera um token de acesso novo e um refresh token novo, da mesma família
+     *
+     * noRollbackFor: as recusas (401) ainda gravam o que fizeram antes,
+     * como a revogação da família por reuso.
+     *
+     * @param refreshToken - Refresh token recebido no login ou na última renovação
+     * @return LoginResponseDTO com o token de acesso e o novo refresh token
+     * @throws ResponseStatusException 401 - Token inválido, expirado, já usado,
+     *                                 de uma família revogada ou de um usuário inativo
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public LoginResponseDTO renovar(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank() || refreshToken.length() > 100) {
+            throw tokenInvalido();
+        }
+
+        String hash = TokenHash.sha256(refreshToken);
+        LocalDateTime agora = LocalDateTime.now();
+
+        if (repository.marcarUsado(hash, agora) == 0) {
+            // Não consumiu: ou não existe/expirou, ou JÁ FOI USADO (reuso)
+            RefreshTokenEntity usado = repository.findByHash(hash)
+                    .filter(token -> token.getUsadoEm() != null)
+                    .orElse(null);
+            if (usado != null && usado.getUsadoEm().plus(toleranciaReuso).isBefore(agora)) {
+                revogarPorReuso(usado);
+                throw naoAutorizado();
+            }
+            // Repetição logo após o uso (resposta perdida, duas abas): só recusa
+            throw tokenInvalido();
+        }
+
+        RefreshTokenEntity atual = repository.findByHash(hash)
+                .orElseThrow(this::tokenInvalido);
+
+        RefreshTokenFamiliaEntity familia = familiaRepository.buscarParaRenovar(atual.getFamilia())
+                .filter(f -> f.getRevogadaEm() == null)
+                .orElse(null);
+        if (familia == null) {
+            throw tokenInvalido();
+        }
+
+        UsuarioEntity usuario = usuarioRepository.findById(atual.getUsuarioId())
+                .filter(u -> Boolean.TRUE.equals(u.getAtivo()))
+                .orElse(null);
+        if (usuario == null) {
+            revogarFamilia(atual.getFamilia(), agora);
+            throw tokenInvalido();
+        }
+
+        String tokenAcesso = jwtService.gerarToken(UsuarioPrincipal.de(usuario));
+        String novoRefreshToken = emitir(usuario.getId(), familia.getId());
+        familia.setExpiraEm(agora.plusNanos(expiracaoMs * 1_000_000));
+        sucessos.increment();
+
+        return new LoginResponseDTO(
+                tokenAcesso,
+                novoRefreshToken,
+                usuario.getId(),
+                usuario.getNomeCompleto(),
+                usuario.getEmail()
+        );
+    }
+
+    /**
+     * Revoga a família de um refresh token (logout)
+     * Token desconhecido é ignorado.
+     */
+    @Transactional
+    public void revogar(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank() || refreshToken.length() > 100) {
+            return;
+        }
+        repository.findByHash(TokenHash.sha256(refreshToken))
+                .ifPresent(token -> revogarFamilia(token.getFamilia(), LocalDateTime.now()));
+    }
+
+    /**
+     * Revoga todos os refresh tokens de um usuário
+     * (ex: conta desativada ou removida)
+     */
+    @Transactional
+    public void revogarDoUsuario(Long usuarioId) {
+        repository.revogarDoUsuario(usuarioId);
+        familiaRepository.revogarDoUsuario(usuarioId, LocalDateTime.now());
+    }
+
+    /**
+     * ====================================================================
+     * LIMPEZA PERIÓDICA DOS TOKENS EXPIRADOS
+     * ====================================================================
+     *
+     * Apaga em lotes (jwt.refresh.tamanho-lote-limpeza): cada lote é um
+     * SELECT pelo índice de expira_em e um DELETE pelos IDs, em transações
+     * curtas, sem travar a tabela inteira de uma vez.
+     *
+     * Tokens usados (mas não expirados) ficam na tabela de propósito:
+     * são eles que permitem detectar o reuso. As famílias saem quando o
+     * token mais novo delas expira.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh.intervalo-limpeza-ms:3600000}")
+    public void removerExpirados() {
+        LocalDateTime agora = LocalDateTime.now();
+        int total = 0;
+        List<Long> ids;
+        do {
+            ids = repository.buscarExpirados(agora, Limit.of(tamanhoLoteLimpeza));
+            if (!ids.isEmpty()) {
+                repository.deleteAllByIdInBatch(ids);
+                total += ids.size();
+            }
+        } while (ids.size() == tamanhoLoteLimpeza);
+
+        List<String> familias;
+        do {
+            familias = familiaRepository.buscarExpiradas(agora, Limit.of(tamanhoLoteLimpeza));
+            if (!familias.isEmpty()) {
+                familiaRepository.deleteAllByIdInBatch(familias);
+            }
+        } while (familias.size() == tamanhoLoteLimpeza);
+
+        if (total > 0) {
+            log.info("Refresh tokens expirados removidos: {}", total);
+        }
+    }
+
+    private void revogarPorReuso(RefreshTokenEntity token) {
+        int revogados = revogarFamilia(token.getFamilia(), LocalDateTime.now());
+        reusos.increment();
+        log.warn("Reuso de refresh token detectado: usuarioId={}, {} token(s) da família revogados",
+                token.getUsuarioId(), revogados);
+    }
+
+    /**
+     * REVOGAR UMA FAMÍLIA
+     *
+     * Apaga os tokens e marca a família. A ordem (tokens, depois família)
+     * é a mesma em que a renovação trava as linhas (token consumido,
+     * depois família), então as duas nunca ficam esperando uma pela outra.
+     * Um token que uma renovação em andamento inserir depois do DELETE
+     * é barrado pela marca da família.
+     *
+     * @return quantidade de tokens apagados
+     */
+    private int revogarFamilia(String familia, LocalDateTime agora) {
+        int revogados = repository.revogarFamilia(familia);
+        familiaRepository.revogar(familia, agora);
+        return revogados;
+    }
+
+    private ResponseStatusException tokenInvalido() {
+        invalidos.increment();
+        return naoAutorizado();
+    }
+
+    private static ResponseStatusException naoAutorizado() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token inválido!");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.exemplo_Jwt.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * ========================================================================
+ * TOKEN HASH - IDENTIFICADOR CURTO E SEGURO DE UM TOKEN
+ * ========================================================================
+ *
+ * Calcula o SHA-256 do token para usá-lo como chave de cache.
+ *
+ * POR QUE NÃO USAR O PRÓPRIO TOKEN COMO CHAVE?
+ * - O token é uma credencial: guardar o hash evita manter tokens
+ *   inteiros em memória (ex: num heap dump)
+ * - O hash tem tamanho fixo (43 caracteres), o token pode ser bem maior
+ *
+ * O MessageDigest não é thread-safe, então cada thread reutiliza o seu
+ * (ThreadLocal), sem criar um novo a cada chamada.
+ */
+public final class TokenHash {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    });
+
+    private TokenHash() {
+    }
+
+    /**
+     * @param token - Token JWT
+     * @return SHA-256 do token em Base64 URL (sem padding)
+     */
+    public static String sha256(String token) {
+        byte[] hash = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.exemplo_Jwt.service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ========================================================================
+ * TOKEN INVÁLIDO - EXCEÇÃO SEM STACK TRACE
+ * ========================================================================
+ *
+ * Lançada pelo JwtService quando um token é rejeitado, com o MOTIVO.
+ *
+ * POR QUE SEM STACK TRACE?
+ * Montar o stack trace é a parte cara de uma exceção (percorre todas as
+ * chamadas da thread). Um bot repetindo um token falso faria isso a cada
+ * requisição, sem ninguém nunca olhar o stack trace.
+ *
+ * Por isso:
+ * - writableStackTrace = false: o stack trace não é montado
+ * - Uma instância por motivo, criada uma vez e reaproveitada
+ *   (a exceção não guarda nada da requisição, então é segura para reusar)
+ *
+ * O JwtAuthenticationFilter captura esta exceção e responde 401.
+ */
+public final class TokenInvalidoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Motivos de rejeição (também usados como tag da métrica)
+     */
+    public enum Motivo {
+        MALFORMADO,
+        ASSINATURA_INVALIDA,
+        EXPIRADO,
+        NAO_SUPORTADO,
+
+        /**
+         * Token válido, mas revogado no logout (veja RevogacaoTokenRegistry)
+         */
+        REVOGADO;
+
+        /**
+         * Valor da tag na métrica (ex: "assinatura_invalida")
+         */
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Map<Motivo, TokenInvalidoException> INSTANCIAS = new EnumMap<>(Motivo.class);
+
+    static {
+        for (Motivo motivo : Motivo.values()) {
+            INSTANCIAS.put(motivo, new TokenInvalidoException(motivo));
+        }
+    }
+
+    private final Motivo motivo;
+
+    private TokenInvalidoException(Motivo motivo) {
+        super("Token inválido: " + motivo.tag(), null, false, false);
+        this.motivo = motivo;
+    }
+
+    /**
+     * @param motivo - Motivo da rejeição
+     * @return instância compartilhada (sem stack trace) para o motivo
+     */
+    public static TokenInvalidoException de(Motivo motivo) {
+        return INSTANCIAS.get(motivo);
+    }
+
+    public Motivo getMotivo() {
+        return motivo;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.exemplo_Jwt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ========================================================================
+ * CACHE DE TOKENS REJEITADOS (cache negativo)
+ * ========================================================================
+ *
+ * O contrário do VerifiedTokenCache: guarda os tokens que FALHARAM na
+ * verificação (malformados, assinatura inválida, expirados).
+ *
+ * POR QUE?
+ * Bots costumam repetir o mesmo token falso milhares de vezes. Sem este
+ * cache, cada repetição decodifica o Base64, calcula o HMAC e lê o JSON
+ * de novo só para chegar à mesma conclusão.
+ *
+ * Com o cache, a repetição custa o SHA-256 do token (que já é calculado
+ * para o VerifiedTokenCache) e uma busca no Map.
+ *
+ * LIMITES:
+ * - Tamanho máximo (jwt.rejeitados.tamanho-maximo): um ataque com
+ *   tokens sempre diferentes não faz a memória crescer sem limite
+ * - TTL curto (jwt.rejeitados.ttl-ms): um token com kid desconhecido
+ *   volta a ser verificado logo depois, caso a chave entre no chaveiro
+ *
+ * MÉTRICAS (Micrometer, em /actuator/metrics):
+ * - jwt.tokens.rejeitados{motivo=malformado|assinatura_invalida|expirado|nao_suportado}
+ *   (toda rejeição, venha do cache ou não)
+ * - cache.gets{cache=jwt.rejeitados, result=hit|miss}
+ * - cache.size{cache=jwt.rejeitados}
+ */
+@Component
+public class TokenRejeitadoCache {
+
+    private static final String NOME_CACHE = "jwt.rejeitados";
+
+    /**
+     * Hash do token -> rejeição (motivo + até quando vale)
+     */
+    private final Map<String, Rejeicao> entradas = new ConcurrentHashMap<>();
+
+    private final boolean habilitado;
+    private final int tamanhoMaximo;
+    private final long ttlMs;
+
+    private final Map<TokenInvalidoException.Motivo, Counter> rejeicoes =
+            new EnumMap<>(TokenInvalidoException.Motivo.class);
+    private final Counter acertos;
+    private final Counter falhas;
+
+    public TokenRejeitadoCache(
+            @Value("${jwt.rejeitados.habilitado:true}") boolean habilitado,
+            @Value("${jwt.rejeitados.tamanho-maximo:10000}") int tamanhoMaximo,
+            @Value("${jwt.rejeitados.ttl-ms:60000}") long ttlMs,
+            MeterRegistry registry
+    ) {
+        this.habilitado = habilitado;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.ttlMs = ttlMs;
+
+        for (TokenInvalidoException.Motivo motivo : TokenInvalidoException.Motivo.values()) {
+            rejeicoes.put(motivo, Counter.builder("jwt.tokens.rejeitados")
+                    .tag("motivo", motivo.tag())
+                    .register(registry));
+        }
+        this.acertos = Counter.builder("cache.gets")
+                .tag("cache", NOME_CACHE).tag("result", "hit")
+                .register(registry);
+        this.falhas = Counter.builder("cache.gets")
+                .tag("cache", NOME_CACHE).tag("result", "miss")
+                .register(registry);
+        Gauge.builder("cache.size", entradas, Map::size)
+                .tag("cache", NOME_CACHE)
+                .register(registry);
+    }
+
+    /**
+     * ====================================================================
+     * BUSCAR REJEIÇÃO
+     * ====================================================================
+     *
+     * @param chave - Hash do token (TokenHash.sha256)
+     * @return motivo da rejeição anterior, ou null se o token não foi
+     *         rejeitado recentemente
+     */
+    public TokenInvalidoException.Motivo buscar(String chave) {
+        if (!habilitado) {
+            return null;
+        }
+
+        Rejeicao rejeicao = entradas.get(chave);
+        if (rejeicao == null || rejeicao.expirada(System.currentTimeMillis())) {
+            if (rejeicao != null) {
+                entradas.remove(chave, rejeicao);
+            }
+            falhas.increment();
+            return null;
+        }
+
+        acertos.increment();
+        rejeicoes.get(rejeicao.motivo()).increment();
+        return rejeicao.motivo();
+    }
+
+    /**
+     * ====================================================================
+     * GUARDAR REJEIÇÃO
+     * ====================================================================
+     *
+     * Conta a rejeição e guarda o token para as próximas tentativas.
+     *
+     * @param chave - Hash do token
+     * @param motivo - Motivo da rejeição
+     */
+    public void guardar(String chave, TokenInvalidoException.Motivo motivo) {
+        rejeicoes.get(motivo).increment();
+        if (!habilitado) {
+            return;
+        }
+        if (entradas.size() >= tamanhoMaximo) {
+            abrirEspaco();
+        }
+        entradas.put(chave, new Rejeicao(motivo, System.currentTimeMillis() + ttlMs));
+    }
+
+    /**
+     * LIMPEZA PERIÓDICA DAS REJEIÇÕES VENCIDAS
+     */
+    @Scheduled(fixedDelayString = "${jwt.rejeitados.ttl-ms:60000}")
+    public void removerExpirados() {
+        long agora = System.currentTimeMillis();
+        entradas.values().removeIf(rejeicao -> rejeicao.expirada(agora));
+    }
+
+    /**
+     * ABRIR ESPAÇO QUANDO O CACHE ENCHE
+     *
+     * Mesma regra do VerifiedTokenCache: remove as vencidas e, se ainda
+     * estiver cheio, descarta entradas até ficar com 90% da capacidade.
+     */
+    private void abrirEspaco() {
+        removerExpirados();
+
+        int alvo = (int) (tamanhoMaximo * 0.9);
+        Iterator<String> iterator = entradas.keySet().iterator();
+        while (entradas.size() > alvo && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record Rejeicao(TokenInvalidoException.Motivo motivo, long expiraEmMs) {
+
+        boolean expirada(long agora) {
+            return agora >= expiraEmMs;
+        }
+    }
+}
@@ -2,20 +2,40 @@ package com.example.exemplo_Jwt.service;
 
 import com.example.exemplo_Jwt.dto.LoginRequestDTO;
 import com.example.exemplo_Jwt.dto.LoginResponseDTO;
+import com.example.exemplo_Jwt.dto.PaginaUsuariosDTO;
 import com.example.exemplo_Jwt.dto.UsuarioRequestDTO;
 import com.example.exemplo_Jwt.dto.UsuarioResponseDTO;
 import com.example.exemplo_Jwt.dto.mapper.UsuarioMapper;
 import com.example.exemplo_Jwt.entity.UsuarioEntity;
 import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import com.example.exemplo_Jwt.security.RevogacaoTokenRegistry;
+import com.example.exemplo_Jwt.security.UserDetailsCache;
+import com.example.exemplo_Jwt.security.UsuarioPrincipal;
+import com.example.exemplo_Jwt.security.VersaoTokenRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.stream.Stream;
 
 /**
  * ========================================================================
@@ -39,25 +59,59 @@ public class UsuarioService {
     private final UsuarioMapper mapper;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final RevogacaoTokenRegistry revogacaoTokenRegistry;
     private final AuthenticationManager authenticationManager;
+    private final VersaoTokenRegistry versaoTokenRegistry;
+    private final UserDetailsCache userDetailsCache;
+    private final ObjectMapper objectMapper;
+    private final CadastroBloomFilter cadastroBloomFilter;
+
+    /**
+     * Tamanho máximo de uma página da listagem
+     */
+    private static final int LIMITE_MAXIMO = 500;
+
+    /**
+     * A cada quantos usuários a exportação envia os dados ao cliente
+     */
+    private static final int TAMANHO_BLOCO_EXPORTACAO = 500;
 
     /**
      * ====================================================================
      * CADASTRAR NOVO USUÁRIO
      * ====================================================================
+     *
+     * INSERE PRIMEIRO, PERGUNTA DEPOIS
+     *
+     * Antes eram 3 queries: existsByEmail, existsByCpf e o INSERT.
+     * Além de caro, isso tinha uma condição de corrida: dois cadastros
+     * simultâneos com o mesmo email passavam pelas duas verificações.
+     *
+     * Agora é só o INSERT. Quem garante que não há duplicados é o próprio
+     * banco, pelas constraints UNIQUE (uk_usuarios_email, uk_usuarios_cpf).
+     * Se o INSERT violar uma delas, o nome da constraint diz qual campo
+     * estava duplicado e a resposta é 409 (Conflict).
+     *
+     * PRÉ-VERIFICAÇÃO (CadastroBloomFilter):
+     * Antes do BCrypt, um filtro em memória diz se o email/CPF "com certeza
+     * é novo" (nenhuma consulta) ou "talvez exista" (confirma no banco).
+     * Assim um cadastro repetido é recusado sem gastar o BCrypt.
+     *
+     * @Transactional(propagation = NOT_SUPPORTED) - O BCrypt roda sem
+     * conexão presa; o saveAndFlush abre a própria transação só para o INSERT.
+     *
+     * @throws ResponseStatusException 409 - Email ou CPF já cadastrado
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UsuarioResponseDTO cadastrar(UsuarioRequestDTO dto) {
 
-        // VALIDAÇÃO 1: Verificar se email já existe
-        // IMPORTANTE: Usar dto.email() em vez de dto.getEmail()
-        if (repository.existsByEmail(dto.email())) {
-            throw new RuntimeException("Email já cadastrado!");
+        // PRÉ-VERIFICAÇÃO: só vai ao banco se o filtro disser "talvez"
+        if (cadastroBloomFilter.emailJaCadastrado(dto.email())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email já cadastrado!");
         }
-
-        // VALIDAÇÃO 2: Verificar se CPF já existe
-        // IMPORTANTE: Usar dto.cpf() em vez de dto.getCpf()
-        if (repository.existsByCpf(dto.cpf())) {
-            throw new RuntimeException("CPF já cadastrado!");
+        if (cadastroBloomFilter.cpfJaCadastrado(dto.cpf())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "CPF já cadastrado!");
         }
 
         // CONVERSÃO: DTO (Record) -> Entity (Classe)
@@ -68,13 +122,46 @@ public class UsuarioService {
         String senhaCriptografada = passwordEncoder.encode(dto.senha());
         usuario.setSenha(senhaCriptografada);
 
-        // SALVAR NO BANCO
-        UsuarioEntity usuarioSalvo = repository.save(usuario);
+        // SALVAR NO BANCO (uma ida ao banco: o INSERT)
+        UsuarioEntity usuarioSalvo;
+        try {
+            usuarioSalvo = repository.saveAndFlush(usuario);
+        } catch (DataIntegrityViolationException e) {
+            throw traduzirViolacao(e);
+        }
+        cadastroBloomFilter.adicionar(usuarioSalvo.getEmail(), usuarioSalvo.getCpf());
 
         // CONVERSÃO: Entity (Classe) -> DTO (Record)
         return mapper.toResponseDTO(usuarioSalvo);
     }
 
+    /**
+     * TRADUZIR VIOLAÇÃO DE CONSTRAINT
+     *
+     * Procura o nome da constraint violada na exceção do Hibernate.
+     * O banco pode devolver o nome em maiúsculas e com prefixos
+     * (ex: "PUBLIC.UK_USUARIOS_EMAIL_INDEX_4"), por isso a comparação
+     * ignora maiúsculas e usa contains.
+     */
+    static RuntimeException traduzirViolacao(DataIntegrityViolationException e) {
+        String constraint = null;
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacao) {
+                constraint = violacao.getConstraintName();
+                break;
+            }
+        }
+        String nome = constraint == null ? "" : constraint.toLowerCase(Locale.ROOT);
+
+        if (nome.contains(UsuarioEntity.UK_EMAIL)) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "Email já cadastrado!");
+        }
+        if (nome.contains(UsuarioEntity.UK_CPF)) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "CPF já cadastrado!");
+        }
+        return e;
+    }
+
     /**
      * ====================================================================
      * FAZER LOGIN - VERSÃO CORRETA COM RECORD
@@ -82,25 +169,44 @@ public class UsuarioService {
      *
      * Este é o método correto para trabalhar com LoginRequestDTO
      * e LoginResponseDTO como records.
+     *
+     * @Transactional(propagation = NOT_SUPPORTED) - Roda SEM transação.
+     *
+     * POR QUÊ?
+     * Com a transação da classe, uma conexão JDBC ficava presa durante
+     * todo o login, inclusive nas dezenas de milissegundos de CPU do
+     * BCrypt. Sem transação aqui:
+     * 1. A busca das credenciais abre e fecha sua própria transação
+     *    (UsuarioRepository.buscarCredenciaisPorEmail) e devolve a conexão
+     * 2. A comparação da senha (BCrypt) roda sem nenhuma conexão presa
+     * 3. Só se o hash precisar ser atualizado outra conexão é usada
+     *    (UsuarioRepository.atualizarSenha)
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public LoginResponseDTO login(LoginRequestDTO dto) {
 
         // AUTENTICAÇÃO
         // IMPORTANTE: Usar dto.email() e dto.senha()
-        authenticationManager.authenticate(
+        Authentication autenticacao = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         dto.email(),  // Acessa com .email() (não .getEmail())
                         dto.senha()   // Acessa com .senha() (não .getSenha())
                 )
         );
 
-        // BUSCAR USUÁRIO
-        // IMPORTANTE: Usar dto.email()
-        UsuarioEntity usuario = repository.findByEmail(dto.email())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado!"));
+        // USUÁRIO AUTENTICADO
+        // O principal é o UsuarioPrincipal carregado pelo CustomUserDetailsService
+        // durante a autenticação: já tem id, nome e email.
+        // Não é preciso buscar o usuário de novo no banco.
+        UsuarioPrincipal usuario = (UsuarioPrincipal) autenticacao.getPrincipal();
 
         // GERAR TOKEN JWT
-        String token = jwtService.gerarToken(usuario.getEmail());
+        // (no modo de claims embutidas, o token leva id, ativo e versão)
+        String token = jwtService.gerarToken(usuario);
+
+        // GERAR REFRESH TOKEN
+        // Permite renovar o token (curto) sem enviar a senha de novo
+        String refreshToken = refreshTokenService.emitir(usuario.getId());
 
         /**
          * CRIAR RECORD DE RESPOSTA
@@ -114,11 +220,15 @@ public class UsuarioService {
          * 2. Construtor customizado (4 parâmetros):
          *    new LoginResponseDTO(token, id, nome, email)
          *    Define tipo = "Bearer" automaticamente
+         *
+         * 3. Construtor customizado com refresh token (5 parâmetros):
+         *    new LoginResponseDTO(token, refreshToken, id, nome, email)
          */
 
         // OPÇÃO 1: Usar construtor customizado (RECOMENDADO)
         return new LoginResponseDTO(
                 token,                      // Token JWT
+                refreshToken,               // Refresh token
                 usuario.getId(),            // ID do usuário
                 usuario.getNomeCompleto(),  // Nome completo
                 usuario.getEmail()          // Email
@@ -137,12 +247,35 @@ public class UsuarioService {
          */
     }
 
+    /**
+     * ====================================================================
+     * LOGOUT
+     * ====================================================================
+     *
+     * Revoga o token de acesso (pelo jti, até ele expirar) e, se
+     * informado, o refresh token e toda a família dele.
+     *
+     * @param token - Token de acesso da requisição
+     * @param refreshToken - Refresh token do login (opcional)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void logout(String token, String refreshToken) {
+        VerifiedToken tokenVerificado = jwtService.verificarToken(token);
+        revogacaoTokenRegistry.revogar(tokenVerificado.jti(), tokenVerificado.expiracaoSegundos());
+        refreshTokenService.revogar(refreshToken);
+    }
+
     /**
      * ====================================================================
      * BUSCAR USUÁRIO POR ID
      * ====================================================================
      */
+    @Transactional(readOnly = true)
     public UsuarioResponseDTO buscarPorId(Long id) {
+        /**
+         * findById passa pelo cache de segundo nível do Hibernate:
+         * se o usuário já foi carregado, não vai ao banco
+         */
         UsuarioEntity usuario = repository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado!"));
 
@@ -151,22 +284,103 @@ public class UsuarioService {
 
     /**
      * ====================================================================
-     * LISTAR TODOS OS USUÁRIOS
+     * LISTAR USUÁRIOS (PAGINADO POR CURSOR)
      * ====================================================================
+     *
+     * Devolve uma página de usuários em ordem de ID.
+     *
+     * O cursor guarda o ID do último usuário da página anterior.
+     * A próxima página é "WHERE id > cursor", então o custo de cada
+     * página é o mesmo, não importa o quão longe na lista ela esteja.
+     *
+     * @param cursor - Cursor recebido na página anterior (null = primeira página)
+     * @param limite - Quantidade de usuários por página (máximo LIMITE_MAXIMO)
+     * @return PaginaUsuariosDTO - Usuários da página + cursor da próxima
      */
-    public List<UsuarioResponseDTO> listarTodos() {
+    @Transactional(readOnly = true)
+    public PaginaUsuariosDTO listarTodos(String cursor, int limite) {
+        long ultimoId = decodificarCursor(cursor);
+        int tamanho = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+
         /**
-         * Stream + Map + Collect
-         *
-         * 1. findAll() - Busca todas as entities
-         * 2. stream() - Cria fluxo de dados
-         * 3. map() - Transforma cada Entity em Record (DTO)
-         * 4. collect() - Coleta tudo em uma lista
+         * Busca UM registro a mais que o tamanho da página:
+         * se ele vier, existe próxima página.
          */
-        return repository.findAll()
-                .stream()
-                .map(mapper::toResponseDTO)  // Converte Entity -> Record
-                .collect(Collectors.toList());
+        List<UsuarioResponseDTO> pagina = repository.buscarPaginaResposta(
+                ultimoId, Limit.of(tamanho + 1));
+
+        boolean temProxima = pagina.size() > tamanho;
+        if (temProxima) {
+            pagina = pagina.subList(0, tamanho);
+        }
+
+        String proximoCursor = temProxima
+                ? codificarCursor(pagina.get(pagina.size() - 1).id())
+                : null;
+
+        return new PaginaUsuariosDTO(pagina, proximoCursor);
+    }
+
+    /**
+     * ====================================================================
+     * EXPORTAR TODOS OS USUÁRIOS (NDJSON)
+     * ====================================================================
+     *
+     * Escreve todos os usuários na saída, UM POR LINHA, em JSON
+     * (formato NDJSON: "newline delimited JSON").
+     *
+     * POR QUE NÃO USAR listarTodos()?
+     * Montar uma List com todos os usuários coloca a tabela inteira na
+     * memória. Aqui cada usuário é lido, escrito e descartado:
+     * o uso de memória é o mesmo para 100 ou 10 milhões de usuários.
+     *
+     * A query já devolve UsuarioResponseDTO (sem entity), então nada se
+     * acumula no contexto de persistência do Hibernate.
+     *
+     * @param saida - OutputStream da resposta HTTP
+     * @return quantidade de usuários exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportar(OutputStream saida) throws IOException {
+        long total = 0;
+        try (Stream<UsuarioResponseDTO> usuarios = repository.percorrerTodos();
+             SequenceWriter escritor = objectMapper.writerFor(UsuarioResponseDTO.class)
+                     .withRootValueSeparator("\n")
+                     .writeValues(saida)) {
+
+            Iterator<UsuarioResponseDTO> iterator = usuarios.iterator();
+            while (iterator.hasNext()) {
+                escritor.write(iterator.next());
+
+                // Envia para o cliente em blocos, sem esperar o fim
+                if (++total % TAMANHO_BLOCO_EXPORTACAO == 0) {
+                    escritor.flush();
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * CURSOR OPACO
+     *
+     * O ID vira Base64 URL para o cliente tratar o cursor como um valor
+     * opaco (e não montar cursores "na mão").
+     */
+    private String codificarCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido!");
+        }
     }
 
     /**
@@ -185,6 +399,9 @@ public class UsuarioService {
         // Salvar alterações
         UsuarioEntity atualizado = repository.save(usuario);
 
+        // Remove do cache de autenticação (depois do commit)
+        userDetailsCache.invalidar(usuario.getEmail());
+
         // Retornar Record de resposta
         return mapper.toResponseDTO(atualizado);
     }
@@ -200,7 +417,17 @@ public class UsuarioService {
 
         // Marca como inativo (soft delete)
         usuario.setAtivo(false);
+
+        // Invalida os tokens já emitidos com "atv": true nas claims
+        usuario.setVersaoToken(usuario.getVersaoToken() + 1);
         repository.save(usuario);
+        versaoTokenRegistry.registrar(usuario.getId(), usuario.getVersaoToken());
+
+        // Usuário inativo não renova mais o token
+        refreshTokenService.revogarDoUsuario(usuario.getId());
+
+        // Usuário inativo perde o acesso na hora, sem esperar o TTL do cache
+        userDetailsCache.invalidar(usuario.getEmail());
     }
 
     /**
@@ -209,10 +436,14 @@ public class UsuarioService {
      * ====================================================================
      */
     public void deletarPermanentemente(Long id) {
-        if (!repository.existsById(id)) {
-            throw new RuntimeException("Usuário não encontrado!");
-        }
+        // Busca (em vez de existsById) para saber o email a invalidar no cache
+        UsuarioEntity usuario = repository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado!"));
 
-        repository.deleteById(id);
+        repository.delete(usuario);
+        refreshTokenService.revogarDoUsuario(id);
+        versaoTokenRegistry.remover(id);
+        cadastroBloomFilter.registrarRemocao();
+        userDetailsCache.invalidar(usuario.getEmail());
     }
 }
\ No newline at end of file
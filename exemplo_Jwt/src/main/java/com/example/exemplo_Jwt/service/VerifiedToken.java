@@ -0,0 +1,278 @@
+package com.example.exemplo_Jwt.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ========================================================================
+ * VERIFIED TOKEN - TOKEN JWT JÁ DECODIFICADO E VALIDADO
+ * ========================================================================
+ *
+ * Este objeto guarda o RESULTADO de uma única verificação do token.
+ *
+ * POR QUE EXISTE?
+ * Antes, cada informação (email, expiração) era extraída com um parse
+ * completo do token: decodificar Base64, validar a assinatura HMAC e
+ * ler o JSON. Numa requisição isso acontecia 3 vezes!
+ *
+ * Agora o JwtService.verificarToken() faz o parse UMA vez e devolve
+ * tudo junto neste objeto:
+ * - subject: email do usuário (dono do token)
+ * - jti: identificador único do token (veja RevogacaoTokenRegistry)
+ * - exp / iat: expiração e emissão, em segundos (epoch), como no JWT
+ * - claims embutidas (uid, ver, atv, aut) já nos tipos certos
+ * - kid: identificador da chave que assinou o token (veja JwtKeyRing)
+ *
+ * SEM ALOCAÇÕES DESNECESSÁRIAS:
+ * Datas e claims ficam em campos primitivos/tipados. O Map de claims
+ * (claims()) e os objetos Date (expiracao(), emitidoEm()) só são criados
+ * quando alguém pede, e o Hs256TokenCodec nunca pede.
+ *
+ * O objeto é imutável, então pode ser reutilizado com segurança
+ * (o VerifiedTokenCache guarda a mesma instância até o token expirar).
+ */
+public final class VerifiedToken {
+
+    /**
+     * Marca de "claim numérica ausente" nos campos primitivos
+     */
+    public static final long AUSENTE = Long.MIN_VALUE;
+
+    private final String subject;
+    private final String jti;
+    private final String kid;
+    private final long expiracaoSegundos;
+    private final long emitidoEmSegundos;
+
+    /**
+     * Claims embutidas (veja JwtService.CLAIM_*). AUSENTE / null = token sem a claim
+     */
+    private final long usuarioId;
+    private final long versao;
+    private final Boolean ativo;
+    private final List<String> permissoes;
+
+    /**
+     * Map de claims: o do jjwt (que pode ter claims extras), ou null até
+     * alguém pedir claims() num token verificado pelo Hs256TokenCodec
+     */
+    private volatile Map<String, Object> claims;
+
+    /**
+     * ====================================================================
+     * TOKEN VERIFICADO PELO HS256 TOKEN CODEC
+     * ====================================================================
+     *
+     * Todos os campos já chegam lidos do JSON, sem Map nem Date.
+     */
+    VerifiedToken(
+            String subject,
+            String jti,
+            long expiracaoSegundos,
+            long emitidoEmSegundos,
+            long usuarioId,
+            long versao,
+            Boolean ativo,
+            List<String> permissoes,
+            String kid
+    ) {
+        this.subject = subject;
+        this.jti = jti;
+        this.expiracaoSegundos = expiracaoSegundos;
+        this.emitidoEmSegundos = emitidoEmSegundos;
+        this.usuarioId = usuarioId;
+        this.versao = versao;
+        this.ativo = ativo;
+        this.permissoes = permissoes;
+        this.kid = kid;
+    }
+
+    /**
+     * ====================================================================
+     * TOKEN VERIFICADO PELO JJWT
+     * ====================================================================
+     *
+     * @param claims - Claims do jjwt (io.jsonwebtoken.Claims é um Map)
+     * @param kid - kid do header
+     */
+    public static VerifiedToken deClaims(Map<String, Object> claims, String kid) {
+        return new VerifiedToken(claims, kid);
+    }
+
+    private VerifiedToken(Map<String, Object> claims, String kid) {
+        this.subject = claims.get("sub") instanceof String sub ? sub : null;
+        this.jti = claims.get("jti") instanceof String id ? id : null;
+        this.expiracaoSegundos = segundos(claims.get("exp"));
+        this.emitidoEmSegundos = segundos(claims.get("iat"));
+        this.usuarioId = claims.get(JwtService.CLAIM_USUARIO_ID) instanceof Number uid ? uid.longValue() : AUSENTE;
+        this.versao = claims.get(JwtService.CLAIM_VERSAO) instanceof Number ver ? ver.longValue() : AUSENTE;
+        this.ativo = claims.get(JwtService.CLAIM_ATIVO) instanceof Boolean atv ? atv : null;
+        this.permissoes = claims.get(JwtService.CLAIM_PERMISSOES) instanceof Collection<?> lista ? textos(lista) : null;
+        this.claims = Collections.unmodifiableMap(claims);
+        this.kid = kid;
+    }
+
+    public String subject() {
+        return subject;
+    }
+
+    /**
+     * Identificador único do token (claim "jti")
+     *
+     * @return jti, ou null em tokens emitidos antes do jti existir
+     */
+    public String jti() {
+        return jti;
+    }
+
+    public String kid() {
+        return kid;
+    }
+
+    /**
+     * @return claim "exp" em segundos (epoch), ou AUSENTE
+     */
+    public long expiracaoSegundos() {
+        return expiracaoSegundos;
+    }
+
+    /**
+     * @return claim "iat" em segundos (epoch), ou AUSENTE
+     */
+    public long emitidoEmSegundos() {
+        return emitidoEmSegundos;
+    }
+
+    /**
+     * @return quando o token expira, ou null se não tiver "exp"
+     */
+    public Date expiracao() {
+        return expiracaoSegundos != AUSENTE ? new Date(expiracaoSegundos * 1000) : null;
+    }
+
+    /**
+     * @return quando o token foi criado, ou null se não tiver "iat"
+     */
+    public Date emitidoEm() {
+        return emitidoEmSegundos != AUSENTE ? new Date(emitidoEmSegundos * 1000) : null;
+    }
+
+    /**
+     * @return claim "uid" ou AUSENTE
+     */
+    public long usuarioId() {
+        return usuarioId;
+    }
+
+    /**
+     * @return claim "ver" ou AUSENTE
+     */
+    public long versao() {
+        return versao;
+    }
+
+    /**
+     * @return claim "atv" ou null
+     */
+    public Boolean ativo() {
+        return ativo;
+    }
+
+    /**
+     * @return claim "aut" ou null
+     */
+    public List<String> permissoes() {
+        return permissoes;
+    }
+
+    /**
+     * Verifica se o token pertence ao email informado
+     *
+     * @param email - Email do usuário
+     * @return true se o subject do token for o email
+     */
+    public boolean pertenceA(String email) {
+        return subject != null && subject.equals(email);
+    }
+
+    /**
+     * Verifica se o token já expirou
+     *
+     * @return true se a data de expiração for antes de agora
+     */
+    public boolean expirado() {
+        return expiracaoSegundos != AUSENTE && expiracaoSegundos * 1000 < System.currentTimeMillis();
+    }
+
+    /**
+     * Busca uma claim pelo nome
+     *
+     * @param nome - Nome da claim (ex: "role")
+     * @return valor da claim, ou null se não existir
+     */
+    public Object claim(String nome) {
+        return claims().get(nome);
+    }
+
+    /**
+     * ====================================================================
+     * TODAS AS CLAIMS (montadas sob demanda)
+     * ====================================================================
+     *
+     * Mesmo conteúdo (e mesmos tipos) que o jjwt devolveria: números que
+     * cabem em int viram Integer, os outros Long, como faz o Jackson.
+     */
+    public Map<String, Object> claims() {
+        Map<String, Object> mapa = claims;
+        if (mapa == null) {
+            mapa = new HashMap<>(8);
+            mapa.put("sub", subject);
+            colocarNumero(mapa, "exp", expiracaoSegundos);
+            colocarNumero(mapa, "iat", emitidoEmSegundos);
+            if (jti != null) {
+                mapa.put("jti", jti);
+            }
+            colocarNumero(mapa, JwtService.CLAIM_USUARIO_ID, usuarioId);
+            colocarNumero(mapa, JwtService.CLAIM_VERSAO, versao);
+            if (ativo != null) {
+                mapa.put(JwtService.CLAIM_ATIVO, ativo);
+            }
+            if (permissoes != null) {
+                mapa.put(JwtService.CLAIM_PERMISSOES, permissoes);
+            }
+            mapa = Collections.unmodifiableMap(mapa);
+            claims = mapa;
+        }
+        return mapa;
+    }
+
+    private static void colocarNumero(Map<String, Object> mapa, String nome, long valor) {
+        if (valor == AUSENTE) {
+            return;
+        }
+        mapa.put(nome, valor == (int) valor ? (Object) (int) valor : (Object) valor);
+    }
+
+    private static long segundos(Object valor) {
+        if (valor instanceof Number numero) {
+            return numero.longValue();
+        }
+        if (valor instanceof Date data) {
+            return data.getTime() / 1000;
+        }
+        return AUSENTE;
+    }
+
+    private static List<String> textos(Collection<?> lista) {
+        List<String> textos = new ArrayList<>(lista.size());
+        for (Object item : lista) {
+            textos.add(String.valueOf(item));
+        }
+        return Collections.unmodifiableList(textos);
+    }
+}
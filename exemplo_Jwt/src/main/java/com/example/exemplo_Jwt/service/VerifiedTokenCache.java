@@ -0,0 +1,186 @@
+package com.example.exemplo_Jwt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ========================================================================
+ * CACHE DE TOKENS VERIFICADOS
+ * ========================================================================
+ *
+ * O mesmo token é enviado milhares de vezes durante a sua validade.
+ * Sem cache, TODA requisição repete a validação da assinatura HMAC e a
+ * leitura do JSON das claims.
+ *
+ * Com o cache:
+ * 1ª requisição: verifica o token e guarda o VerifiedToken
+ * Próximas: devolve o VerifiedToken guardado (sem HMAC, sem JSON)
+ *
+ * CHAVE DO CACHE:
+ * SHA-256 do token (veja TokenHash), nunca o token em si.
+ *
+ * QUANDO UMA ENTRADA SAI DO CACHE:
+ * - Ao chegar no "exp" do próprio token (na leitura ou na limpeza periódica)
+ * - Quando o cache enche (tamanho máximo configurável)
+ *
+ * MÉTRICAS (Micrometer, em /actuator/metrics):
+ * - cache.gets{cache=jwt.tokens, result=hit|miss}
+ * - cache.evictions{cache=jwt.tokens}
+ * - cache.size{cache=jwt.tokens}
+ *
+ * Exemplo no application.properties:
+ * jwt.cache.habilitado=true
+ * jwt.cache.tamanho-maximo=10000
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final String NOME_CACHE = "jwt.tokens";
+
+    private final Map<String, VerifiedToken> entradas = new ConcurrentHashMap<>();
+
+    private final boolean habilitado;
+    private final int tamanhoMaximo;
+
+    private final Counter acertos;
+    private final Counter falhas;
+    private final Counter remocoes;
+
+    public VerifiedTokenCache(
+            @Value("${jwt.cache.habilitado:true}") boolean habilitado,
+            @Value("${jwt.cache.tamanho-maximo:10000}") int tamanhoMaximo,
+            MeterRegistry registry
+    ) {
+        this.habilitado = habilitado;
+        this.tamanhoMaximo = tamanhoMaximo;
+
+        this.acertos = Counter.builder("cache.gets")
+                .tag("cache", NOME_CACHE).tag("result", "hit")
+                .register(registry);
+        this.falhas = Counter.builder("cache.gets")
+                .tag("cache", NOME_CACHE).tag("result", "miss")
+                .register(registry);
+        this.remocoes = Counter.builder("cache.evictions")
+                .tag("cache", NOME_CACHE)
+                .register(registry);
+        Gauge.builder("cache.size", entradas, Map::size)
+                .tag("cache", NOME_CACHE)
+                .register(registry);
+    }
+
+    /**
+     * ====================================================================
+     * BUSCAR TOKEN NO CACHE
+     * ====================================================================
+     *
+     * @param chave - Hash do token (TokenHash.sha256)
+     * @return VerifiedToken guardado, ou null se não estiver no cache
+     *         (ou se já tiver expirado)
+     */
+    public VerifiedToken buscar(String chave) {
+        if (!habilitado) {
+            return null;
+        }
+
+        VerifiedToken token = entradas.get(chave);
+        if (token == null) {
+            falhas.increment();
+            return null;
+        }
+
+        /**
+         * Token expirou enquanto estava no cache:
+         * remove e trata como "não encontrado".
+         * A validação completa vai rejeitá-lo (TokenInvalidoException, EXPIRADO).
+         */
+        if (token.expirado()) {
+            if (entradas.remove(chave, token)) {
+                remocoes.increment();
+            }
+            falhas.increment();
+            return null;
+        }
+
+        acertos.increment();
+        return token;
+    }
+
+    /**
+     * ====================================================================
+     * GUARDAR TOKEN NO CACHE
+     * ====================================================================
+     *
+     * Se o cache estiver cheio, abre espaço antes de inserir.
+     *
+     * @param chave - Hash do token
+     * @param token - Token já verificado
+     */
+    public void guardar(String chave, VerifiedToken token) {
+        if (!habilitado || token.expiracaoSegundos() == VerifiedToken.AUSENTE) {
+            return;
+        }
+        if (entradas.size() >= tamanhoMaximo) {
+            abrirEspaco();
+        }
+        entradas.put(chave, token);
+    }
+
+    /**
+     * Remove um token específico do cache
+     */
+    public void remover(String chave) {
+        if (entradas.remove(chave) != null) {
+            remocoes.increment();
+        }
+    }
+
+    /**
+     * ====================================================================
+     * LIMPEZA PERIÓDICA DE TOKENS EXPIRADOS
+     * ====================================================================
+     *
+     * Tokens que não são mais usados não passam pelo buscar(),
+     * então esta tarefa remove os que já expiraram.
+     */
+    @Scheduled(fixedDelayString = "${jwt.cache.intervalo-limpeza-ms:60000}")
+    public void removerExpirados() {
+        entradas.entrySet().removeIf(entrada -> {
+            boolean expirado = entrada.getValue().expirado();
+            if (expirado) {
+                remocoes.increment();
+            }
+            return expirado;
+        });
+    }
+
+    /**
+     * ABRIR ESPAÇO QUANDO O CACHE ENCHE
+     *
+     * 1. Remove primeiro os tokens expirados
+     * 2. Se ainda estiver cheio, descarta entradas até ficar com 90%
+     *    da capacidade (evita limpar a cada nova inserção)
+     *
+     * O ConcurrentHashMap não guarda ordem, então o descarte não segue
+     * LRU. Para tokens isso é aceitável: um token descartado só custa
+     * uma nova verificação no próximo uso.
+     */
+    private void abrirEspaco() {
+        removerExpirados();
+
+        int alvo = (int) (tamanhoMaximo * 0.9);
+        Iterator<String> iterator = entradas.keySet().iterator();
+        while (entradas.size() > alvo && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            remocoes.increment();
+        }
+    }
+}
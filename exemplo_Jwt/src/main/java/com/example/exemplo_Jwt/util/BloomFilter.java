@@ -0,0 +1,154 @@
+package com.example.exemplo_Jwt.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ========================================================================
+ * BLOOM FILTER
+ * ========================================================================
+ *
+ * Estrutura que responde "este valor JÁ FOI ADICIONADO?" usando pouca
+ * memória, com uma regra importante:
+ * - "NÃO"    -> com certeza nunca foi adicionado
+ * - "TALVEZ" -> pode ter sido (existe uma chance pequena de falso positivo)
+ *
+ * COMO FUNCIONA:
+ * - Um vetor de bits, todos começando em 0
+ * - Para adicionar: calcula k posições a partir do hash do valor e liga
+ *   esses k bits
+ * - Para consultar: se QUALQUER uma das k posições estiver desligada,
+ *   o valor nunca foi adicionado
+ *
+ * Não dá para REMOVER valores (outro valor pode usar os mesmos bits).
+ * Por isso quem usa precisa reconstruir o filtro de tempos em tempos.
+ *
+ * TAMANHO:
+ * Para n itens e taxa de falso positivo p:
+ * - bits   m = -n * ln(p) / (ln 2)²
+ * - hashes k = (m / n) * ln 2
+ * Exemplo: 1 milhão de emails com p = 1% ocupam ~1,2 MB.
+ *
+ * Se m passar do limite de memória, o filtro usa o limite e a taxa de
+ * falso positivo real fica maior (veja taxaFalsoPositivoEstimada()).
+ *
+ * Thread-safe: os bits ficam num AtomicLongArray (64 bits por posição).
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long totalBits;
+    private final int numeroHashes;
+    private final long capacidade;
+    private final AtomicLong itens = new AtomicLong();
+
+    /**
+     * @param capacidade - Quantidade de itens esperada
+     * @param taxaFalsoPositivo - Taxa desejada (ex: 0.01 = 1%)
+     * @param memoriaMaximaBytes - Limite de memória do vetor de bits
+     */
+    public BloomFilter(long capacidade, double taxaFalsoPositivo, long memoriaMaximaBytes) {
+        if (capacidade <= 0 || taxaFalsoPositivo <= 0 || taxaFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("Capacidade e taxa de falso positivo inválidas!");
+        }
+        double ln2 = Math.log(2);
+        long bitsIdeais = (long) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (ln2 * ln2));
+        // Limites enormes (ex: Long.MAX_VALUE) estourariam em "* 8": satura
+        long bitsPermitidos = memoriaMaximaBytes > Long.MAX_VALUE / 8
+                ? Long.MAX_VALUE
+                : Math.max(64, memoriaMaximaBytes * 8);
+        long bitsUsados = Math.min(bitsIdeais, bitsPermitidos);
+
+        // Arredonda para múltiplo de 64 (um long do vetor)
+        int palavras = (int) Math.min(Integer.MAX_VALUE, (bitsUsados + 63) / 64);
+
+        this.bits = new AtomicLongArray(palavras);
+        this.totalBits = (long) palavras * 64;
+        this.numeroHashes = Math.max(1, (int) Math.round((double) totalBits / capacidade * ln2));
+        this.capacidade = capacidade;
+    }
+
+    /**
+     * Adiciona um valor ao filtro
+     */
+    public void adicionar(CharSequence valor) {
+        long hash = hash(valor);
+        long h1 = misturar(hash);
+        long h2 = misturar(hash ^ 0x9E3779B97F4A7C15L) | 1;
+
+        for (int i = 0; i < numeroHashes; i++) {
+            long posicao = Math.floorMod(h1 + i * h2, totalBits);
+            long mascara = 1L << posicao;
+            bits.getAndAccumulate((int) (posicao >>> 6), mascara, (atual, m) -> atual | m);
+        }
+        itens.incrementAndGet();
+    }
+
+    /**
+     * Consulta um valor
+     *
+     * @return false = com certeza NÃO foi adicionado; true = talvez tenha sido
+     */
+    public boolean talvezContenha(CharSequence valor) {
+        long hash = hash(valor);
+        long h1 = misturar(hash);
+        long h2 = misturar(hash ^ 0x9E3779B97F4A7C15L) | 1;
+
+        for (int i = 0; i < numeroHashes; i++) {
+            long posicao = Math.floorMod(h1 + i * h2, totalBits);
+            if ((bits.get((int) (posicao >>> 6)) & (1L << posicao)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Taxa de falso positivo esperada com os itens já adicionados:
+     * (1 - e^(-k * n / m))^k
+     */
+    public double taxaFalsoPositivoEstimada() {
+        double expoente = -numeroHashes * (double) itens.get() / totalBits;
+        return Math.pow(1 - Math.exp(expoente), numeroHashes);
+    }
+
+    /**
+     * Quantidade de adições (valores repetidos contam de novo)
+     */
+    public long getItens() {
+        return itens.get();
+    }
+
+    public long getCapacidade() {
+        return capacidade;
+    }
+
+    public long getTamanhoEmBytes() {
+        return totalBits / 8;
+    }
+
+    public int getNumeroHashes() {
+        return numeroHashes;
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre os caracteres do valor
+     */
+    private static long hash(CharSequence valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            hash ^= valor.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Finalizador do SplitMix64: espalha bem os bits do hash
+     */
+    private static long misturar(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
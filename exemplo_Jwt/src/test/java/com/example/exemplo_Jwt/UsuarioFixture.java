@@ -0,0 +1,31 @@
+package com.example.exemplo_Jwt;
+
+import com.example.exemplo_Jwt.dto.LoginRequestDTO;
+import com.example.exemplo_Jwt.dto.LoginResponseDTO;
+import com.example.exemplo_Jwt.dto.UsuarioRequestDTO;
+import com.example.exemplo_Jwt.service.UsuarioService;
+
+import java.time.LocalDate;
+
+/**
+ * Usuário de teste compartilhado pelos testes que precisam de alguém
+ * cadastrado e logado. Email e CPF são únicos por teste (o banco H2 é o
+ * mesmo para todas as classes que dividem o contexto do Spring).
+ */
+public final class UsuarioFixture {
+
+    public static final String SENHA = "senha123";
+
+    private UsuarioFixture() {
+    }
+
+    public static UsuarioRequestDTO usuario(String email, String cpf) {
+        return new UsuarioRequestDTO("Usuario Teste", cpf, email, "11999998888",
+                LocalDate.of(1990, 1, 1), "Rua Teste, 1", "São Paulo", "SP", "01001000", SENHA);
+    }
+
+    public static LoginResponseDTO cadastrarELogar(UsuarioService usuarioService, String email, String cpf) {
+        usuarioService.cadastrar(usuario(email, cpf));
+        return usuarioService.login(new LoginRequestDTO(email, SENHA));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.exemplo_Jwt.config;
+
+import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Réplica de leitura ligada: os dois pools são beans (com as propriedades
+ * hikari de cada um e métricas próprias) e transações readOnly usam a réplica.
+ */
+@SpringBootTest(properties = {
+        "seguranca.bcrypt.custo=4",
+        "app.datasource.replica.habilitada=true",
+        "spring.datasource.hikari.maximum-pool-size=7",
+        "app.datasource.replica.hikari.maximum-pool-size=3"
+})
+class ReadReplicaConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("dataSourcePrimario")
+    private HikariDataSource primario;
+
+    @Autowired
+    @Qualifier("dataSourceReplica")
+    private HikariDataSource replica;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void poolsSaoBeansComAsPropriedadesDeCadaUm() {
+        assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+
+        assertThat(primario.getPoolName()).isEqualTo("primario");
+        assertThat(primario.getMaximumPoolSize()).isEqualTo(7);
+        assertThat(primario.isReadOnly()).isFalse();
+
+        assertThat(replica.getPoolName()).isEqualTo("replica");
+        assertThat(replica.getMaximumPoolSize()).isEqualTo(3);
+        assertThat(replica.isReadOnly()).isTrue();
+    }
+
+    @Test
+    void transacaoReadOnlyUsaAReplica() {
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+
+        leitura.executeWithoutResult(status -> {
+            usuarioRepository.count();
+            assertThat(replica.getHikariPoolMXBean().getActiveConnections()).isPositive();
+        });
+
+        // Cada pool publica as próprias métricas
+        assertThat(meterRegistry.find("hikaricp.connections.max").tag("pool", "replica").gauge())
+                .isNotNull()
+                .satisfies(g -> assertThat(g.value()).isEqualTo(3));
+        assertThat(meterRegistry.find("hikaricp.connections.max").tag("pool", "primario").gauge())
+                .isNotNull();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.exemplo_Jwt.controller;
+
+import com.example.exemplo_Jwt.dto.LoginRequestDTO;
+import com.example.exemplo_Jwt.dto.LoginResponseDTO;
+import com.example.exemplo_Jwt.service.JwtService;
+import com.example.exemplo_Jwt.service.TokenInvalidoException;
+import com.example.exemplo_Jwt.service.UsuarioService;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Base64;
+
+import static com.example.exemplo_Jwt.UsuarioFixture.SENHA;
+import static com.example.exemplo_Jwt.UsuarioFixture.cadastrarELogar;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Rotação pelo Actuator: tokens do kid antigo seguem válidos até a chave
+ * ser removida, e o endpoint não fica aberto para usuários comuns.
+ */
+@SpringBootTest(properties = {
+        "seguranca.bcrypt.custo=4",
+        "management.endpoints.web.exposure.include=health,metrics,chavesjwt"
+})
+@AutoConfigureMockMvc
+class ChavesJwtEndpointTest {
+
+    @Autowired
+    private ChavesJwtEndpoint endpoint;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void tokensDoKidAntigoSeguemValidosAteARemocao() throws Exception {
+        LoginResponseDTO antes = cadastrarELogar(usuarioService, "rotacao.antes@teste.com", "90011122233");
+        String kidAntigo = jwtService.verificarToken(antes.token()).kid();
+
+        endpoint.rotacionar("rotacao-nova", novoSegredo(), null, null);
+
+        LoginResponseDTO depois = usuarioService.login(new LoginRequestDTO("rotacao.antes@teste.com", SENHA));
+        assertThat(jwtService.verificarToken(depois.token()).kid()).isEqualTo("rotacao-nova");
+        assertThat(jwtService.verificarToken(antes.token()).kid()).isEqualTo(kidAntigo);
+        mockMvc.perform(get("/usuarios/{id}", antes.id())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + antes.token()))
+                .andExpect(status().isOk());
+
+        endpoint.remover(kidAntigo);
+
+        assertThatThrownBy(() -> jwtService.verificarToken(antes.token()))
+                .isInstanceOf(TokenInvalidoException.class);
+        mockMvc.perform(get("/usuarios/{id}", antes.id())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + antes.token()))
+                .andExpect(status().isUnauthorized());
+        assertThat(jwtService.verificarToken(depois.token()).pertenceA("rotacao.antes@teste.com")).isTrue();
+    }
+
+    @Test
+    void pedidosInvalidosRespondem400() {
+        String ativa = (String) endpoint.chaves().get("ativa");
+
+        assertThatThrownBy(() -> endpoint.rotacionar(ativa, novoSegredo(), null, null))
+                .isInstanceOf(InvalidEndpointRequestException.class)
+                .hasMessageContaining("já existe");
+        assertThatThrownBy(() -> endpoint.rotacionar("curta", "YWJj", null, null))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+        assertThatThrownBy(() -> endpoint.rotacionar(null, null, null, null))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+        assertThatThrownBy(() -> endpoint.remover(ativa))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+    }
+
+    @Test
+    void usuarioComumNaoAcessaOEndpoint() throws Exception {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "rotacao.usuario@teste.com", "90022233344");
+
+        mockMvc.perform(get("/actuator/chavesjwt")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + login.token()))
+                .andExpect(status().isForbidden());
+    }
+
+    private static String novoSegredo() {
+        return Base64.getEncoder().encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.exemplo_Jwt.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calibração do custo do BCrypt com tempos simulados: sobe enquanto o
+ * dobro cabe no alvo, volta um passo se a medição estourar o alvo e
+ * fica no mínimo quando nem ele cabe.
+ */
+class BCryptCalibratorTest {
+
+    @Test
+    void sobeEnquantoODobroCabeNoAlvo() {
+        // 10 -> 10 ms, 11 -> 20 ms, 12 -> 40 ms, 13 -> 80 ms
+        int custo = BCryptCalibrator.calibrar(80, 10, 16, c -> 10.0 * (1 << (c - 10)));
+
+        assertThat(custo).isEqualTo(13);
+    }
+
+    @Test
+    void medicaoAcimaDoAlvoVoltaParaOCustoAnterior() {
+        // O dobro de 30 ms prevê 60 ms, mas o custo 11 mede 95 ms
+        Map<Integer, Double> tempos = Map.of(10, 30.0, 11, 95.0);
+
+        int custo = BCryptCalibrator.calibrar(80, 10, 16, tempos::get);
+
+        assertThat(custo).isEqualTo(10);
+    }
+
+    @Test
+    void ficaNoMinimoQuandoNemEleCabe() {
+        int custo = BCryptCalibrator.calibrar(80, 10, 16, c -> 200.0);
+
+        assertThat(custo).isEqualTo(10);
+    }
+
+    @Test
+    void naoPassaDoMaximo() {
+        int custo = BCryptCalibrator.calibrar(80, 10, 12, c -> 1.0);
+
+        assertThat(custo).isEqualTo(12);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.exemplo_Jwt.security;
+
+import com.example.exemplo_Jwt.service.JwtService;
+import com.example.exemplo_Jwt.service.VerifiedToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Modo de claims embutidas no filtro JWT: com a versão do token igual à
+ * do VersaoTokenRegistry o usuário sai das claims, sem banco; com versão
+ * antiga (ou desconhecida) o filtro volta a carregar pelo UserDetailsService.
+ */
+class JwtAuthenticationFilterClaimsTest {
+
+    private static final String JWT = "token-de-teste";
+    private static final long USUARIO_ID = 42L;
+
+    private final JwtService jwtService = mock(JwtService.class);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final RevogacaoTokenRegistry revogacaoTokenRegistry = mock(RevogacaoTokenRegistry.class);
+    private final VersaoTokenRegistry versaoTokenRegistry = new VersaoTokenRegistry();
+
+    private final JwtAuthenticationFilter filtro = new JwtAuthenticationFilter(
+            jwtService, userDetailsService, versaoTokenRegistry, revogacaoTokenRegistry);
+
+    @BeforeEach
+    void setUp() {
+        when(jwtService.claimsEmbutidasHabilitadas()).thenReturn(true);
+        when(jwtService.principalDasClaims(any())).thenCallRealMethod();
+    }
+
+    @AfterEach
+    void limparContexto() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void versaoAtualAutenticaPelasClaimsSemBanco() throws Exception {
+        versaoTokenRegistry.registrar(USUARIO_ID, 3);
+        tokenCom(claimsEmbutidas(3, true));
+
+        Authentication autenticacao = filtrar();
+
+        assertThat(autenticacao).isNotNull();
+        assertThat(autenticacao.getPrincipal()).isInstanceOfSatisfying(UsuarioPrincipal.class, principal -> {
+            assertThat(principal.getId()).isEqualTo(USUARIO_ID);
+            assertThat(principal.getSenha()).isNull();
+        });
+        assertThat(autenticacao.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void versaoAntigaVoltaParaOBanco() throws Exception {
+        versaoTokenRegistry.registrar(USUARIO_ID, 4);
+        tokenCom(claimsEmbutidas(3, true));
+        UsuarioPrincipal doBanco = new UsuarioPrincipal(USUARIO_ID, "Usuario Claims", "claims@teste.com",
+                "hash", false, 4, List.of());
+        when(userDetailsService.loadUserByUsername("claims@teste.com")).thenReturn(doBanco);
+
+        // No banco o usuário foi desativado: o token antigo não autentica
+        assertThat(filtrar()).isNull();
+        verify(userDetailsService).loadUserByUsername("claims@teste.com");
+    }
+
+    @Test
+    void versaoDesconhecidaVoltaParaOBanco() throws Exception {
+        // Registry vazio (ex: aplicação reiniciada): não dá para confiar nas claims
+        tokenCom(claimsEmbutidas(3, true));
+        when(userDetailsService.loadUserByUsername("claims@teste.com")).thenReturn(new UsuarioPrincipal(
+                USUARIO_ID, "Usuario Claims", "claims@teste.com", "hash", true, 3,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+
+        assertThat(filtrar()).isNotNull();
+        verify(userDetailsService).loadUserByUsername("claims@teste.com");
+    }
+
+    @Test
+    void claimAtivoFalsoNaVersaoAtualNaoAutentica() throws Exception {
+        versaoTokenRegistry.registrar(USUARIO_ID, 3);
+        tokenCom(claimsEmbutidas(3, false));
+
+        assertThat(filtrar()).isNull();
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void tokenSemClaimsEmbutidasVaiParaOBanco() throws Exception {
+        tokenCom(new HashMap<>(Map.of(
+                "sub", "claims@teste.com",
+                "exp", System.currentTimeMillis() / 1000 + 60)));
+        when(userDetailsService.loadUserByUsername("claims@teste.com")).thenReturn(new UsuarioPrincipal(
+                USUARIO_ID, "Usuario Claims", "claims@teste.com", "hash", true, 0, List.of()));
+
+        assertThat(filtrar()).isNotNull();
+        verify(userDetailsService).loadUserByUsername("claims@teste.com");
+    }
+
+    private Authentication filtrar() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/usuarios");
+        request.addHeader("Authorization", "Bearer " + JWT);
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private void tokenCom(Map<String, Object> claims) {
+        when(jwtService.verificarToken(JWT)).thenReturn(VerifiedToken.deClaims(claims, "principal"));
+    }
+
+    private static Map<String, Object> claimsEmbutidas(long versao, boolean ativo) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", "claims@teste.com");
+        claims.put("exp", System.currentTimeMillis() / 1000 + 60);
+        claims.put(JwtService.CLAIM_USUARIO_ID, USUARIO_ID);
+        claims.put(JwtService.CLAIM_VERSAO, versao);
+        claims.put(JwtService.CLAIM_ATIVO, ativo);
+        claims.put(JwtService.CLAIM_PERMISSOES, List.of("ROLE_USER"));
+        return claims;
+    }
+}
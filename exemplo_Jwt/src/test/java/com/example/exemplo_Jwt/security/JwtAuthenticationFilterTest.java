@@ -0,0 +1,146 @@
+package com.example.exemplo_Jwt.security;
+
+import com.example.exemplo_Jwt.dto.LoginRequestDTO;
+import com.example.exemplo_Jwt.dto.LoginResponseDTO;
+import com.example.exemplo_Jwt.service.JwtKeyRing;
+import com.example.exemplo_Jwt.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.Map;
+
+import static com.example.exemplo_Jwt.UsuarioFixture.cadastrarELogar;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Garante que um token rejeitado (expirado, malformado) só gera 401 em
+ * rota protegida: as rotas públicas funcionam mesmo com o header velho.
+ * Também cobre o token revogado no logout e o logout só com o refresh token.
+ */
+@SpringBootTest(properties = "seguranca.bcrypt.custo=4")
+@AutoConfigureMockMvc
+class JwtAuthenticationFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void refreshFuncionaComTokenExpiradoNoHeader() throws Exception {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "filtro.refresh@teste.com", "44455566677");
+
+        mockMvc.perform(post("/usuarios/refresh")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenExpirado("filtro.refresh@teste.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", login.refreshToken()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andExpect(jsonPath("$.refreshToken").isNotEmpty());
+    }
+
+    @Test
+    void loginFuncionaComTokenMalformadoNoHeader() throws Exception {
+        cadastrarELogar(usuarioService, "filtro.login@teste.com", "55566677788");
+
+        mockMvc.perform(post("/usuarios/login")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer nao.e.um-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new LoginRequestDTO("filtro.login@teste.com", "senha123"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void jwksFuncionaComTokenExpiradoNoHeader() throws Exception {
+        mockMvc.perform(get("/.well-known/jwks.json")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenExpirado("qualquer@teste.com")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rotaProtegidaComTokenExpiradoResponde401() throws Exception {
+        mockMvc.perform(get("/usuarios")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenExpirado("filtro.protegida@teste.com")))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\""));
+    }
+
+    @Test
+    void rotaProtegidaSemTokenContinuaComPadrao() throws Exception {
+        mockMvc.perform(get("/usuarios"))
+                .andExpect(status().isForbidden())
+                .andExpect(header().doesNotExist(HttpHeaders.WWW_AUTHENTICATE));
+    }
+
+    @Test
+    void tokenRevogadoNoLogoutDeixaDeAutenticar() throws Exception {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "filtro.logout@teste.com", "66677788899");
+        String bearer = "Bearer " + login.token();
+
+        mockMvc.perform(get("/usuarios/{id}", login.id()).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/usuarios/logout").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/usuarios/{id}", login.id()).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\""));
+    }
+
+    @Test
+    void logoutSoComRefreshTokenDispensaOTokenDeAcesso() throws Exception {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "filtro.logout.refresh@teste.com", "77788899900");
+        String corpo = objectMapper.writeValueAsString(Map.of("refreshToken", login.refreshToken()));
+
+        mockMvc.perform(post("/usuarios/logout/refresh")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenExpirado("filtro.logout.refresh@teste.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(post("/usuarios/refresh").contentType(MediaType.APPLICATION_JSON).content(corpo))
+                .andExpect(status().isUnauthorized());
+
+        // Token desconhecido: mesma resposta, sem revelar nada
+        mockMvc.perform(post("/usuarios/logout/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", "desconhecido"))))
+                .andExpect(status().isNoContent());
+    }
+
+    /**
+     * Token assinado com a chave ativa, mas vencido há uma hora
+     */
+    private String tokenExpirado(String email) {
+        JwtKeyRing.ChaveAtiva chave = keyRing.getChaveAtiva();
+        long agora = System.currentTimeMillis();
+        return Jwts.builder()
+                .setHeaderParam("kid", chave.kid())
+                .setSubject(email)
+                .setIssuedAt(new Date(agora - 7_200_000))
+                .setExpiration(new Date(agora - 3_600_000))
+                .signWith(chave.chave(), chave.algoritmo())
+                .compact();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.exemplo_Jwt.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Fila cheia: enviar() falha na hora, enviarQuandoHouverVaga() espera
+ * uma vaga até o prazo.
+ */
+class PasswordHashExecutorTest {
+
+    private SimpleMeterRegistry registry;
+    private PasswordHashExecutor executor;
+    private CountDownLatch liberar;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        executor = new PasswordHashExecutor(1, 1, registry);
+        liberar = new CountDownLatch(1);
+
+        // Uma tarefa presa na thread e outra ocupando a única vaga da fila
+        executor.enviar(this::esperarLiberacao);
+        executor.enviar(this::esperarLiberacao);
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        executor.encerrar();
+    }
+
+    @Test
+    void enviarComFilaCheiaFalhaNaHora() {
+        assertThatThrownBy(() -> executor.enviar(() -> "hash"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("503");
+        assertThat(registry.counter("senha.hash.rejeitados").count()).isEqualTo(1);
+    }
+
+    @Test
+    void enviarQuandoHouverVagaDesisteNoPrazo() {
+        long inicio = System.nanoTime();
+
+        assertThatThrownBy(() -> executor.enviarQuandoHouverVaga(() -> "hash", 100))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("503");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isGreaterThanOrEqualTo(100);
+        assertThat(registry.counter("senha.hash.rejeitados").count()).isEqualTo(1);
+    }
+
+    @Test
+    void enviarQuandoHouverVagaEsperaAFilaAndar() throws Exception {
+        Thread liberador = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            liberar.countDown();
+        });
+        liberador.start();
+
+        Future<String> futuro = executor.enviarQuandoHouverVaga(() -> "hash", 5_000);
+
+        assertThat(futuro.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        assertThat(registry.counter("senha.hash.rejeitados").count()).isZero();
+    }
+
+    private String esperarLiberacao() throws InterruptedException {
+        liberar.await();
+        return "preso";
+    }
+}
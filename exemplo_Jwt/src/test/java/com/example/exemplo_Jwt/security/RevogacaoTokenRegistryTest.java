@@ -0,0 +1,203 @@
+package com.example.exemplo_Jwt.security;
+
+import com.example.exemplo_Jwt.service.VerifiedToken;
+import com.example.exemplo_Jwt.util.BloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vetor circular de baldes: conta do índice, limites de balde, reuso de
+ * posição vencida, excedentes além do vetor e a limpeza periódica.
+ */
+class RevogacaoTokenRegistryTest {
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void revogadoSoParaOJtiEOExpRevogados() {
+        RevogacaoTokenRegistry revogacao = registro(900_000, 60_000);
+        long exp = agora() + 300;
+
+        revogacao.revogar("revogado", exp);
+
+        assertThat(revogacao.revogado("revogado", exp)).isTrue();
+        assertThat(revogacao.revogado("outro", exp)).isFalse();
+        assertThat(revogacao.revogado(null, exp)).isFalse();
+        assertThat(revogacao.revogado("revogado", VerifiedToken.AUSENTE)).isFalse();
+        assertThat(registry.counter("jwt.revogacao.rejeitados").count()).isEqualTo(1);
+    }
+
+    @Test
+    void tokenSemJtiOuJaExpiradoNaoEhGuardado() {
+        RevogacaoTokenRegistry revogacao = registro(900_000, 60_000);
+
+        revogacao.revogar(null, agora() + 300);
+        revogacao.revogar("sem-exp", VerifiedToken.AUSENTE);
+        revogacao.revogar("expirado", agora() - 1);
+
+        assertThat(revogacao.quantidade()).isZero();
+    }
+
+    @Test
+    void tokensNosLimitesDoBaldeCaemEmBaldesVizinhos() {
+        RevogacaoTokenRegistry revogacao = registro(900_000, 60_000);
+        long limite = (agora() / 60 + 5) * 60;
+
+        revogacao.revogar("ultimo-do-balde", limite - 1);
+        revogacao.revogar("primeiro-do-proximo", limite);
+
+        assertThat(revogacao.revogado("ultimo-do-balde", limite - 1)).isTrue();
+        assertThat(revogacao.revogado("primeiro-do-proximo", limite)).isTrue();
+        // O exp escolhe o balde: o mesmo jti com o exp do balde vizinho não é achado
+        assertThat(revogacao.revogado("ultimo-do-balde", limite)).isFalse();
+        assertThat(revogacao.revogado("primeiro-do-proximo", limite - 1)).isFalse();
+        assertThat(baldesOcupados(revogacao)).isEqualTo(2);
+    }
+
+    @Test
+    void cadaJanelaAteOFimDoVetorTemSuaPosicao() {
+        // 900 s / 60 s + 2 = 17 posições
+        RevogacaoTokenRegistry revogacao = registro(900_000, 60_000);
+        int tamanho = baldes(revogacao).length();
+        assertThat(tamanho).isEqualTo(17);
+
+        long janelaAtual = agora() / 60;
+        for (int i = 1; i < tamanho; i++) {
+            revogacao.revogar("jti-" + i, (janelaAtual + i) * 60 + 30);
+        }
+
+        for (int i = 1; i < tamanho; i++) {
+            assertThat(revogacao.revogado("jti-" + i, (janelaAtual + i) * 60 + 30)).isTrue();
+        }
+        assertThat(baldesOcupados(revogacao)).isEqualTo(tamanho - 1);
+        assertThat(excedentes(revogacao)).isEmpty();
+    }
+
+    @Test
+    void expAlemDoVetorVaiParaOsExcedentes() {
+        RevogacaoTokenRegistry revogacao = registro(900_000, 60_000);
+        long alemDoVetor = (agora() / 60 + 17) * 60 + 30;
+
+        revogacao.revogar("longo", alemDoVetor);
+
+        assertThat(excedentes(revogacao)).containsEntry("longo", alemDoVetor);
+        assertThat(baldesOcupados(revogacao)).isZero();
+        assertThat(revogacao.revogado("longo", alemDoVetor)).isTrue();
+        assertThat(revogacao.quantidade()).isEqualTo(1);
+    }
+
+    @Test
+    void posicaoDeBaldeVencidoEhReaproveitada() throws InterruptedException {
+        // Baldes de 1 s e tokens de 2 s: 4 posições
+        RevogacaoTokenRegistry revogacao = registro(2_000, 1_000);
+        assertThat(baldes(revogacao).length()).isEqualTo(4);
+
+        long expAntigo = agora() + 1;
+        revogacao.revogar("antigo", expAntigo);
+        esperarPassar(expAntigo);
+
+        // Mesma posição (4 janelas depois): o balde vencido é trocado pelo novo
+        long expNovo = expAntigo + 4;
+        revogacao.revogar("novo", expNovo);
+
+        assertThat(baldesOcupados(revogacao)).isEqualTo(1);
+        assertThat(revogacao.revogado("novo", expNovo)).isTrue();
+        assertThat(revogacao.revogado("antigo", expAntigo)).isFalse();
+        assertThat(revogacao.quantidade()).isEqualTo(1);
+    }
+
+    @Test
+    void descartarExpiradosLimpaBaldesEExcedentesVencidos() throws InterruptedException {
+        RevogacaoTokenRegistry revogacao = registro(2_000, 1_000);
+        long exp = agora() + 1;
+        revogacao.revogar("no-balde", exp);
+        excedentes(revogacao).put("excedente", exp);
+        revogacao.revogar("ainda-valido", agora() + 3);
+        esperarPassar(exp);
+
+        revogacao.descartarExpirados();
+
+        assertThat(excedentes(revogacao)).isEmpty();
+        assertThat(revogacao.quantidade()).isEqualTo(1);
+        assertThat(revogacao.revogado("no-balde", exp)).isFalse();
+    }
+
+    @Test
+    void filtroDoBaldeDimensionadoPelaCapacidade() {
+        RevogacaoTokenRegistry revogacao = new RevogacaoTokenRegistry(900_000, 60_000, 1024, 0.01, 64, registry);
+        long exp = agora() + 300;
+
+        revogacao.revogar("dimensionado", exp);
+
+        // 1024 jti a 1%: ~9,8 mil bits (1232 bytes) e 7 hashes, bem abaixo de 64 KB
+        BloomFilter filtro = filtroDoBalde(revogacao, exp);
+        assertThat(filtro.getTamanhoEmBytes()).isEqualTo(1232);
+        assertThat(filtro.getNumeroHashes()).isEqualTo(7);
+    }
+
+    @Test
+    void filtroDoBaldeRespeitaOLimiteDeMemoria() {
+        RevogacaoTokenRegistry revogacao = new RevogacaoTokenRegistry(900_000, 60_000, 100_000, 0.01, 1, registry);
+        long exp = agora() + 300;
+
+        revogacao.revogar("limitado", exp);
+
+        assertThat(filtroDoBalde(revogacao, exp).getTamanhoEmBytes()).isEqualTo(1024);
+    }
+
+    private RevogacaoTokenRegistry registro(long expiracaoMs, long larguraBaldeMs) {
+        return new RevogacaoTokenRegistry(expiracaoMs, larguraBaldeMs, 64, 0.01, 64, registry);
+    }
+
+    private static long agora() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * Espera até a janela (de 1 s) do exp ter passado
+     */
+    private static void esperarPassar(long exp) throws InterruptedException {
+        while (agora() <= exp) {
+            Thread.sleep(50);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Object> baldes(RevogacaoTokenRegistry revogacao) {
+        return (AtomicReferenceArray<Object>) ReflectionTestUtils.getField(revogacao, "baldes");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> excedentes(RevogacaoTokenRegistry revogacao) {
+        return (Map<String, Long>) ReflectionTestUtils.getField(revogacao, "excedentes");
+    }
+
+    private static BloomFilter filtroDoBalde(RevogacaoTokenRegistry revogacao, long exp) {
+        AtomicReferenceArray<Object> baldes = baldes(revogacao);
+        Object balde = baldes.get((int) Math.floorMod(exp / 60, (long) baldes.length()));
+        return (BloomFilter) ReflectionTestUtils.getField(balde, "filtro");
+    }
+
+    private static int baldesOcupados(RevogacaoTokenRegistry revogacao) {
+        AtomicReferenceArray<Object> baldes = baldes(revogacao);
+        int ocupados = 0;
+        for (int i = 0; i < baldes.length(); i++) {
+            if (baldes.get(i) != null) {
+                ocupados++;
+            }
+        }
+        return ocupados;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.exemplo_Jwt.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Cache de UserDetails: acerto não vai ao carregador, a invalidação dentro
+ * de uma transação só vale depois do commit (e não vale no rollback), e
+ * falhas do carregador não ficam guardadas.
+ */
+class UserDetailsCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    private final Function<String, UserDetails> carregador = email -> {
+        cargas.incrementAndGet();
+        return User.withUsername(email).password("").roles("USER").build();
+    };
+
+    @AfterEach
+    void limparTransacao() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void segundaBuscaVemDoCache() {
+        UserDetailsCache cache = new UserDetailsCache(true, 60_000, 100, registry);
+
+        UserDetails primeiro = cache.buscarOuCarregar("cache@teste.com", carregador);
+        UserDetails segundo = cache.buscarOuCarregar("cache@teste.com", carregador);
+
+        assertThat(segundo).isSameAs(primeiro);
+        assertThat(cargas).hasValue(1);
+        assertThat(registry.get("cache.hit.ratio").tag("cache", "usuarios").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void invalidarSemTransacaoRemoveNaHora() {
+        UserDetailsCache cache = new UserDetailsCache(true, 60_000, 100, registry);
+        cache.buscarOuCarregar("fora@teste.com", carregador);
+
+        cache.invalidar("fora@teste.com");
+        cache.buscarOuCarregar("fora@teste.com", carregador);
+
+        assertThat(cargas).hasValue(2);
+    }
+
+    @Test
+    void invalidarDentroDaTransacaoSoRemoveDepoisDoCommit() {
+        UserDetailsCache cache = new UserDetailsCache(true, 60_000, 100, registry);
+        cache.buscarOuCarregar("commit@teste.com", carregador);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidar("commit@teste.com");
+
+        // Antes do commit: outra requisição ainda vê a entrada antiga
+        cache.buscarOuCarregar("commit@teste.com", carregador);
+        assertThat(cargas).hasValue(1);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        cache.buscarOuCarregar("commit@teste.com", carregador);
+        assertThat(cargas).hasValue(2);
+    }
+
+    @Test
+    void rollbackNaoInvalida() {
+        UserDetailsCache cache = new UserDetailsCache(true, 60_000, 100, registry);
+        cache.buscarOuCarregar("rollback@teste.com", carregador);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidar("rollback@teste.com");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        cache.buscarOuCarregar("rollback@teste.com", carregador);
+        assertThat(cargas).hasValue(1);
+    }
+
+    @Test
+    void invalidacaoDuranteACargaNaoDeixaDadoAntigoNoCache() {
+        UserDetailsCache cache = new UserDetailsCache(true, 60_000, 100, registry);
+
+        // A carga lê o banco antes do commit; o afterCommit roda antes dela terminar
+        UserDetails antigo = cache.buscarOuCarregar("corrida@teste.com", email -> {
+            UserDetails lido = carregador.apply(email);
+            cache.invalidar(email);
+            return lido;
+        });
+
+        UserDetails depois = cache.buscarOuCarregar("corrida@teste.com", carregador);
+
+        assertThat(depois).isNotSameAs(antigo);
+        assertThat(cargas).hasValue(2);
+    }
+
+    @Test
+    void entradaVencidaERecarregada() {
+        UserDetailsCache cache = new UserDetailsCache(true, 0, 100, registry);
+
+        cache.buscarOuCarregar("ttl@teste.com", carregador);
+        cache.buscarOuCarregar("ttl@teste.com", carregador);
+
+        assertThat(cargas).hasValue(2);
+    }
+
+    @Test
+    void falhaDoCarregadorNaoFicaGuardada() {
+        UserDetailsCache cache = new UserDetailsCache(true, 60_000, 100, registry);
+
+        assertThatThrownBy(() -> cache.buscarOuCarregar("inativo@teste.com", email -> {
+            throw new UsernameNotFoundException("Usuário inativo!");
+        })).isInstanceOf(UsernameNotFoundException.class);
+
+        cache.buscarOuCarregar("inativo@teste.com", carregador);
+        assertThat(cargas).hasValue(1);
+        assertThat(registry.get("cache.size").tag("cache", "usuarios").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void cacheCheioDescartaAte90PorCento() {
+        UserDetailsCache cache = new UserDetailsCache(true, 60_000, 10, registry);
+        for (int i = 0; i < 11; i++) {
+            cache.buscarOuCarregar("usuario" + i + "@teste.com", carregador);
+        }
+
+        assertThat(registry.get("cache.size").tag("cache", "usuarios").gauge().value()).isEqualTo(10);
+        assertThat(registry.get("cache.evictions").tag("cache", "usuarios").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.dto.FalhaLoteDTO;
+import com.example.exemplo_Jwt.dto.ResultadoLoteDTO;
+import com.example.exemplo_Jwt.dto.UsuarioRequestDTO;
+import com.example.exemplo_Jwt.dto.mapper.UsuarioMapper;
+import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import com.example.exemplo_Jwt.security.IsolatedPasswordEncoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doCallRealMethod;
+
+/**
+ * Cadastro em lote: bloco com violação refeito linha a linha, e resultado
+ * parcial quando o executor do BCrypt fica ocupado.
+ */
+@SpringBootTest(properties = {"seguranca.bcrypt.custo=4", "cadastro-lote.tamanho-bloco=2"})
+class CadastroLoteServiceTest {
+
+    @Autowired
+    private CadastroLoteService service;
+
+    @Autowired
+    private UsuarioRepository repository;
+
+    @Autowired
+    private UsuarioMapper mapper;
+
+    @MockitoSpyBean
+    private IsolatedPasswordEncoder passwordEncoder;
+
+    @Test
+    void blocoComViolacaoEhRefeitoLinhaALinha() {
+        // Gravado por fora do serviço: o CadastroBloomFilter não conhece o email,
+        // então a linha passa na validação e só o INSERT do bloco falha
+        UsuarioRequestDTO existente = usuario("ja-existe@lote.com", "71000000001");
+        repository.saveAndFlush(mapper.toEntity(existente));
+
+        ResultadoLoteDTO resultado = service.cadastrar(List.of(
+                usuario("primeiro@lote.com", "71000000002"),
+                usuario("ja-existe@lote.com", "71000000003"),
+                usuario("terceiro@lote.com", "71000000004")
+        ));
+
+        assertThat(resultado.total()).isEqualTo(3);
+        assertThat(resultado.cadastrados()).isEqualTo(2);
+        assertThat(resultado.falhas()).containsExactly(
+                new FalhaLoteDTO(2, "ja-existe@lote.com", "Email já cadastrado!"));
+        assertThat(repository.findByEmail("primeiro@lote.com")).isPresent();
+        assertThat(repository.findByEmail("terceiro@lote.com")).isPresent();
+    }
+
+    @Test
+    void executorOcupadoDevolveResultadoParcial() {
+        // As duas senhas do primeiro bloco passam; na terceira a fila "continua cheia"
+        doCallRealMethod()
+                .doCallRealMethod()
+                .doThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE))
+                .when(passwordEncoder).encodeEmParalelo(any(), anyLong());
+
+        ResultadoLoteDTO resultado = service.cadastrar(List.of(
+                usuario("parcial1@lote.com", "72000000001"),
+                usuario("parcial2@lote.com", "72000000002"),
+                usuario("parcial3@lote.com", "72000000003"),
+                usuario("parcial4@lote.com", "72000000004")
+        ));
+
+        assertThat(resultado.cadastrados()).isEqualTo(2);
+        assertThat(resultado.falhas())
+                .extracting(FalhaLoteDTO::linha, FalhaLoteDTO::motivo)
+                .containsExactly(
+                        tuple(3L, CadastroLoteService.NAO_PROCESSADA),
+                        tuple(4L, CadastroLoteService.NAO_PROCESSADA));
+        assertThat(repository.findByEmail("parcial2@lote.com")).isPresent();
+        assertThat(repository.findByEmail("parcial3@lote.com")).isEmpty();
+    }
+
+    private static UsuarioRequestDTO usuario(String email, String cpf) {
+        return new UsuarioRequestDTO("Usuario Lote", cpf, email, "11999998888",
+                LocalDate.of(1990, 1, 1), "Rua Teste, 1", "São Paulo", "SP", "01001000", "senha123");
+    }
+}
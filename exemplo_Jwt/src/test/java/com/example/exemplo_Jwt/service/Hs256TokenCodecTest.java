@@ -0,0 +1,264 @@
+package com.example.exemplo_Jwt.service;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.exemplo_Jwt.service.TokenInvalidoException.Motivo.ASSINATURA_INVALIDA;
+import static com.example.exemplo_Jwt.service.TokenInvalidoException.Motivo.EXPIRADO;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * O caminho rápido só aceita o formato que nós emitimos, rejeita
+ * assinaturas erradas e devolve para o jjwt todo o resto, com o mesmo
+ * resultado final que o jjwt teria sozinho.
+ */
+@SpringBootTest(properties = "seguranca.bcrypt.custo=4")
+class Hs256TokenCodecTest {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    @Autowired
+    private Hs256TokenCodec codec;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Test
+    void tokenEmitidoPorNosPassaPeloCaminhoRapido() {
+        String token = jwtService.gerarToken("rapido@teste.com");
+
+        VerifiedToken rapido = codec.verificar(token);
+
+        assertThat(rapido).isNotNull();
+        assertThat(rapido.subject()).isEqualTo("rapido@teste.com");
+        assertThat(rapido.kid()).isEqualTo(keyRing.getChaveAtiva().kid());
+        assertThat(rapido.jti()).isNotBlank();
+        assertThat(rapido.expirado()).isFalse();
+    }
+
+    @Test
+    void mesmasClaimsNosDoisCaminhos() {
+        long agora = System.currentTimeMillis() / 1000;
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtService.CLAIM_USUARIO_ID, 42);
+        claims.put(JwtService.CLAIM_VERSAO, 3_000_000_000L);
+        claims.put(JwtService.CLAIM_ATIVO, true);
+        claims.put(JwtService.CLAIM_PERMISSOES, List.of("ROLE_USER", "ROLE_ADMIN"));
+        String token = hs256(claims, "iguais@teste.com", agora + 600);
+
+        VerifiedToken rapido = codec.verificar(token);
+        VerifiedToken jjwt = jwtService.verificarComJjwt(token);
+
+        assertThat(rapido).isNotNull();
+        assertThat(rapido.claims()).isEqualTo(jjwt.claims());
+        assertThat(rapido.expiracaoSegundos()).isEqualTo(jjwt.expiracaoSegundos()).isEqualTo(agora + 600);
+        assertThat(rapido.emitidoEmSegundos()).isEqualTo(jjwt.emitidoEmSegundos());
+        assertThat(rapido.usuarioId()).isEqualTo(jjwt.usuarioId()).isEqualTo(42);
+        assertThat(rapido.versao()).isEqualTo(jjwt.versao()).isEqualTo(3_000_000_000L);
+        assertThat(rapido.ativo()).isEqualTo(jjwt.ativo()).isTrue();
+        assertThat(rapido.permissoes()).isEqualTo(jjwt.permissoes());
+        assertThat(rapido.jti()).isEqualTo(jjwt.jti());
+        assertThat(rapido.expiracao()).isEqualTo(jjwt.expiracao());
+    }
+
+    @Test
+    void assinaturaAlteradaERejeitada() {
+        String token = jwtService.gerarToken("assinatura@teste.com");
+
+        assertThatThrownBy(() -> codec.verificar(JwtServiceTest.trocarNoMeioDaAssinatura(token, 'Z')))
+                .isSameAs(TokenInvalidoException.de(ASSINATURA_INVALIDA));
+    }
+
+    @Test
+    void payloadAlteradoERejeitado() {
+        String token = jwtService.gerarToken("vitima@teste.com");
+        String[] partes = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(partes[1]), StandardCharsets.UTF_8)
+                .replace("vitima@teste.com", "atacante@teste.com");
+        String alterado = partes[0] + "." + base64(payload) + "." + partes[2];
+
+        assertThatThrownBy(() -> codec.verificar(alterado))
+                .isSameAs(TokenInvalidoException.de(ASSINATURA_INVALIDA));
+    }
+
+    @Test
+    void algNoneVaiParaOJjwtQueRejeita() {
+        String kid = keyRing.getChaveAtiva().kid();
+        String token = base64("{\"alg\":\"none\",\"kid\":\"" + kid + "\"}") + "." + payloadValido() + ".";
+
+        assertThat(codec.verificar(token)).isNull();
+        assertThatThrownBy(() -> jwtService.verificarToken(token)).isInstanceOf(TokenInvalidoException.class);
+    }
+
+    @Test
+    void algHs512ComKidHsVaiParaOJjwtQueRejeita() throws Exception {
+        String kid = keyRing.getChaveAtiva().kid();
+        String token = assinado("{\"alg\":\"HS512\",\"kid\":\"" + kid + "\"}", payloadValido(), "HmacSHA512");
+
+        assertThat(codec.verificar(token)).isNull();
+        assertThatThrownBy(() -> jwtService.verificarToken(token)).isInstanceOf(TokenInvalidoException.class);
+    }
+
+    @Test
+    void algEs256ComKidHsVaiParaOJjwtQueRejeita() {
+        String kid = keyRing.getChaveAtiva().kid();
+        String token = base64("{\"alg\":\"ES256\",\"kid\":\"" + kid + "\"}") + "." + payloadValido()
+                + "." + BASE64_URL.encodeToString(new byte[64]);
+
+        assertThat(codec.verificar(token)).isNull();
+        assertThatThrownBy(() -> jwtService.verificarToken(token)).isInstanceOf(TokenInvalidoException.class);
+    }
+
+    @Test
+    void kidDesconhecidoERejeitado() throws Exception {
+        String token = assinado("{\"alg\":\"HS256\",\"kid\":\"nao-existe\"}", payloadValido(), "HmacSHA256");
+
+        assertThatThrownBy(() -> codec.verificar(token))
+                .isSameAs(TokenInvalidoException.de(ASSINATURA_INVALIDA));
+    }
+
+    @Test
+    void base64NaoCanonicoNaoEAceitoPeloCaminhoRapido() {
+        String token = jwtService.gerarToken("canonico@teste.com");
+
+        // 32 bytes = 43 caracteres: os 2 bits finais do último caractere sobram
+        int ultimo = token.length() - 1;
+        String alfabeto = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        char naoCanonico = alfabeto.charAt(alfabeto.indexOf(token.charAt(ultimo)) ^ 1);
+        String alterado = token.substring(0, ultimo) + naoCanonico;
+
+        assertThat(codec.verificar(alterado)).isNull();
+        // Os bytes da assinatura são os mesmos: o jjwt decide, igual a antes do codec
+        assertThat(jwtService.verificarToken(alterado).subject()).isEqualTo("canonico@teste.com");
+    }
+
+    @Test
+    void segmentoComTamanho4nMais1NaoEDecodificado() {
+        String token = jwtService.gerarToken("tamanho@teste.com");
+        String[] partes = token.split("\\.");
+        String payload = partes[1];
+        // Completa o payload até 4n + 1 caracteres
+        while (payload.length() % 4 != 1) {
+            payload += "A";
+        }
+        String alterado = partes[0] + "." + payload + "." + partes[2];
+
+        assertThat(Hs256TokenCodec.decodificar(alterado, partes[0].length() + 1,
+                partes[0].length() + 1 + payload.length(), new byte[Hs256TokenCodec.TAMANHO_MAXIMO])).isEqualTo(-1);
+        assertThat(codec.verificar(alterado)).isNull();
+        assertThatThrownBy(() -> jwtService.verificarToken(alterado)).isInstanceOf(TokenInvalidoException.class);
+    }
+
+    @Test
+    void tokenGrandeDemaisVaiParaOJjwt() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("grande", "x".repeat(Hs256TokenCodec.TAMANHO_MAXIMO));
+        String token = hs256(claims, "grande@teste.com", System.currentTimeMillis() / 1000 + 600);
+
+        assertThat(token.length()).isGreaterThan(Hs256TokenCodec.TAMANHO_MAXIMO);
+        assertThat(codec.verificar(token)).isNull();
+        assertThat(jwtService.verificarToken(token).claim("grande")).isEqualTo("x".repeat(Hs256TokenCodec.TAMANHO_MAXIMO));
+    }
+
+    @Test
+    void tokenExpiradoVaiParaOJjwt() {
+        String token = hs256(new HashMap<>(), "expirado@teste.com", System.currentTimeMillis() / 1000 - 60);
+
+        assertThat(codec.verificar(token)).isNull();
+        assertThatThrownBy(() -> jwtService.verificarToken(token))
+                .isSameAs(TokenInvalidoException.de(EXPIRADO));
+    }
+
+    @Test
+    void claimExtraVaiParaOJjwtComAsMesmasClaims() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("role", "ADMIN");
+        claims.put(JwtService.CLAIM_USUARIO_ID, 7);
+        String token = hs256(claims, "extra@teste.com", System.currentTimeMillis() / 1000 + 600);
+
+        assertThat(codec.verificar(token)).isNull();
+
+        VerifiedToken verificado = jwtService.verificarToken(token);
+        assertThat(verificado.claim("role")).isEqualTo("ADMIN");
+        assertThat(verificado.usuarioId()).isEqualTo(7);
+        assertThat(verificado.subject()).isEqualTo("extra@teste.com");
+    }
+
+    @Test
+    void textoNaoAsciiVaiParaOJjwtComOMesmoResultado() {
+        String token = hs256(new HashMap<>(), "joão@teste.com", System.currentTimeMillis() / 1000 + 600);
+
+        assertThat(codec.verificar(token)).isNull();
+        assertThat(jwtService.verificarToken(token).subject()).isEqualTo("joão@teste.com");
+    }
+
+    @Test
+    void leitorJsonAceitaSoOFormatoSimples() {
+        Hs256TokenCodec.LeitorJson leitor = new Hs256TokenCodec.LeitorJson();
+
+        assertThat(leitor.iniciar(bytes(" 123 "), 5).lerInteiro()).isEqualTo(123);
+        assertThat(leitor.iniciar(bytes("0123"), 4).lerInteiro()).isEqualTo(VerifiedToken.AUSENTE);
+        assertThat(leitor.iniciar(bytes("1.5"), 3).lerInteiro()).isEqualTo(VerifiedToken.AUSENTE);
+        assertThat(leitor.iniciar(bytes("-1"), 2).lerInteiro()).isEqualTo(VerifiedToken.AUSENTE);
+        assertThat(leitor.iniciar(bytes("1234567890123456789"), 19).lerInteiro()).isEqualTo(VerifiedToken.AUSENTE);
+        assertThat(leitor.iniciar(bytes("\"a\\\"b\""), 6).lerString()).isNull();
+        assertThat(leitor.iniciar(bytes("[\"A\", \"B\"]"), 11).lerListaDeStrings()).containsExactly("A", "B");
+        assertThat(leitor.iniciar(bytes("[\"A\",]"), 6).lerListaDeStrings()).isNull();
+        assertThat(leitor.iniciar(bytes(" false"), 6).lerBooleano()).isFalse();
+        assertThat(leitor.iniciar(bytes("nulo"), 4).lerBooleano()).isNull();
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Token HS256 no formato que nós emitimos (com kid e jti), assinado
+     * pela chave ativa, com "exp" escolhido pelo teste
+     */
+    private String hs256(Map<String, Object> claims, String email, long expSegundos) {
+        JwtKeyRing.ChaveAtiva chave = keyRing.getChaveAtiva();
+        return Jwts.builder()
+                .setHeaderParam("kid", chave.kid())
+                .setClaims(claims)
+                .setSubject(email)
+                .setId("jti-" + email)
+                .setIssuedAt(new Date((expSegundos - 900) * 1000))
+                .setExpiration(new Date(expSegundos * 1000))
+                .signWith(chave.chave(), chave.algoritmo())
+                .compact();
+    }
+
+    private String payloadValido() {
+        long exp = System.currentTimeMillis() / 1000 + 600;
+        return base64("{\"sub\":\"alg@teste.com\",\"exp\":" + exp + "}");
+    }
+
+    private String assinado(String header, String payload, String algoritmoMac) throws Exception {
+        String entrada = base64(header) + "." + payload;
+        Key chave = keyRing.getChaveAtiva().chave();
+        Mac mac = Mac.getInstance(algoritmoMac);
+        mac.init(new SecretKeySpec(chave.getEncoded(), algoritmoMac));
+        return entrada + "." + BASE64_URL.encodeToString(mac.doFinal(entrada.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static String base64(String json) {
+        return BASE64_URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.dto.FalhaLoteDTO;
+import com.example.exemplo_Jwt.dto.ProgressoImportacaoDTO;
+import com.example.exemplo_Jwt.entity.UsuarioEntity;
+import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import com.example.exemplo_Jwt.security.IsolatedPasswordEncoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doCallRealMethod;
+
+/**
+ * Importação: leitura do CSV, retomada pelo checkpoint sem duplicar nem
+ * contar linhas duas vezes, e importações terminadas fora da memória.
+ */
+@SpringBootTest(properties = {"seguranca.bcrypt.custo=4", "importacao.tamanho-bloco=2"})
+class ImportacaoServiceTest {
+
+    @Autowired
+    private ImportacaoService service;
+
+    @Autowired
+    private UsuarioRepository repository;
+
+    @MockitoSpyBean
+    private IsolatedPasswordEncoder passwordEncoder;
+
+    @Test
+    void dividirCsvRespeitaAspas() {
+        assertThat(ImportacaoService.dividirCsv("a,b,c")).containsExactly("a", "b", "c");
+        assertThat(ImportacaoService.dividirCsv("\"Rua A, 123\",SP")).containsExactly("Rua A, 123", "SP");
+        assertThat(ImportacaoService.dividirCsv("\"Bar \"\"do Zé\"\"\",x")).containsExactly("Bar \"do Zé\"", "x");
+        assertThat(ImportacaoService.dividirCsv("\"\"\"\"")).containsExactly("\"");
+        assertThat(ImportacaoService.dividirCsv("a,,c,")).containsExactly("a", "", "c", "");
+        assertThat(ImportacaoService.dividirCsv("")).containsExactly("");
+    }
+
+    @Test
+    void csvComBomEColunasForaDeOrdem() throws Exception {
+        String id = novoId();
+        String csv = "\uFEFFsenha,email,cpf,nomeCompleto,telefone,dataNascimento,endereco,cidade,estado,cep\n"
+                + "senha123,csv@importacao.com,81000000001,Maria CSV,11999998888,1990-01-01,"
+                + "\"Rua A, 123 \"\"fundos\"\"\",São Paulo,SP,01001000\n";
+
+        ProgressoImportacaoDTO resultado = service.importar(id, ImportacaoService.Formato.CSV, arquivo(csv));
+
+        assertThat(resultado.status()).isEqualTo(ImportacaoService.CONCLUIDA);
+        assertThat(resultado.cadastrados()).isEqualTo(1);
+        assertThat(resultado.falhas()).isZero();
+        UsuarioEntity usuario = repository.findByEmail("csv@importacao.com").orElseThrow();
+        assertThat(usuario.getNomeCompleto()).isEqualTo("Maria CSV");
+        assertThat(usuario.getCpf()).isEqualTo("81000000001");
+        assertThat(usuario.getEndereco()).isEqualTo("Rua A, 123 \"fundos\"");
+    }
+
+    @Test
+    void retomaDepoisDeQuedaEntreBlocos() throws Exception {
+        String id = novoId();
+        String ndjson = ndjson("queda", "83", 5);
+
+        // Terceiro hash falha: o bloco 1 (linhas 1 e 2) já está no checkpoint
+        doCallRealMethod()
+                .doCallRealMethod()
+                .doThrow(new IllegalStateException("queda simulada"))
+                .when(passwordEncoder).encodeEmParalelo(any(), anyLong());
+
+        assertThatThrownBy(() -> service.importar(id, ImportacaoService.Formato.NDJSON, arquivo(ndjson)))
+                .isInstanceOf(IllegalStateException.class);
+        ProgressoImportacaoDTO interrompida = service.buscarProgresso(id);
+        assertThat(interrompida.status()).isEqualTo(ImportacaoService.FALHOU);
+        assertThat(interrompida.ultimaLinhaConfirmada()).isEqualTo(2);
+        assertThat(interrompida.linhasLidas()).isEqualTo(2);
+        assertThat(interrompida.cadastrados()).isEqualTo(2);
+
+        doCallRealMethod().when(passwordEncoder).encodeEmParalelo(any(), anyLong());
+        ProgressoImportacaoDTO retomada = service.importar(id, ImportacaoService.Formato.NDJSON, arquivo(ndjson));
+
+        assertThat(retomada.status()).isEqualTo(ImportacaoService.CONCLUIDA);
+        assertThat(retomada.linhasLidas()).isEqualTo(5);
+        assertThat(retomada.cadastrados()).isEqualTo(5);
+        assertThat(retomada.falhas()).isZero();
+        for (int i = 1; i <= 5; i++) {
+            assertThat(repository.findByEmail("queda" + i + "@importacao.com")).isPresent();
+        }
+    }
+
+    @Test
+    void executorOcupadoPausaNaPrimeiraLinhaNaoProcessada() throws Exception {
+        String id = novoId();
+        // Linha 4 é inválida: cai no mesmo bloco das linhas 3 e 5
+        String ndjson = usuarioJson("ocupado1", "82000000001") + "\n"
+                + usuarioJson("ocupado2", "82000000002") + "\n"
+                + usuarioJson("ocupado3", "82000000003") + "\n"
+                + "{isto nao e json\n"
+                + usuarioJson("ocupado5", "82000000005") + "\n";
+
+        doCallRealMethod()
+                .doCallRealMethod()
+                .doThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE))
+                .when(passwordEncoder).encodeEmParalelo(any(), anyLong());
+
+        assertThatThrownBy(() -> service.importar(id, ImportacaoService.Formato.NDJSON, arquivo(ndjson)))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("linha 3");
+        ProgressoImportacaoDTO pausada = service.buscarProgresso(id);
+        assertThat(pausada.ultimaLinhaConfirmada()).isEqualTo(2);
+        assertThat(pausada.linhasLidas()).isEqualTo(2);
+        assertThat(pausada.falhas()).isZero();
+
+        doCallRealMethod().when(passwordEncoder).encodeEmParalelo(any(), anyLong());
+        ProgressoImportacaoDTO retomada = service.importar(id, ImportacaoService.Formato.NDJSON, arquivo(ndjson));
+
+        assertThat(retomada.status()).isEqualTo(ImportacaoService.CONCLUIDA);
+        assertThat(retomada.linhasLidas()).isEqualTo(5);
+        assertThat(retomada.cadastrados()).isEqualTo(4);
+        assertThat(retomada.falhas()).isEqualTo(1);
+        assertThat(retomada.primeirasFalhas()).extracting(FalhaLoteDTO::linha).containsExactly(4L);
+    }
+
+    @Test
+    void importacaoTerminadaSaiDaMemoriaESegueLegivelPeloCheckpoint() throws Exception {
+        String id = novoId();
+        String ndjson = ndjson("memoria", "84", 2) + "{invalida\n";
+
+        ProgressoImportacaoDTO resultado = service.importar(id, ImportacaoService.Formato.NDJSON, arquivo(ndjson));
+
+        Map<?, ?> importacoes = (Map<?, ?>) ReflectionTestUtils.getField(service, "importacoes");
+        assertThat(importacoes.containsKey(id)).isFalse();
+
+        ProgressoImportacaoDTO consultado = service.buscarProgresso(id);
+        assertThat(consultado.status()).isEqualTo(ImportacaoService.CONCLUIDA);
+        assertThat(consultado.linhasLidas()).isEqualTo(3);
+        assertThat(consultado.cadastrados()).isEqualTo(2);
+        assertThat(consultado.falhas()).isEqualTo(1);
+        assertThat(consultado.ultimaLinhaConfirmada()).isEqualTo(3);
+        assertThat(consultado.primeirasFalhas()).isEqualTo(resultado.primeirasFalhas());
+        assertThat(consultado.linhasPorSegundo()).isEqualTo(resultado.linhasPorSegundo());
+    }
+
+    private static String novoId() {
+        return "teste-" + UUID.randomUUID();
+    }
+
+    private static String ndjson(String prefixo, String inicioCpf, int linhas) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 1; i <= linhas; i++) {
+            texto.append(usuarioJson(prefixo + i, inicioCpf + String.format("%09d", i))).append('\n');
+        }
+        return texto.toString();
+    }
+
+    private static String usuarioJson(String nome, String cpf) {
+        return "{\"nomeCompleto\":\"Usuario " + nome + "\",\"cpf\":\"" + cpf + "\","
+                + "\"email\":\"" + nome + "@importacao.com\",\"telefone\":\"11999998888\","
+                + "\"dataNascimento\":\"1990-01-01\",\"endereco\":\"Rua Teste, 1\",\"cidade\":\"São Paulo\","
+                + "\"estado\":\"SP\",\"cep\":\"01001000\",\"senha\":\"senha123\"}";
+    }
+
+    private static InputStream arquivo(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.exemplo_Jwt.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Chaveiro em ES256: janela dos segredos HS256 depois da troca e
+ * conferência da curva e do par de chaves ao carregar.
+ */
+class JwtKeyRingTest {
+
+    private static final String SEGREDO = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @Test
+    void hs256MantemOSegredoSemPrazo() {
+        JwtKeyRing chaveiro = chaveiro("HS256", 0, 900_000);
+
+        assertThat(chaveiro.buscarChave("principal")).isInstanceOf(SecretKey.class);
+        assertThat(chaveiro.buscarChave(null)).isInstanceOf(SecretKey.class);
+    }
+
+    @Test
+    void es256SemJanelaRecusaOSegredoNaHora() {
+        JwtKeyRing chaveiro = chaveiro("ES256", 0, 900_000);
+
+        assertThat(chaveiro.buscarChave("principal")).isNull();
+        assertThat(chaveiro.buscarChave(null)).isNull();
+        assertThat(chaveiro.kids()).containsExactly(chaveiro.getChaveAtiva().kid());
+    }
+
+    @Test
+    void es256ComJanelaAceitaHs256SoAteOPrazo() {
+        JwtKeyRing chaveiro = chaveiro("ES256", 600_000, 900_000);
+        assertThat(chaveiro.buscarChave("principal")).isInstanceOf(SecretKey.class);
+        assertThat(chaveiro.contem(null)).isTrue();
+
+        ReflectionTestUtils.setField(chaveiro, "hs256AceitoAteMs", System.currentTimeMillis() - 1);
+
+        assertThat(chaveiro.contem("principal")).isFalse();
+        assertThat(chaveiro.kids()).containsExactly(chaveiro.getChaveAtiva().kid());
+        assertThat(chaveiro.buscarChave(chaveiro.getChaveAtiva().kid())).isNotNull();
+    }
+
+    @Test
+    void janelaNuncaPassaDeJwtExpiration() {
+        long antes = System.currentTimeMillis();
+        JwtKeyRing chaveiro = chaveiro("ES256", 86_400_000, 1_000);
+
+        long prazo = (long) ReflectionTestUtils.getField(chaveiro, "hs256AceitoAteMs");
+        assertThat(prazo).isBetween(antes + 1_000, System.currentTimeMillis() + 1_000);
+    }
+
+    @Test
+    void parP256ConfiguradoPublicaCoordenadasDe32Bytes() throws Exception {
+        KeyPair par = gerar("secp256r1");
+        JwtKeyRing chaveiro = chaveiro("ES256", 0, 900_000, par, null);
+
+        String json = chaveiro.getJwks().json();
+        assertThat(json).contains("\"crv\":\"P-256\"");
+        String x = json.replaceAll(".*\"x\":\"([^\"]+)\".*", "$1");
+        assertThat(Base64.getUrlDecoder().decode(x)).hasSize(32);
+    }
+
+    @Test
+    void curvaDiferenteDeP256EhRecusada() throws Exception {
+        KeyPair p384 = gerar("secp384r1");
+
+        assertThatThrownBy(() -> chaveiro("ES256", 0, 900_000, p384, null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("P-256");
+    }
+
+    @Test
+    void chavePublicaQueNaoFormaParComAPrivadaEhRecusada() throws Exception {
+        KeyPair um = gerar("secp256r1");
+        KeyPair outro = gerar("secp256r1");
+
+        assertThatThrownBy(() -> chaveiro("ES256", 0, 900_000, new KeyPair(outro.getPublic(), um.getPrivate()), null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("não corresponde");
+    }
+
+    @Test
+    void chaveAnteriorDeOutraCurvaEhRecusada() throws Exception {
+        KeyPair p384 = gerar("secp384r1");
+        String anterior = "antiga:" + Base64.getEncoder().encodeToString(p384.getPublic().getEncoded());
+
+        assertThatThrownBy(() -> chaveiro("ES256", 0, 900_000, gerar("secp256r1"), anterior))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("P-256");
+    }
+
+    @Test
+    void rotacionarParaParDeOutraCurvaEhRecusado() throws Exception {
+        JwtKeyRing chaveiro = chaveiro("ES256", 0, 900_000);
+        String kidAtivo = chaveiro.getChaveAtiva().kid();
+        KeyPair p384 = gerar("secp384r1");
+
+        assertThatThrownBy(() -> chaveiro.rotacionar(p384)).isInstanceOf(IllegalStateException.class);
+        assertThat(chaveiro.getChaveAtiva().kid()).isEqualTo(kidAtivo);
+    }
+
+    private static JwtKeyRing chaveiro(String algoritmo, long aceitarHs256Ms, long expiracaoMs) {
+        return chaveiro(algoritmo, aceitarHs256Ms, expiracaoMs, null, null);
+    }
+
+    private static JwtKeyRing chaveiro(String algoritmo, long aceitarHs256Ms, long expiracaoMs,
+                                       KeyPair par, String publicasAnteriores) {
+        JwtKeyRing chaveiro = new JwtKeyRing();
+        ReflectionTestUtils.setField(chaveiro, "chaveSecreta", SEGREDO);
+        ReflectionTestUtils.setField(chaveiro, "kidInicial", "principal");
+        ReflectionTestUtils.setField(chaveiro, "chavesAnteriores", "");
+        ReflectionTestUtils.setField(chaveiro, "algoritmo", algoritmo);
+        ReflectionTestUtils.setField(chaveiro, "chavePrivadaEs256",
+                par != null ? Base64.getEncoder().encodeToString(par.getPrivate().getEncoded()) : "");
+        ReflectionTestUtils.setField(chaveiro, "chavePublicaEs256",
+                par != null ? Base64.getEncoder().encodeToString(par.getPublic().getEncoded()) : "");
+        ReflectionTestUtils.setField(chaveiro, "chavesPublicasAnteriores",
+                publicasAnteriores != null ? publicasAnteriores : "");
+        ReflectionTestUtils.setField(chaveiro, "aceitarHs256Ms", aceitarHs256Ms);
+        ReflectionTestUtils.setField(chaveiro, "expiracaoMs", expiracaoMs);
+        chaveiro.carregar();
+        return chaveiro;
+    }
+
+    private static KeyPair gerar(String curva) throws Exception {
+        KeyPairGenerator gerador = KeyPairGenerator.getInstance("EC");
+        gerador.initialize(new ECGenParameterSpec(curva));
+        return gerador.generateKeyPair();
+    }
+}
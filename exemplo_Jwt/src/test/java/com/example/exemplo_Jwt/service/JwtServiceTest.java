@@ -0,0 +1,103 @@
+package com.example.exemplo_Jwt.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Verificação de tokens pelo JwtService.
+ */
+@SpringBootTest(properties = "seguranca.bcrypt.custo=4")
+class JwtServiceTest {
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @MockitoSpyBean
+    private Hs256TokenCodec codec;
+
+    @Test
+    void validarTokenFazUmParseSoEDepoisUsaOCache() {
+        String token = jwtService.gerarToken("parse@teste.com");
+        clearInvocations(codec);
+
+        // Email e expiração saem do mesmo VerifiedToken
+        assertThat(jwtService.validarToken(token, "parse@teste.com")).isTrue();
+        verify(codec, times(1)).verificar(token);
+
+        // Mesmo token de novo: vem do VerifiedTokenCache, sem novo parse
+        VerifiedToken primeiro = jwtService.verificarToken(token);
+        assertThat(jwtService.verificarToken(token)).isSameAs(primeiro);
+        assertThat(jwtService.validarToken(token, "outro@teste.com")).isFalse();
+        verify(codec, times(1)).verificar(anyString());
+    }
+
+    @Test
+    void tokenDesconhecidoPeloCodecVaiParaOJjwtUmaVez() {
+        String token = jwtService.gerarToken("fallback@teste.com");
+        clearInvocations(codec);
+        doReturn(null).when(codec).verificar(token);
+
+        VerifiedToken verificado = jwtService.verificarToken(token);
+
+        assertThat(verificado.subject()).isEqualTo("fallback@teste.com");
+        assertThat(jwtService.verificarToken(token)).isSameAs(verificado);
+        verify(codec, times(1)).verificar(token);
+    }
+
+    @Test
+    void assinaturaForjadaRejeitadaSemStackTrace() {
+        String token = jwtService.gerarToken("forjado@teste.com");
+
+        // Troca um caractere no meio da assinatura a cada tentativa:
+        // o cache negativo não ajuda, e mesmo assim nada monta stack trace
+        for (char troca : new char[]{'A', 'B', 'C'}) {
+            String forjado = trocarNoMeioDaAssinatura(token, troca);
+            TokenInvalidoException e = catchThrowableOfType(
+                    TokenInvalidoException.class, () -> jwtService.verificarToken(forjado));
+
+            assertThat(e.getMotivo()).isEqualTo(TokenInvalidoException.Motivo.ASSINATURA_INVALIDA);
+            assertThat(e.getStackTrace()).isEmpty();
+            assertThat(e).isSameAs(TokenInvalidoException.de(TokenInvalidoException.Motivo.ASSINATURA_INVALIDA));
+        }
+    }
+
+    @Test
+    void assinaturaForjadaRepetidaVemDoCacheNegativo() {
+        String forjado = trocarNoMeioDaAssinatura(jwtService.gerarToken("repetido@teste.com"), 'Q');
+        double acertosAntes = acertosCacheNegativo();
+
+        catchThrowableOfType(TokenInvalidoException.class, () -> jwtService.verificarToken(forjado));
+        catchThrowableOfType(TokenInvalidoException.class, () -> jwtService.verificarToken(forjado));
+
+        assertThat(acertosCacheNegativo() - acertosAntes).isEqualTo(1);
+    }
+
+    /**
+     * Troca um caractere no meio da assinatura (o último caractere pode
+     * cair nos bits de sobra do Base64 e não mudar a assinatura)
+     */
+    static String trocarNoMeioDaAssinatura(String token, char troca) {
+        int meio = token.lastIndexOf('.') + 20;
+        char original = token.charAt(meio);
+        char novo = original == troca ? (char) (troca + 1) : troca;
+        return token.substring(0, meio) + novo + token.substring(meio + 1);
+    }
+
+    private double acertosCacheNegativo() {
+        return registry.get("cache.gets").tag("cache", "jwt.rejeitados").tag("result", "hit").counter().count();
+    }
+}
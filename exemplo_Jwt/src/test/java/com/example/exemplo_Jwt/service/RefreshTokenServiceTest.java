@@ -0,0 +1,207 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.dto.LoginResponseDTO;
+import com.example.exemplo_Jwt.entity.RefreshTokenEntity;
+import com.example.exemplo_Jwt.entity.RefreshTokenFamiliaEntity;
+import com.example.exemplo_Jwt.entity.UsuarioEntity;
+import com.example.exemplo_Jwt.repository.RefreshTokenFamiliaRepository;
+import com.example.exemplo_Jwt.repository.RefreshTokenRepository;
+import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import com.example.exemplo_Jwt.security.UsuarioPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.exemplo_Jwt.UsuarioFixture.cadastrarELogar;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Rotação dos refresh tokens: uso único, reuso revoga a família (inclusive
+ * tokens inseridos depois), falha no meio não queima o token, e a
+ * limpeza em lotes.
+ */
+@SpringBootTest(properties = "seguranca.bcrypt.custo=4")
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService service;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private RefreshTokenRepository repository;
+
+    @Autowired
+    private RefreshTokenFamiliaRepository familiaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @MockitoSpyBean
+    private JwtService jwtService;
+
+    @Test
+    void rotacaoTrocaOTokenUsado() {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "rotacao@teste.com", "10120230340");
+
+        LoginResponseDTO renovado = service.renovar(login.refreshToken());
+
+        assertThat(renovado.refreshToken()).isNotEqualTo(login.refreshToken());
+        assertThat(renovado.token()).isNotBlank();
+        assertThat(repository.findByHash(TokenHash.sha256(login.refreshToken())))
+                .hasValueSatisfying(t -> assertThat(t.getUsadoEm()).isNotNull());
+
+        // Repetição logo depois (resposta perdida): recusa sem revogar a família
+        assertThatThrownBy(() -> service.renovar(login.refreshToken()))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(service.renovar(renovado.refreshToken()).token()).isNotBlank();
+    }
+
+    @Test
+    void reusoDepoisDaToleranciaRevogaAFamilia() {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "reuso@teste.com", "20230340450");
+        LoginResponseDTO renovado = service.renovar(login.refreshToken());
+
+        // O token antigo foi usado há um minuto (fora da tolerância)
+        RefreshTokenEntity usado = repository.findByHash(TokenHash.sha256(login.refreshToken())).orElseThrow();
+        usado.setUsadoEm(LocalDateTime.now().minusMinutes(1));
+        repository.save(usado);
+
+        assertThatThrownBy(() -> service.renovar(login.refreshToken()))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(() -> service.renovar(renovado.refreshToken()))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(familiaRepository.findById(usado.getFamilia()))
+                .hasValueSatisfying(f -> assertThat(f.getRevogadaEm()).isNotNull());
+    }
+
+    @Test
+    void familiaRevogadaBarraTokenInseridoDepoisDaRevogacao() {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "depois@teste.com", "30340450560");
+        RefreshTokenEntity original = repository.findByHash(TokenHash.sha256(login.refreshToken())).orElseThrow();
+
+        service.revogar(login.refreshToken());
+
+        // Uma renovação em andamento inseriu o próximo token depois do DELETE
+        String atrasado = "token-inserido-depois-da-revogacao";
+        RefreshTokenEntity inserido = new RefreshTokenEntity();
+        inserido.setHash(TokenHash.sha256(atrasado));
+        inserido.setUsuarioId(original.getUsuarioId());
+        inserido.setFamilia(original.getFamilia());
+        inserido.setCriadoEm(LocalDateTime.now());
+        inserido.setExpiraEm(LocalDateTime.now().plusDays(1));
+        repository.save(inserido);
+
+        assertThatThrownBy(() -> service.renovar(atrasado))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void usuarioInativoNaoRenovaERevogaAFamilia() {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "inativo@teste.com", "40450560670");
+        UsuarioEntity usuario = usuarioRepository.findById(login.id()).orElseThrow();
+        usuario.setAtivo(false);
+        usuarioRepository.save(usuario);
+
+        assertThatThrownBy(() -> service.renovar(login.refreshToken()))
+                .isInstanceOf(ResponseStatusException.class);
+
+        assertThat(repository.findAll())
+                .noneMatch(t -> t.getUsuarioId().equals(login.id()));
+        assertThat(familiaRepository.findAll())
+                .filteredOn(f -> f.getUsuarioId().equals(login.id()))
+                .hasSize(1)
+                .allSatisfy(f -> assertThat(f.getRevogadaEm()).isNotNull());
+    }
+
+    @Test
+    void falhaAoEmitirNaoQueimaOToken() {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "falha@teste.com", "50560670780");
+
+        doThrow(new IllegalStateException("falha simulada"))
+                .doCallRealMethod()
+                .when(jwtService).gerarToken(any(UsuarioPrincipal.class));
+
+        assertThatThrownBy(() -> service.renovar(login.refreshToken()))
+                .isInstanceOf(IllegalStateException.class);
+
+        // A transação voltou atrás: o mesmo token ainda renova
+        assertThat(service.renovar(login.refreshToken()).token()).isNotBlank();
+    }
+
+    @Test
+    void renovacoesSimultaneasDoMesmoTokenSoUmaPassa() throws Exception {
+        LoginResponseDTO login = cadastrarELogar(usuarioService, "simultaneo@teste.com", "60670780890");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<LoginResponseDTO>> pedidos = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                pedidos.add(() -> service.renovar(login.refreshToken()));
+            }
+            int sucessos = 0;
+            for (Future<LoginResponseDTO> resultado : executor.invokeAll(pedidos)) {
+                try {
+                    resultado.get();
+                    sucessos++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(ResponseStatusException.class);
+                }
+            }
+            assertThat(sucessos).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void limpezaRemoveExpiradosEmLotes() {
+        LocalDateTime passado = LocalDateTime.now().minusDays(1);
+        RefreshTokenFamiliaEntity familia = new RefreshTokenFamiliaEntity();
+        familia.setId(UUID.randomUUID().toString());
+        familia.setUsuarioId(-1L);
+        familia.setCriadaEm(passado.minusDays(30));
+        familia.setExpiraEm(passado);
+        familiaRepository.save(familia);
+
+        List<RefreshTokenEntity> expirados = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            expirados.add(token("expirado-" + i, familia.getId(), passado));
+        }
+        repository.saveAll(expirados);
+        repository.save(token("ainda-valido", familia.getId(), LocalDateTime.now().plusDays(1)));
+
+        service.removerExpirados();
+
+        assertThat(repository.findAll())
+                .filteredOn(t -> t.getFamilia().equals(familia.getId()))
+                .extracting(RefreshTokenEntity::getHash)
+                .containsExactly(TokenHash.sha256("ainda-valido"));
+        assertThat(familiaRepository.findById(familia.getId())).isEmpty();
+    }
+
+    private static RefreshTokenEntity token(String valor, String familia, LocalDateTime expiraEm) {
+        RefreshTokenEntity token = new RefreshTokenEntity();
+        token.setHash(TokenHash.sha256(valor));
+        token.setUsuarioId(-1L);
+        token.setFamilia(familia);
+        token.setCriadoEm(expiraEm.minusDays(30));
+        token.setExpiraEm(expiraEm);
+        return token;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.exemplo_Jwt.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.example.exemplo_Jwt.service.TokenInvalidoException.Motivo.ASSINATURA_INVALIDA;
+import static com.example.exemplo_Jwt.service.TokenInvalidoException.Motivo.EXPIRADO;
+import static com.example.exemplo_Jwt.service.TokenInvalidoException.Motivo.MALFORMADO;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Limites do cache negativo (TTL e tamanho máximo) e os contadores
+ * jwt.tokens.rejeitados por motivo.
+ */
+class TokenRejeitadoCacheTest {
+
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void devolveOMotivoEnquantoNaoVence() {
+        TokenRejeitadoCache cache = new TokenRejeitadoCache(true, 100, 60_000, registry);
+
+        cache.guardar("a", ASSINATURA_INVALIDA);
+
+        assertThat(cache.buscar("a")).isEqualTo(ASSINATURA_INVALIDA);
+        assertThat(cache.buscar("b")).isNull();
+        assertThat(contador("cache.gets", "result", "hit")).isEqualTo(1);
+        assertThat(contador("cache.gets", "result", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void rejeicaoVencidaNaoEDevolvidaESaiDoCache() {
+        TokenRejeitadoCache cache = new TokenRejeitadoCache(true, 100, 0, registry);
+
+        cache.guardar("a", EXPIRADO);
+
+        assertThat(cache.buscar("a")).isNull();
+        assertThat(tamanho()).isZero();
+    }
+
+    @Test
+    void removerExpiradosLimpaSoAsVencidas() {
+        TokenRejeitadoCache vencido = new TokenRejeitadoCache(true, 100, 0, registry);
+        vencido.guardar("a", MALFORMADO);
+        vencido.guardar("b", MALFORMADO);
+
+        vencido.removerExpirados();
+
+        assertThat(tamanho()).isZero();
+    }
+
+    @Test
+    void naoPassaDoTamanhoMaximo() {
+        TokenRejeitadoCache cache = new TokenRejeitadoCache(true, 10, 60_000, registry);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.guardar("token-" + i, ASSINATURA_INVALIDA);
+        }
+
+        assertThat(tamanho()).isLessThanOrEqualTo(10);
+        // A última rejeição sempre fica guardada
+        assertThat(cache.buscar("token-999")).isEqualTo(ASSINATURA_INVALIDA);
+    }
+
+    @Test
+    void contaCadaRejeicaoPorMotivoVindaOuNaoDoCache() {
+        TokenRejeitadoCache cache = new TokenRejeitadoCache(true, 100, 60_000, registry);
+
+        cache.guardar("a", ASSINATURA_INVALIDA);
+        cache.buscar("a");
+        cache.buscar("a");
+        cache.guardar("b", EXPIRADO);
+
+        assertThat(rejeicoes(ASSINATURA_INVALIDA)).isEqualTo(3);
+        assertThat(rejeicoes(EXPIRADO)).isEqualTo(1);
+        assertThat(rejeicoes(MALFORMADO)).isZero();
+    }
+
+    @Test
+    void desabilitadoSoConta() {
+        TokenRejeitadoCache cache = new TokenRejeitadoCache(false, 100, 60_000, registry);
+
+        cache.guardar("a", MALFORMADO);
+
+        assertThat(cache.buscar("a")).isNull();
+        assertThat(tamanho()).isZero();
+        assertThat(rejeicoes(MALFORMADO)).isEqualTo(1);
+    }
+
+    private double rejeicoes(TokenInvalidoException.Motivo motivo) {
+        return registry.get("jwt.tokens.rejeitados").tag("motivo", motivo.tag()).counter().count();
+    }
+
+    private double contador(String nome, String tag, String valor) {
+        return registry.get(nome).tag("cache", "jwt.rejeitados").tag(tag, valor).counter().count();
+    }
+
+    private double tamanho() {
+        return registry.get("cache.size").tag("cache", "jwt.rejeitados").gauge().value();
+    }
+}
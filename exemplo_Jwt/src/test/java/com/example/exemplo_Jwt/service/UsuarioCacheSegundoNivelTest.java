@@ -0,0 +1,102 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.dto.UsuarioRequestDTO;
+import com.example.exemplo_Jwt.dto.UsuarioResponseDTO;
+import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Garante que o cache de segundo nível do UsuarioEntity (e o cache
+ * email -> ID do natural id) acompanha atualizar, deletar e
+ * deletarPermanentemente, sem devolver dados antigos.
+ */
+@SpringBootTest(properties = "seguranca.bcrypt.custo=4")
+class UsuarioCacheSegundoNivelTest {
+
+    @Autowired
+    private UsuarioService service;
+
+    @Autowired
+    private UsuarioRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estatisticas;
+
+    @BeforeEach
+    void setUp() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void buscarPorIdRepetidoNaoVaiAoBanco() {
+        UsuarioResponseDTO cadastrado = service.cadastrar(request("Maria Cache", "maria.cache@teste.com", "11122233344"));
+
+        service.buscarPorId(cadastrado.id());
+        estatisticas.clear();
+        UsuarioResponseDTO encontrado = service.buscarPorId(cadastrado.id());
+
+        assertThat(encontrado.nomeCompleto()).isEqualTo("Maria Cache");
+        assertThat(estatisticas.getSecondLevelCacheHitCount()).isPositive();
+        assertThat(estatisticas.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void findByEmailUsaCacheDoNaturalId() {
+        UsuarioResponseDTO cadastrado = service.cadastrar(request("Joao Cache", "joao.cache@teste.com", "22233344455"));
+
+        repository.findByEmail("joao.cache@teste.com");
+        estatisticas.clear();
+
+        assertThat(repository.findByEmail("joao.cache@teste.com"))
+                .hasValueSatisfying(u -> assertThat(u.getId()).isEqualTo(cadastrado.id()));
+        assertThat(estatisticas.getNaturalIdCacheHitCount()).isPositive();
+        assertThat(estatisticas.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void cacheAcompanhaAtualizarEDeletar() {
+        UsuarioResponseDTO cadastrado = service.cadastrar(request("Ana Antiga", "ana.antiga@teste.com", "33344455566"));
+        Long id = cadastrado.id();
+
+        // Coloca a entity e o natural id no cache
+        service.buscarPorId(id);
+        repository.findByEmail("ana.antiga@teste.com");
+
+        // ATUALIZAR (o email não muda, só o nome)
+        service.atualizar(id, request("Ana Nova", "ana.antiga@teste.com", "33344455566"));
+
+        assertThat(service.buscarPorId(id).nomeCompleto()).isEqualTo("Ana Nova");
+        assertThat(repository.findByEmail("ana.antiga@teste.com"))
+                .hasValueSatisfying(u -> assertThat(u.getNomeCompleto()).isEqualTo("Ana Nova"));
+
+        // DELETAR (soft delete)
+        service.deletar(id);
+
+        assertThat(service.buscarPorId(id).ativo()).isFalse();
+
+        // DELETAR PERMANENTEMENTE
+        service.deletarPermanentemente(id);
+
+        assertThatThrownBy(() -> service.buscarPorId(id))
+                .hasMessage("Usuário não encontrado!");
+        assertThat(repository.findByEmail("ana.antiga@teste.com")).isEmpty();
+    }
+
+    private static UsuarioRequestDTO request(String nome, String email, String cpf) {
+        return new UsuarioRequestDTO(nome, cpf, email, "11999998888", LocalDate.of(1990, 1, 1),
+                "Rua Teste, 1", "São Paulo", "SP", "01001000", "senha123");
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.exemplo_Jwt.service;
+
+import com.example.exemplo_Jwt.dto.PaginaUsuariosDTO;
+import com.example.exemplo_Jwt.dto.UsuarioRequestDTO;
+import com.example.exemplo_Jwt.dto.UsuarioResponseDTO;
+import com.example.exemplo_Jwt.dto.mapper.UsuarioMapper;
+import com.example.exemplo_Jwt.entity.UsuarioEntity;
+import com.example.exemplo_Jwt.repository.UsuarioRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * UsuarioService: paginação por cursor (keyset) e tradução das violações
+ * de unicidade do banco em 409.
+ */
+@SpringBootTest(properties = "seguranca.bcrypt.custo=4")
+class UsuarioServiceTest {
+
+    @Autowired
+    private UsuarioService service;
+
+    @Autowired
+    private UsuarioRepository repository;
+
+    @Autowired
+    private UsuarioMapper mapper;
+
+    @Test
+    void cursorPercorreTodosOsUsuariosEmOrdemSemRepetir() {
+        List<Long> cadastrados = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            cadastrados.add(service.cadastrar(request("pagina" + i + "@teste.com", "7500000000" + i)).id());
+        }
+
+        List<Long> vistos = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaUsuariosDTO pagina = service.listarTodos(cursor, 2);
+            assertThat(pagina.usuarios()).hasSizeLessThanOrEqualTo(2);
+            pagina.usuarios().forEach(u -> vistos.add(u.id()));
+            cursor = pagina.proximoCursor();
+        } while (cursor != null);
+
+        assertThat(vistos).isSorted().doesNotHaveDuplicates().containsAll(cadastrados);
+        assertThat(vistos).hasSize((int) repository.count());
+    }
+
+    @Test
+    void cadastroEntrePaginasNaoRepeteNemPulaUsuarios() {
+        UsuarioResponseDTO primeiro = service.cadastrar(request("estavel0@teste.com", "76000000000"));
+        service.cadastrar(request("estavel1@teste.com", "76000000001"));
+
+        // Página começando logo antes do primeiro cadastrado
+        PaginaUsuariosDTO pagina = service.listarTodos(cursorAntesDe(primeiro.id()), 1);
+        assertThat(pagina.usuarios()).extracting(UsuarioResponseDTO::id).containsExactly(primeiro.id());
+
+        // Um cadastro novo (ID maior) entre as páginas aparece no fim,
+        // sem deslocar a página seguinte como faria um OFFSET
+        UsuarioResponseDTO novo = service.cadastrar(request("estavel2@teste.com", "76000000002"));
+        List<Long> resto = new ArrayList<>();
+        String cursor = pagina.proximoCursor();
+        while (cursor != null) {
+            PaginaUsuariosDTO proxima = service.listarTodos(cursor, 1);
+            proxima.usuarios().forEach(u -> resto.add(u.id()));
+            cursor = proxima.proximoCursor();
+        }
+
+        assertThat(resto).doesNotContain(primeiro.id()).contains(novo.id()).isSorted();
+    }
+
+    @Test
+    void limiteForaDaFaixaEAjustado() {
+        service.cadastrar(request("limite@teste.com", "77000000000"));
+
+        assertThat(service.listarTodos(null, 0).usuarios()).hasSize(1);
+        assertThat(service.listarTodos(null, 10_000).usuarios()).hasSizeLessThanOrEqualTo(500);
+    }
+
+    @Test
+    void cursorInvalidoResponde400() {
+        assertThatThrownBy(() -> service.listarTodos("nao-e-um-cursor!", 10))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void violacaoDeEmailOuCpfViraConflito() {
+        assertThat(traduzir("PUBLIC.UK_USUARIOS_EMAIL_INDEX_4"))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                    assertThat(e.getReason()).isEqualTo("Email já cadastrado!");
+                });
+        assertThat(traduzir(UsuarioEntity.UK_CPF))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                    assertThat(e.getReason()).isEqualTo("CPF já cadastrado!");
+                });
+    }
+
+    @Test
+    void outraViolacaoSegueSemTraducao() {
+        DataIntegrityViolationException semConstraint = new DataIntegrityViolationException("sem causa");
+        DataIntegrityViolationException outra = violacao("FK_REFRESH_TOKENS_USUARIO");
+
+        assertThat(UsuarioService.traduzirViolacao(semConstraint)).isSameAs(semConstraint);
+        assertThat(UsuarioService.traduzirViolacao(outra)).isSameAs(outra);
+    }
+
+    @Test
+    void violacaoRealDoBancoETraduzida() {
+        UsuarioResponseDTO existente = service.cadastrar(request("duplicado@teste.com", "78000000000"));
+
+        // Grava direto pelo repository, como um cadastro concorrente que
+        // passou pela checagem antes do primeiro commit
+        UsuarioEntity mesmoEmail = mapper.toEntity(request(existente.email(), "78000000001"));
+        DataIntegrityViolationException e = catchThrowableOfType(
+                DataIntegrityViolationException.class, () -> repository.saveAndFlush(mesmoEmail));
+
+        assertThat(UsuarioService.traduzirViolacao(e))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Email já cadastrado!");
+        assertThatThrownBy(() -> service.cadastrar(request(existente.email(), "78000000002")))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    private static RuntimeException traduzir(String constraint) {
+        return UsuarioService.traduzirViolacao(violacao(constraint));
+    }
+
+    private static DataIntegrityViolationException violacao(String constraint) {
+        return new DataIntegrityViolationException("violação",
+                new ConstraintViolationException("violação", new SQLException("23505"), constraint));
+    }
+
+    /**
+     * Cursor que aponta para o ID anterior (mesmo formato opaco do service)
+     */
+    private static String cursorAntesDe(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id - 1).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UsuarioRequestDTO request(String email, String cpf) {
+        return new UsuarioRequestDTO("Usuario Pagina", cpf, email, "11999998888",
+                LocalDate.of(1990, 1, 1), "Rua Teste, 1", "São Paulo", "SP", "01001000", "senha123");
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.exemplo_Jwt.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache de tokens verificados: entrada sai no "exp" do próprio token (na
+ * leitura ou na limpeza periódica), o cache cheio descarta até 90% da
+ * capacidade, e as métricas acompanham.
+ */
+class VerifiedTokenCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void devolveAMesmaInstanciaEnquantoNaoExpira() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, registry);
+        VerifiedToken token = token(agoraSegundos() + 60);
+
+        cache.guardar("a", token);
+
+        assertThat(cache.buscar("a")).isSameAs(token);
+        assertThat(cache.buscar("b")).isNull();
+        assertThat(contador("hit")).isEqualTo(1);
+        assertThat(contador("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void tokenExpiradoNaoEDevolvidoESaiDoCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, registry);
+        cache.guardar("vencido", token(agoraSegundos() - 1));
+
+        assertThat(cache.buscar("vencido")).isNull();
+
+        assertThat(tamanho()).isZero();
+        assertThat(remocoes()).isEqualTo(1);
+    }
+
+    @Test
+    void removerExpiradosLimpaSoOsVencidos() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, registry);
+        cache.guardar("vencido", token(agoraSegundos() - 1));
+        cache.guardar("valido", token(agoraSegundos() + 60));
+
+        cache.removerExpirados();
+
+        assertThat(tamanho()).isEqualTo(1);
+        assertThat(cache.buscar("valido")).isNotNull();
+    }
+
+    @Test
+    void cacheCheioDescartaAte90PorCento() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, registry);
+        for (int i = 0; i < 10; i++) {
+            cache.guardar("token-" + i, token(agoraSegundos() + 60));
+        }
+
+        cache.guardar("novo", token(agoraSegundos() + 60));
+
+        // 10 -> 9 (90%) antes de inserir o novo
+        assertThat(tamanho()).isEqualTo(10);
+        assertThat(remocoes()).isEqualTo(1);
+        assertThat(cache.buscar("novo")).isNotNull();
+    }
+
+    @Test
+    void cacheCheioDescartaPrimeiroOsExpirados() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 4, registry);
+        cache.guardar("vencido-1", token(agoraSegundos() - 1));
+        cache.guardar("vencido-2", token(agoraSegundos() - 1));
+        cache.guardar("valido-1", token(agoraSegundos() + 60));
+        cache.guardar("valido-2", token(agoraSegundos() + 60));
+
+        cache.guardar("novo", token(agoraSegundos() + 60));
+
+        assertThat(tamanho()).isEqualTo(3);
+        assertThat(List.of("valido-1", "valido-2", "novo"))
+                .allSatisfy(chave -> assertThat(cache.buscar(chave)).isNotNull());
+    }
+
+    @Test
+    void tokenSemExpiracaoNaoEGuardado() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, registry);
+
+        cache.guardar("sem-exp", token(VerifiedToken.AUSENTE));
+
+        assertThat(tamanho()).isZero();
+    }
+
+    @Test
+    void removerTiraOTokenNaHora() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, registry);
+        cache.guardar("a", token(agoraSegundos() + 60));
+
+        cache.remover("a");
+        cache.remover("a");
+
+        assertThat(cache.buscar("a")).isNull();
+        assertThat(remocoes()).isEqualTo(1);
+    }
+
+    @Test
+    void desabilitadoNaoGuardaNemConta() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 100, registry);
+        cache.guardar("a", token(agoraSegundos() + 60));
+
+        assertThat(cache.buscar("a")).isNull();
+        assertThat(tamanho()).isZero();
+        assertThat(contador("miss")).isZero();
+    }
+
+    private static VerifiedToken token(long expiracaoSegundos) {
+        return new VerifiedToken("cache@teste.com", null, expiracaoSegundos, agoraSegundos(),
+                VerifiedToken.AUSENTE, VerifiedToken.AUSENTE, null, null, "principal");
+    }
+
+    private static long agoraSegundos() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private double contador(String resultado) {
+        return registry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", resultado).counter().count();
+    }
+
+    private double remocoes() {
+        return registry.get("cache.evictions").tag("cache", "jwt.tokens").counter().count();
+    }
+
+    private double tamanho() {
+        return registry.get("cache.size").tag("cache", "jwt.tokens").gauge().value();
+    }
+}
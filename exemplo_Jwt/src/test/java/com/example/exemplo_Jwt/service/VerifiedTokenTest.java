@@ -0,0 +1,91 @@
+package com.example.exemplo_Jwt.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * O VerifiedToken guarda o resultado de UMA verificação: os campos tipados
+ * saem das claims do jjwt, e o Map de claims do caminho rápido é montado
+ * só quando pedido, com os mesmos tipos que o jjwt devolveria.
+ */
+class VerifiedTokenTest {
+
+    @Test
+    void deClaimsLeOsCamposTipados() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", "tipado@teste.com");
+        claims.put("jti", "id-1");
+        claims.put("exp", 2_000_000_000);
+        claims.put("iat", new Date(1_900_000_000_000L));
+        claims.put(JwtService.CLAIM_USUARIO_ID, 3_000_000_000L);
+        claims.put(JwtService.CLAIM_VERSAO, 2);
+        claims.put(JwtService.CLAIM_ATIVO, true);
+        claims.put(JwtService.CLAIM_PERMISSOES, List.of("ROLE_USER"));
+
+        VerifiedToken token = VerifiedToken.deClaims(claims, "principal");
+
+        assertThat(token.subject()).isEqualTo("tipado@teste.com");
+        assertThat(token.jti()).isEqualTo("id-1");
+        assertThat(token.kid()).isEqualTo("principal");
+        assertThat(token.expiracaoSegundos()).isEqualTo(2_000_000_000L);
+        assertThat(token.emitidoEmSegundos()).isEqualTo(1_900_000_000L);
+        assertThat(token.usuarioId()).isEqualTo(3_000_000_000L);
+        assertThat(token.versao()).isEqualTo(2);
+        assertThat(token.ativo()).isTrue();
+        assertThat(token.permissoes()).containsExactly("ROLE_USER");
+        assertThat(token.expiracao()).isEqualTo(new Date(2_000_000_000_000L));
+    }
+
+    @Test
+    void claimsAusentesFicamMarcadas() {
+        VerifiedToken token = VerifiedToken.deClaims(Map.of("sub", "sem-claims@teste.com"), null);
+
+        assertThat(token.expiracaoSegundos()).isEqualTo(VerifiedToken.AUSENTE);
+        assertThat(token.usuarioId()).isEqualTo(VerifiedToken.AUSENTE);
+        assertThat(token.versao()).isEqualTo(VerifiedToken.AUSENTE);
+        assertThat(token.ativo()).isNull();
+        assertThat(token.permissoes()).isNull();
+        assertThat(token.expiracao()).isNull();
+        assertThat(token.expirado()).isFalse();
+    }
+
+    @Test
+    void claimsDoCaminhoRapidoSaoMontadasUmaVezComOsTiposDoJjwt() {
+        VerifiedToken token = new VerifiedToken("rapido@teste.com", "id-2", 2_000_000_000L, 1_900_000_000L,
+                3_000_000_000L, 1, false, List.of("ROLE_ADMIN"), "principal");
+
+        Map<String, Object> claims = token.claims();
+
+        assertThat(claims).containsOnly(
+                Map.entry("sub", "rapido@teste.com"),
+                Map.entry("jti", "id-2"),
+                Map.entry("exp", 2_000_000_000),
+                Map.entry("iat", 1_900_000_000),
+                Map.entry(JwtService.CLAIM_USUARIO_ID, 3_000_000_000L),
+                Map.entry(JwtService.CLAIM_VERSAO, 1),
+                Map.entry(JwtService.CLAIM_ATIVO, false),
+                Map.entry(JwtService.CLAIM_PERMISSOES, List.of("ROLE_ADMIN")));
+        assertThat(token.claims()).isSameAs(claims);
+        assertThat(token.claim("jti")).isEqualTo("id-2");
+        assertThatThrownBy(() -> claims.put("sub", "outro@teste.com"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void pertenceAEExpirado() {
+        long agora = System.currentTimeMillis() / 1000;
+        VerifiedToken vencido = new VerifiedToken("dono@teste.com", null, agora - 1, agora - 60,
+                VerifiedToken.AUSENTE, VerifiedToken.AUSENTE, null, null, null);
+
+        assertThat(vencido.pertenceA("dono@teste.com")).isTrue();
+        assertThat(vencido.pertenceA("outro@teste.com")).isFalse();
+        assertThat(vencido.expirado()).isTrue();
+    }
+}
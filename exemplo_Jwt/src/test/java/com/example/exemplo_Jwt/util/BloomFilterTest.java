@@ -0,0 +1,108 @@
+package com.example.exemplo_Jwt.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Bloom filter: nunca dá falso negativo, a taxa de falso positivo medida
+ * fica perto da pedida, e o limite de memória encolhe o vetor de bits
+ * (com a taxa estimada subindo de acordo).
+ */
+class BloomFilterTest {
+
+    private static final long SEM_LIMITE = Long.MAX_VALUE;
+
+    @Test
+    void nuncaDaFalsoNegativo() {
+        BloomFilter filtro = new BloomFilter(10_000, 0.01, SEM_LIMITE);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.adicionar("usuario" + i + "@teste.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filtro.talvezContenha("usuario" + i + "@teste.com")).isTrue();
+        }
+        assertThat(filtro.getItens()).isEqualTo(10_000);
+    }
+
+    @Test
+    void taxaDeFalsoPositivoMedidaFicaPertoDaPedida() {
+        BloomFilter filtro = new BloomFilter(10_000, 0.01, SEM_LIMITE);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.adicionar("usuario" + i + "@teste.com");
+        }
+
+        int falsosPositivos = 0;
+        int consultas = 100_000;
+        for (int i = 0; i < consultas; i++) {
+            if (filtro.talvezContenha("outro" + i + "@teste.com")) {
+                falsosPositivos++;
+            }
+        }
+
+        double medida = (double) falsosPositivos / consultas;
+        assertThat(medida).isLessThan(0.02);
+        assertThat(filtro.taxaFalsoPositivoEstimada()).isCloseTo(0.01, within(0.005));
+    }
+
+    @Test
+    void dimensionaBitsEHashesPelaFormula() {
+        BloomFilter filtro = new BloomFilter(1_000_000, 0.01, SEM_LIMITE);
+
+        // m = -n * ln(p) / (ln 2)² ≈ 9,59 bits por item -> ~1,2 MB; k ≈ 7
+        assertThat(filtro.getTamanhoEmBytes()).isBetween(1_190_000L, 1_210_000L);
+        assertThat(filtro.getNumeroHashes()).isEqualTo(7);
+        assertThat(filtro.getCapacidade()).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void limiteDeMemoriaEncolheOVetorESobeATaxaEstimada() {
+        BloomFilter ideal = new BloomFilter(10_000, 0.01, SEM_LIMITE);
+        BloomFilter limitado = new BloomFilter(10_000, 0.01, 4_096);
+        for (int i = 0; i < 10_000; i++) {
+            ideal.adicionar("usuario" + i + "@teste.com");
+            limitado.adicionar("usuario" + i + "@teste.com");
+        }
+
+        assertThat(limitado.getTamanhoEmBytes()).isEqualTo(4_096);
+        assertThat(limitado.getNumeroHashes()).isLessThan(ideal.getNumeroHashes());
+        assertThat(limitado.taxaFalsoPositivoEstimada())
+                .isGreaterThan(ideal.taxaFalsoPositivoEstimada() * 5);
+
+        // Mesmo apertado, continua sem falso negativo
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(limitado.talvezContenha("usuario" + i + "@teste.com")).isTrue();
+        }
+    }
+
+    @Test
+    void limiteEnormeNaoEstouraEUsaOTamanhoIdeal() {
+        BloomFilter semLimite = new BloomFilter(1_024, 0.01, Long.MAX_VALUE);
+        BloomFilter quaseSemLimite = new BloomFilter(1_024, 0.01, Long.MAX_VALUE / 8 + 1);
+
+        assertThat(semLimite.getTamanhoEmBytes()).isEqualTo(1232);
+        assertThat(semLimite.getNumeroHashes()).isEqualTo(7);
+        assertThat(quaseSemLimite.getTamanhoEmBytes()).isEqualTo(1232);
+    }
+
+    @Test
+    void limiteMenorQueUmaPalavraUsaNoMinimo64Bits() {
+        BloomFilter filtro = new BloomFilter(1_000, 0.01, 1);
+
+        assertThat(filtro.getTamanhoEmBytes()).isEqualTo(8);
+        assertThat(filtro.getNumeroHashes()).isEqualTo(1);
+    }
+
+    @Test
+    void parametrosInvalidosSaoRecusados() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01, SEM_LIMITE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 0, SEM_LIMITE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1, SEM_LIMITE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}